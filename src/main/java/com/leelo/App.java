@@ -2,6 +2,9 @@ package com.leelo;
 
 import com.leelo.controller.HomeController;
 import com.leelo.dao.Database;
+import com.leelo.dao.TextDAO;
+import com.leelo.dao.TextStorageStats;
+import com.leelo.service.ReaderService;
 import com.leelo.util.ResponsiveManager;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -35,7 +38,22 @@ public class App extends Application {
         
         stage.show();
     }
-    
+
+    @Override
+    public void stop() {
+        // Session statistics only on request (-Dleelo.stats=true): the storage totals scan every chunk
+        if (Boolean.getBoolean("leelo.stats")) {
+            System.out.println(Database.getPoolStats());
+            TextStorageStats textStats = new TextDAO().getStorageStats();
+            if (textStats != null) {
+                System.out.println(textStats);
+            }
+        }
+        // Write the last page turns before the pooled database connections are released
+        ReaderService.flushProgress();
+        Database.shutdown();
+    }
+
     private static javafx.scene.layout.BorderPane createHomeWithSideMenu(HomeController homeController) throws IOException {
         javafx.scene.layout.BorderPane root = new javafx.scene.layout.BorderPane();
         
@@ -5,16 +5,46 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
+import com.leelo.model.ReaderPage;
+import com.leelo.model.ReaderToken;
 import com.leelo.model.Word;
+import com.leelo.service.Pagination;
+import com.leelo.service.PaginationEngine;
+import com.leelo.service.ReaderService;
 import com.leelo.service.WordService;
 import com.leelo.service.TextService;
+import com.leelo.service.VocabularyCache;
+import com.leelo.view.FontMeasurer;
+import com.leelo.view.PageRenderer;
+import com.leelo.model.ParagraphIndex;
+import com.leelo.view.ParagraphCell;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.StringExpression;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.input.MouseButton;
-import javafx.scene.paint.Color;
-import java.util.HashMap;
-import java.util.Map;
+import javafx.scene.text.Font;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 import javafx.stage.Modality;
 import javafx.stage.Popup;
 import javafx.stage.Stage;
@@ -22,13 +52,10 @@ import javafx.fxml.FXMLLoader;
 import javafx.geometry.Point2D;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
-import java.util.ArrayList;
-import java.util.List;
-import java.lang.StringBuilder;
-import java.text.Normalizer;
+import com.leelo.util.WordNormalizer;
 import javafx.animation.PauseTransition;
 import javafx.util.Duration;
-import com.leelo.model.Texts;
+import com.leelo.model.TextSummary;
 
 public class ReadingController {
     @FXML
@@ -46,114 +73,516 @@ public class ReadingController {
     @FXML
     private VBox textVBox;
     @FXML
+    private Button modeButton;
+    @FXML
+    private BorderPane readingRoot;
+    @FXML
     private SideMenuController menuController;
 
     private int currentPage = 1;
-    private int totalPages = 1;
-    private double fontSize = 25.0;
-    private Texts currentText;
+    // Font size of the text, applied once to the container and inherited by every word
+    private final DoubleProperty fontSize = new SimpleDoubleProperty(25.0);
+    private final StringExpression fontStyle = Bindings.format(Locale.ROOT, "-fx-font-size: %.1fpx;", fontSize);
+    private TextSummary currentText;
     private WordService WordService = new WordService();
     private TextService textService = new TextService();
-    private Map<String, Word> savedWords = new HashMap<>();
-    private List<String> pages = new ArrayList<>();
-    private static final int WORDS_PER_PAGE = 200;
+    private ReaderService readerService = new ReaderService();
+    private PageRenderer renderer = new PageRenderer(this::tokenClicked);
+    // Continuous scroll mode; stays on for the texts opened afterwards
+    private static boolean scrollMode;
+    private ListView<Integer> paragraphList;
+    // Chunks of the open text, loaded when it is opened
+    private ParagraphIndex paragraphIndex;
+    // Pages of the open text in the current layout; null until they are laid out
+    private Pagination pagination;
+    private final PaginationEngine paginationEngine = PaginationEngine.getInstance();
+    // Reading position as a character offset: the start of the page, or of the first paragraph on screen
+    private int readingOffset;
+    // Stored page to open instead of the saved position, e.g. from a search hit
+    private int pendingPage;
+    private final PauseTransition positionSave = new PauseTransition(Duration.millis(500));
+    // Layout changes settle before the page is checked against the new size
+    private final PauseTransition layoutCheck = new PauseTransition(Duration.millis(250));
+    // Cells created by the paragraph list; the list keeps only enough to fill the screen,
+    // and cells it drops on refresh() are left to the garbage collector
+    private final Set<ParagraphCell> paragraphCells = Collections.newSetFromMap(new WeakHashMap<>());
+    // Registered while the reader is on screen
+    private final VocabularyCache.Listener vocabularyListener = keys -> {
+        if (Platform.isFxApplicationThread()) {
+            vocabularyChanged(keys);
+        } else {
+            Platform.runLater(() -> vocabularyChanged(keys));
+        }
+    };
+    // Incremented for every page requested; results and prefetches of older requests are dropped
+    private volatile int pageRequest;
+    // Same for the paginations requested
+    private int layoutRequest;
+
+    // Pages are prepared one at a time, in the order they were requested; prefetches queue behind them
+    private static final ExecutorService PAGE_LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reader-pages");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @FXML
     public void initialize() {
-        // Example logic: show test text
+        textVBox.styleProperty().bind(fontStyle);
         showPage();
         prevPageButton.setOnAction(e -> previousPage());
         nextPageButton.setOnAction(e -> nextPage());
         decreaseFontButton.setOnAction(e -> adjustFont(-2));
         increaseFontButton.setOnAction(e -> adjustFont(2));
+        modeButton.setOnAction(e -> toggleScrollMode());
+        positionSave.setOnFinished(e -> savePosition());
+        layoutCheck.setOnFinished(e -> checkLayout());
+        fontSize.addListener((obs, oldSize, size) -> layoutCheck.playFromStart());
+        readingRoot.widthProperty().addListener((obs, oldWidth, width) -> layoutCheck.playFromStart());
+        readingRoot.heightProperty().addListener((obs, oldHeight, height) -> layoutCheck.playFromStart());
+        renderer.getNode().heightProperty().addListener((obs, oldHeight, height) -> layoutCheck.playFromStart());
+        updateModeControls();
+        readingRoot.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (scene == null) {
+                VocabularyCache.getInstance().removeListener(vocabularyListener);
+            } else if (oldScene == null) {
+                VocabularyCache.getInstance().addListener(vocabularyListener);
+            }
+        });
 
     }
 
+    /**
+     * Shows the current page: straight away if it was prepared ahead of time, otherwise
+     * once it is prepared on a background thread. The nodes of the page on screen are
+     * reused, and the pages next to it are prepared afterwards.
+     */
     private void showPage() {
+        int request = ++pageRequest;
+        if (currentText == null) {
+            showEmpty();
+            return;
+        }
+        if (pagination == null) {
+            // Shown once the pages are laid out
+            updatePageLabel();
+            return;
+        }
+        ParagraphIndex index = paragraphIndex;
+        Pagination pages = pagination;
+        int page = currentPage;
+        ReaderPage cached = readerService.getCachedPage(pages, page);
+        if (cached != null) {
+            render(cached);
+            prefetchNeighbours(request, index, pages, page);
+            return;
+        }
+        Task<ReaderPage> task = new Task<ReaderPage>() {
+            @Override
+            protected ReaderPage call() {
+                return readerService.preparePage(index, pages, page);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (request != pageRequest) {
+                return;
+            }
+            ReaderPage prepared = task.getValue();
+            if (prepared.isEmpty() && page > 1 && pages.isComplete()) {
+                // Went past the end while the page count was still an estimate
+                currentPage = Math.min(page - 1, pages.getPageCount());
+                showPage();
+                return;
+            }
+            render(prepared);
+            prefetchNeighbours(request, index, pages, page);
+        });
+        task.setOnFailed(e -> task.getException().printStackTrace());
+        PAGE_LOADER.execute(task);
+    }
 
-        textVBox.getChildren().clear();
-        String content;
-        if (pages.isEmpty()) {
-            if (currentText == null || currentText.getText() == null || currentText.getText().trim().isEmpty()) {
-                Label empty = new Label("No text to display. Select or add a valid text.");
-                empty.setStyle("-fx-text-fill: red; -fx-font-size: " + fontSize + "px;");
-                textVBox.getChildren().add(empty);
-                pageLabel.setText("Page 0/0");
+    /**
+     * Shows the page holding a character offset, once the layout has reached it
+     */
+    private void showPageAt(int charOffset) {
+        if (pagination == null) {
+            paginate();
+            return;
+        }
+        int request = ++pageRequest;
+        Pagination pages = pagination;
+        // Waiting for the layout here would hold up the page loader
+        pages.whenPageOf(charOffset, page -> Platform.runLater(() -> {
+            if (request != pageRequest || pagination != pages) {
                 return;
             }
-            content = currentText.getText();
-        } else {
-            content = pages.get(currentPage - 1);
-        }
-        TextFlow flow = new TextFlow();
-        loadSavedWords();
-        for (String word : content.split("\\s+")) {
-            String wordNorm = normalizeWord(word);
-            Text t = new Text(word + " ");
-            t.setStyle("-fx-font-size: " + fontSize + "px;");
-            Word info = savedWords.get(wordNorm);
-            if (info == null) {
-                t.setFill(Color.rgb(0, 60, 255));
+            currentPage = page;
+            showPage();
+        }));
+    }
+
+    private void render(ReaderPage prepared) {
+        if (prepared.isEmpty()) {
+            showEmpty();
+            return;
+        }
+        readingRoot.setCenter(scrollPane);
+        if (textVBox.getChildren().size() != 1 || textVBox.getChildren().get(0) != renderer.getNode()) {
+            textVBox.getChildren().setAll(renderer.getNode());
+        }
+        renderer.render(prepared);
+        readingOffset = prepared.getCharOffset();
+        updatePageLabel();
+        savePosition();
+    }
+
+    /**
+     * Prepares the previous and next pages while the user reads; skipped if the
+     * user has already moved on by the time the loader gets to it
+     */
+    private void prefetchNeighbours(int request, ParagraphIndex index, Pagination pages, int page) {
+        PAGE_LOADER.execute(() -> {
+            if (request == pageRequest) {
+                readerService.prefetch(index, pages, page);
+            }
+        });
+    }
+
+    /**
+     * Cuts the open text into pages for the current font and page size, keeping the
+     * reading position. Its page is estimated right away and corrected, and shown,
+     * once the layout reaches it
+     */
+    private void paginate() {
+        PaginationEngine.Layout layout = currentLayout();
+        if (currentText == null || paragraphIndex == null || layout == null) {
+            // Once the reader has a size, checkLayout() gets here again
+            return;
+        }
+        int request = ++layoutRequest;
+        Font font = Font.font(layout.getFontFamily(), layout.getFontSize());
+        Pagination pages = paginationEngine.paginate(paragraphIndex, layout, () -> new FontMeasurer(font));
+        int offset = readingOffset;
+        pagination = pages;
+        currentPage = pages.estimatePageOf(offset);
+        updatePageLabel();
+        pages.whenPageOf(offset, page -> Platform.runLater(() -> {
+            // Dropped if the layout changed or the reader moved on meanwhile
+            if (request != layoutRequest || readingOffset != offset) {
+                return;
+            }
+            currentPage = page;
+            if (scrollMode) {
+                updatePageLabel();
             } else {
-                switch (info.getState()) {
-                    case 1:
-                        t.setFill(Color.rgb(0, 60, 255));
-                        break;
-                    case 2:
-                        t.setFill(Color.rgb(240, 161, 13));
-                        break;
-                    case 3:
-                        t.setFill(Color.rgb(82, 194, 8));
-                        break;
-                    case 4:
-                        t.setFill(Color.rgb(2, 46, 9));
-                        break;
-                    default:
-                        t.setFill(Color.BLACK);
-                        break;
-                }
+                showPage();
+            }
+        }));
+        // The estimated page count becomes exact; the saved progress follows it
+        pages.whenComplete(() -> Platform.runLater(() -> {
+            if (pagination == pages) {
+                updatePageLabel();
+                savePosition();
+            }
+        }));
+    }
+
+    /**
+     * @return Font and size of the area the text is laid out in, or null before the reader has a size
+     */
+    private PaginationEngine.Layout currentLayout() {
+        double width;
+        double height;
+        if (readingRoot.getCenter() == scrollPane && scrollPane.getViewportBounds().getWidth() > 0) {
+            Bounds viewport = scrollPane.getViewportBounds();
+            width = viewport.getWidth();
+            height = viewport.getHeight();
+        } else if (readingRoot.getCenter() instanceof Region center) {
+            width = center.getWidth();
+            height = center.getHeight();
+        } else {
+            return null;
+        }
+        Insets padding = textVBox.getPadding();
+        width -= padding.getLeft() + padding.getRight();
+        height -= padding.getTop() + padding.getBottom();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        // The words on screen have the font resolved from CSS; before the first page, the reader's family
+        Font shown = renderer.getFont();
+        String family = shown != null ? shown.getFamily() : pageLabel.getFont().getFamily();
+        return new PaginationEngine.Layout(family, fontSize.get(), width, height);
+    }
+
+    /**
+     * Called after the font or the size of the reader changed. The text is cut into
+     * pages again only when the page on screen no longer fits; a page that still fits
+     * stays as it is.
+     */
+    private void checkLayout() {
+        if (currentText == null || paragraphIndex == null) {
+            return;
+        }
+        PaginationEngine.Layout layout = currentLayout();
+        if (layout == null) {
+            return;
+        }
+        if (pagination == null) {
+            paginate();
+        } else if (!scrollMode && !layout.equals(pagination.getLayout())
+                && renderer.getNode().getHeight() > layout.getHeight()) {
+            paginate();
+        }
+    }
+
+    private void updatePageLabel() {
+        if (pagination == null) {
+            pageLabel.setText(currentText == null ? "Page 0/0" : "Page …");
+            return;
+        }
+        // The page count is an estimate until the whole text is laid out
+        String total = (pagination.isComplete() ? "" : "~") + pagination.getPageCount();
+        pageLabel.setText("Page " + currentPage + "/" + total);
+    }
+
+    private void showEmpty() {
+        renderer.clear();
+        readingRoot.setCenter(scrollPane);
+        Label empty = new Label("No text to display. Select or add a valid text.");
+        empty.setStyle("-fx-text-fill: red;");
+        textVBox.getChildren().setAll(empty);
+        pageLabel.setText("Page 0/0");
+    }
+
+    /**
+     * Shows the open text in the current mode
+     */
+    private void showText() {
+        if (scrollMode) {
+            showParagraphs();
+            if (pagination == null) {
+                // For the page numbers
+                paginate();
             }
-            String cleanSelectedWord = cleanWordForSelection(word);
-            t.setOnMouseClicked(e -> {
-                if (e.getButton() == MouseButton.PRIMARY) {
-                    if (info == null) {
-                        // Save automatically as Learning
-                        saveWordAsLearning(wordNorm, cleanSelectedWord);
-                    } else {
-                        openWordPopup(cleanSelectedWord);
-                    }
-                } else if (e.getButton() == MouseButton.SECONDARY && info != null) {
-                    showWordTooltip(t, info);
+        } else {
+            showPageAt(readingOffset);
+        }
+    }
+
+    /**
+     * Recolors the words on screen whose saved state changed; the page is not rebuilt
+     * @param keys Changed keys, or null to redraw everything
+     */
+    private void vocabularyChanged(Set<String> keys) {
+        if (keys == null) {
+            refreshText();
+        } else if (scrollMode) {
+            for (ParagraphCell cell : paragraphCells) {
+                cell.recolor(keys, WordService::findSavedWord);
+            }
+        } else {
+            renderer.recolor(keys, WordService::findSavedWord);
+        }
+    }
+
+    /**
+     * Redraws the words on screen after the vocabulary or the font changed
+     */
+    private void refreshText() {
+        if (scrollMode && paragraphList != null) {
+            paragraphList.refresh();
+        } else {
+            showPage();
+        }
+    }
+
+    private void toggleScrollMode() {
+        if (scrollMode) {
+            // Back to the page holding the first paragraph on screen
+            positionSave.stop();
+            savePosition();
+        }
+        scrollMode = !scrollMode;
+        updateModeControls();
+        showText();
+    }
+
+    private void updateModeControls() {
+        modeButton.setText(scrollMode ? "Pages" : "Scroll");
+        prevPageButton.setDisable(scrollMode);
+        nextPageButton.setDisable(scrollMode);
+    }
+
+    /**
+     * Shows the text as a continuous list of paragraphs, starting at the paragraph that
+     * holds the reading position. Only the paragraphs on screen get cells; their chunks
+     * are read when they come into view.
+     */
+    private void showParagraphs() {
+        int request = ++pageRequest;
+        if (currentText == null) {
+            showEmpty();
+            return;
+        }
+        if (paragraphIndex == null) {
+            // Shown once the text is loaded
+            return;
+        }
+        ParagraphIndex index = paragraphIndex;
+        int offset = readingOffset;
+        Task<Integer> task = new Task<Integer>() {
+            @Override
+            protected Integer call() {
+                return readerService.findParagraph(index, offset);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (request != pageRequest) {
+                return;
+            }
+            if (index.getParagraphCount() == 0) {
+                showEmpty();
+                return;
+            }
+            ListView<Integer> list = getParagraphList();
+            list.setItems(FXCollections.observableList(new ParagraphNumbers(index.getParagraphCount())));
+            readingRoot.setCenter(list);
+            list.scrollTo(task.getValue());
+            updatePageLabel();
+            savePosition();
+        });
+        task.setOnFailed(e -> task.getException().printStackTrace());
+        PAGE_LOADER.execute(task);
+    }
+
+    private ListView<Integer> getParagraphList() {
+        if (paragraphList == null) {
+            paragraphList = new ListView<>();
+            paragraphList.getStyleClass().add("reader-scroll");
+            paragraphList.setFocusTraversable(false);
+            paragraphList.styleProperty().bind(fontStyle);
+            paragraphList.setCellFactory(list -> {
+                ParagraphCell cell = new ParagraphCell(list, paragraphSource, this::tokenClicked);
+                paragraphCells.add(cell);
+                return cell;
+            });
+            paragraphList.skinProperty().addListener((obs, oldSkin, skin) -> {
+                if (paragraphList.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) {
+                    flow.positionProperty().addListener((o, oldPosition, position) -> scrollPositionChanged(flow));
                 }
             });
-            flow.getChildren().add(t);
         }
-        textVBox.getChildren().add(flow);
-        pageLabel.setText("Page " + currentPage + "/" + totalPages);
+        return paragraphList;
+    }
+
+    /**
+     * Follows the first paragraph on screen; the position is saved once scrolling pauses
+     */
+    private void scrollPositionChanged(VirtualFlow<?> flow) {
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        if (paragraphIndex == null || first == null || first.getIndex() < 0) {
+            return;
+        }
+        ReaderPage shown = first instanceof ParagraphCell cell ? cell.getParagraph() : null;
+        readingOffset = shown != null
+                ? shown.getCharOffset()
+                : paragraphIndex.getCharStart(paragraphIndex.chunkOfParagraph(first.getIndex()));
+        if (pagination != null) {
+            currentPage = pagination.estimatePageOf(readingOffset);
+        }
+        updatePageLabel();
+        positionSave.playFromStart();
     }
 
-    private String cleanWordForSelection(String word) {
-        // Remove leading/trailing non-alphanumeric characters (punctuation, symbols)
-        // Keeps internal hyphens/apostrophes (e.g. "don't", "self-made")
-        return word.replaceAll("^[^\\p{L}\\p{N}]+|[^\\p{L}\\p{N}]+$", "");
+    /**
+     * Saves the reading position with the page and page count of the current layout,
+     * so the progress on the home screen is the one the reader shows
+     */
+    private void savePosition() {
+        if (currentText == null || paragraphIndex == null || paragraphIndex.getIdText() != currentText.getIdText()) {
+            return;
+        }
+        if (pagination == null) {
+            ReaderService.saveProgress(currentText.getIdText(), 0, 0, readingOffset);
+        } else {
+            ReaderService.saveProgress(currentText.getIdText(), currentPage, pagination.getPageCount(), readingOffset);
+        }
+    }
+
+    private final ParagraphCell.ParagraphSource paragraphSource = new ParagraphCell.ParagraphSource() {
+        @Override
+        public ReaderPage getCached(int paragraph) {
+            return readerService.getCachedParagraph(paragraphIndex.getIdText(), paragraph);
+        }
+
+        @Override
+        public void load(int paragraph, IntPredicate stillWanted, Consumer<ReaderPage> loaded) {
+            ParagraphIndex index = paragraphIndex;
+            PAGE_LOADER.execute(() -> {
+                // Cells scrolled past before their turn came are not loaded
+                if (!stillWanted.test(paragraph)) {
+                    return;
+                }
+                ReaderPage page = readerService.prepareParagraph(index, paragraph);
+                Platform.runLater(() -> loaded.accept(page));
+                readerService.prefetchParagraphs(index, paragraph);
+            });
+        }
+    };
+
+    /**
+     * Items of the paragraph list: the numbers 0 to count - 1, without storing them
+     */
+    private static final class ParagraphNumbers extends AbstractList<Integer> {
+        private final int count;
+
+        ParagraphNumbers(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
     }
 
-    private void loadSavedWords() {
-        savedWords.clear();
-        for (Word p : WordService.listWords()) {
-            String termNorm = normalizeWord(p.getTerm());
-            savedWords.put(termNorm, p);
+    /**
+     * Shared click handler of the page: the saved word is looked up when clicked,
+     * so the token never holds a stale copy
+     */
+    private void tokenClicked(ReaderToken token, Text node, MouseButton button) {
+        Word info = WordService.findSavedWord(token.getKey());
+        if (button == MouseButton.PRIMARY) {
+            if (info == null) {
+                // Save automatically as Learning
+                saveWordAsLearning(token.getKey(), token.getSelection());
+            } else {
+                openWordPopup(token.getSelection());
+            }
+        } else if (button == MouseButton.SECONDARY && info != null) {
+            showWordTooltip(node, info);
         }
     }
 
     private void previousPage() {
+        if (pagination == null) {
+            return;
+        }
         if (currentPage > 1) {
+            // The position is saved once the page is shown
             currentPage--;
-            textService.updateProgress(currentText.getIdText(), currentPage);
             showPage();
         } else {
             // Si está en la primera página, volver al home
             try {
+                // The home view reads the progress back from the database
+                ReaderService.flushProgress();
                 HomeController homeController = new HomeController();
                 homeController.initialize();
 
@@ -173,13 +602,17 @@ public class ReadingController {
     }
 
     private void nextPage() {
-        if (currentPage < totalPages) {
+        if (pagination == null) {
+            return;
+        }
+        if (currentPage < pagination.getPageCount() || !pagination.isComplete()) {
             currentPage++;
-            textService.updateProgress(currentText.getIdText(), currentPage);
             showPage();
         } else {
             try {
 
+                // The home view reads the progress back from the database
+                ReaderService.flushProgress();
                 HomeController homeController = new HomeController();
                 homeController.initialize();
 
@@ -199,48 +632,81 @@ public class ReadingController {
         }
     }
 
+    /**
+     * Changes the font size of the container; the words inherit it in the next CSS and
+     * layout pass. The text is cut into pages again only if the page no longer fits.
+     */
     private void adjustFont(double delta) {
-        fontSize = Math.max(10, fontSize + delta);
-        showPage();
+        fontSize.set(Math.max(10, fontSize.get() + delta));
     }
 
-    public void setText(Texts selected) {
+    /**
+     * Opens a text from a list entry at its saved position. Only the chunk layout is read
+     * up front; the pages are laid out in the background from the start of the text,
+     * and the page holding the position is shown as soon as it is reached.
+     * @param selected Summary of the text to read
+     */
+    public void setText(TextSummary selected) {
         this.currentText = selected;
-        preparePages();
+        paragraphIndex = null;
+        pagination = null;
+        currentPage = 1;
+        readingOffset = 0;
+        pendingPage = 0;
+        layoutRequest++;
+        int request = ++pageRequest;
+        updatePageLabel();
 
-        // get the last saved page
         int idSelectedText = selected.getIdText();
-        currentPage = textService.getPage(idSelectedText);
-        if (currentPage == 0) {
-            currentPage = 1;
-        }
-
-        // Actualizar o crear el progreso para marcar este libro como el último leído
-        textService.updateProgress(currentText.getIdText(), currentPage);
-
-        totalPages = pages.size();
-        showPage();
+        int[] offset = new int[1];
+        Task<ParagraphIndex> task = new Task<ParagraphIndex>() {
+            @Override
+            protected ParagraphIndex call() {
+                // The position saved by another reader may still be waiting to be written
+                ReaderService.flushProgress();
+                offset[0] = textService.getCharOffset(idSelectedText);
+                return readerService.loadParagraphIndex(idSelectedText);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (request != pageRequest || currentText != selected) {
+                return;
+            }
+            paragraphIndex = task.getValue();
+            if (paragraphIndex.getChunkCount() == 0) {
+                showEmpty();
+                return;
+            }
+            readingOffset = Math.max(0, Math.min(offset[0], paragraphIndex.getCharCount() - 1));
+            if (pendingPage > 0) {
+                readingOffset = paragraphIndex.getCharStart(Math.min(pendingPage, paragraphIndex.getChunkCount()) - 1);
+                pendingPage = 0;
+            }
+            showText();
+        });
+        task.setOnFailed(e -> task.getException().printStackTrace());
+        PAGE_LOADER.execute(task);
     }
 
-    private void preparePages() {
-        pages.clear();
-        if (currentText == null)
+    /**
+     * Jumps to a stored page of the open text, e.g. the page of a search hit, and shows
+     * the reader's page holding its start
+     * @param page Stored page number (1-based), as in text_chunks
+     */
+    public void goToPage(int page) {
+        if (currentText == null || page < 1) {
+            return;
+        }
+        if (paragraphIndex == null) {
+            // Still opening: applied once the text is loaded
+            pendingPage = page;
             return;
-        String[] words = currentText.getText().split("\\s+");
-        StringBuilder page = new StringBuilder();
-        int count = 0;
-        for (String word : words) {
-            page.append(word).append(" ");
-            count++;
-            if (count >= WORDS_PER_PAGE) {
-                pages.add(page.toString().trim());
-                page = new StringBuilder();
-                count = 0;
-            }
         }
-        if (page.length() > 0) {
-            pages.add(page.toString().trim());
+        if (page > paragraphIndex.getChunkCount()) {
+            return;
         }
+        readingOffset = paragraphIndex.getCharStart(page - 1);
+        showText();
     }
 
     private void openWordPopup(String word) {
@@ -249,7 +715,7 @@ public class ReadingController {
             Parent root = loader.load();
 
             addWordController controller = loader.getController();
-            Word info = savedWords.get(normalizeWord(word));
+            Word info = WordService.findSavedWord(normalizeWord(word));
             if (info != null) {
                 controller.setWordToEdit(info);
             } else {
@@ -261,20 +727,14 @@ public class ReadingController {
             dialog.setTitle("Add/Edit");
             dialog.setScene(new Scene(root, 200, 250));
             dialog.showAndWait();
-            // On close, refresh words and highlighting
-            loadSavedWords();
-            showPage();
+            // The words on screen are recolored by vocabularyChanged when the word is saved
         } catch (Exception ex) {
             ex.printStackTrace();
         }
     }
 
     private String normalizeWord(String word) {
-        // Remove punctuation, convert to lowercase and remove accents
-        String withoutPunctuation = word.replaceAll("[^\\p{L}]", "").toLowerCase();
-        String normalized = Normalizer.normalize(withoutPunctuation, Normalizer.Form.NFD)
-                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        return normalized;
+        return WordNormalizer.normalize(word);
     }
 
     // Method to show the state name
@@ -329,9 +789,7 @@ public class ReadingController {
         newWord.setPronunciation("");
         newWord.setState(4);
         newWord.setUrlImg("");
-        new com.leelo.service.WordService().addWord(newWord);
-        loadSavedWords();
+        WordService.addWord(newWord);
         openWordPopup(wordOriginal);
-        showPage();
     }
 }
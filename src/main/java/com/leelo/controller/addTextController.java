@@ -1,7 +1,10 @@
 package com.leelo.controller;
 
 import com.leelo.App;
+import com.leelo.model.ImportResult;
 import com.leelo.model.Texts;
+import com.leelo.service.BulkImportService;
+import com.leelo.service.PdfImportService;
 import com.leelo.service.TextService;
 import com.leelo.util.TextCleaner;
 import javafx.application.Platform;
@@ -15,16 +18,17 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.File;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 public class addTextController {
 
@@ -43,6 +47,8 @@ public class addTextController {
     private Button txtButton;
     @FXML
     private Button urlButton;
+    @FXML
+    private Button folderButton;
 
     // UI elements for enhanced functionality
     @FXML
@@ -65,8 +71,18 @@ public class addTextController {
     private ProgressIndicator loadingIndicator;
     @FXML
     private HBox buttonContainer;
+    @FXML
+    private VBox importContainer;
+    @FXML
+    private ProgressBar importProgress;
+    @FXML
+    private Label importStatusLabel;
+    @FXML
+    private Button cancelImportButton;
 
     private TextService textService = new TextService();
+    private PdfImportService pdfImportService = new PdfImportService();
+    private BulkImportService bulkImportService = new BulkImportService();
     private Texts textToEdit = null;
     private boolean isLoading = false;
 
@@ -95,6 +111,7 @@ public class addTextController {
         pdfButton.setOnAction(e -> saveFromPdf());
         txtButton.setOnAction(e -> saveFromTxt());
         urlButton.setOnAction(e -> saveFromUrl());
+        folderButton.setOnAction(e -> importFolder());
 
         // Real-time character and word counting
         areaContent.textProperty().addListener((observable, oldValue, newValue) -> {
@@ -302,6 +319,9 @@ public class addTextController {
     }
 
     private void saveFromPdf() {
+        if (isLoading)
+            return;
+
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Selecciona un archivo PDF");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Archivos PDF", "*.pdf"));
@@ -315,20 +335,154 @@ public class addTextController {
                 fileName = fileName.substring(0, fileName.length() - 4);
             }
             titleField.setText(fileName);
+            importPdf(selectedFile, fileName);
+        }
+    }
 
-            try (PDDocument document = Loader.loadPDF(selectedFile)) {
-                if (!document.isEncrypted()) {
-                    PDFTextStripper stripper = new PDFTextStripper();
-                    String text = stripper.getText(document);
-                    String cleanedText = TextCleaner.clean(text);
-                    areaContent.setText(cleanedText);
-                } else {
-                    showError("El archivo está encriptado.");
-                }
-            } catch (Exception e) {
-                showError("Error al leer el PDF: " + e.getMessage());
+    /**
+     * Extracts, cleans and stores a PDF page by page in the background. The editor only
+     * shows a read-only preview of the beginning of the text while the import runs.
+     */
+    private void importPdf(File file, String title) {
+        Task<ImportResult> importTask = new Task<ImportResult>() {
+            @Override
+            protected ImportResult call() throws Exception {
+                return pdfImportService.importPdf(file, title, new PdfImportService.Listener() {
+                    @Override
+                    public void pageExtracted(int page, int pageCount) {
+                        updateProgress(page, pageCount);
+                        updateMessage("Página " + page + " de " + pageCount);
+                    }
+
+                    @Override
+                    public void preview(String text) {
+                        Platform.runLater(() -> areaContent.setText(text));
+                    }
+                }, this::isCancelled);
+            }
+        };
+
+        setImportState(true);
+        importProgress.progressProperty().bind(importTask.progressProperty());
+        importStatusLabel.textProperty().bind(importTask.messageProperty());
+        cancelImportButton.setOnAction(e -> importTask.cancel());
+
+        importTask.setOnSucceeded(e -> {
+            setImportState(false);
+            switch (importTask.getValue()) {
+                case STORED:
+                    showMessage("Text saved successfully!", MessageType.SUCCESS);
+                    goToTexts();
+                    break;
+                case DUPLICATE:
+                    areaContent.clear();
+                    showMessage("This PDF is already in your library.", MessageType.INFO);
+                    break;
+                case CANCELLED:
+                    areaContent.clear();
+                    showMessage("PDF import cancelled.", MessageType.INFO);
+                    break;
+                default:
+                    areaContent.clear();
+                    showMessage("The PDF has no text to import or could not be saved.", MessageType.WARNING);
             }
+        });
+        importTask.setOnCancelled(e -> {
+            setImportState(false);
+            areaContent.clear();
+            showMessage("PDF import cancelled.", MessageType.INFO);
+        });
+        importTask.setOnFailed(e -> {
+            setImportState(false);
+            areaContent.clear();
+            Throwable error = importTask.getException();
+            showError("Error al leer el PDF: " + (error == null ? "" : error.getMessage()));
+        });
+
+        Thread importThread = new Thread(importTask);
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+
+    private void setImportState(boolean importing) {
+        if (!importing) {
+            importProgress.progressProperty().unbind();
+            importStatusLabel.textProperty().unbind();
         }
+        isLoading = importing;
+        importContainer.setVisible(importing);
+        importContainer.setManaged(importing);
+        buttonContainer.setVisible(!importing);
+        buttonContainer.setManaged(!importing);
+        titleField.setDisable(importing);
+        areaContent.setEditable(!importing);
+    }
+
+    /**
+     * Imports every TXT and PDF file of a folder in the background
+     */
+    private void importFolder() {
+        if (isLoading)
+            return;
+
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Selecciona una carpeta con textos");
+        directoryChooser.setInitialDirectory(new File(System.getProperty("user.home") + "/Documents"));
+        File directory = directoryChooser.showDialog(null);
+        if (directory == null) {
+            return;
+        }
+
+        Task<BulkImportService.Summary> importTask = new Task<BulkImportService.Summary>() {
+            @Override
+            protected BulkImportService.Summary call() throws Exception {
+                return bulkImportService.importDirectory(directory.toPath(), (result, done, total) -> {
+                    updateProgress(done, total);
+                    updateMessage("Archivo " + done + " de " + total + ": " + result.getFile().getFileName());
+                }, this::isCancelled);
+            }
+        };
+
+        setImportState(true);
+        importProgress.progressProperty().bind(importTask.progressProperty());
+        importStatusLabel.textProperty().bind(importTask.messageProperty());
+        cancelImportButton.setOnAction(e -> importTask.cancel());
+
+        importTask.setOnSucceeded(e -> {
+            setImportState(false);
+            BulkImportService.Summary summary = importTask.getValue();
+            List<String> failed = summary.getResults().stream()
+                    .filter(result -> result.getStatus() == BulkImportService.Status.FAILED)
+                    .map(result -> result.getFile().getFileName().toString())
+                    .toList();
+            int duplicates = summary.count(BulkImportService.Status.DUPLICATE);
+            showMessage(summary.count(BulkImportService.Status.IMPORTED) + " texts imported"
+                            + String.format(" (%.1f files/s)", summary.getFilesPerSecond())
+                            + (duplicates > 0 ? ", " + duplicates + " already in your library" : "")
+                            + (failed.isEmpty() ? "" : ", " + failed.size() + " files failed: " + listFiles(failed)),
+                    failed.isEmpty() ? MessageType.SUCCESS : MessageType.WARNING);
+        });
+        importTask.setOnCancelled(e -> {
+            setImportState(false);
+            showMessage("Folder import cancelled.", MessageType.INFO);
+        });
+        importTask.setOnFailed(e -> {
+            setImportState(false);
+            Throwable error = importTask.getException();
+            showError("Error al importar la carpeta: " + (error == null ? "" : error.getMessage()));
+        });
+
+        Thread importThread = new Thread(importTask);
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+
+    /**
+     * @return The first names of a list of files, for a message
+     */
+    private static String listFiles(List<String> names) {
+        int shown = Math.min(names.size(), 3);
+        return String.join(", ", names.subList(0, shown)) + (names.size() > shown ? ", …" : "");
     }
 
     private void saveFromUrl() {
@@ -337,7 +491,17 @@ public class addTextController {
 
     public void addTextFromUrl(String title, String content) {
         titleField.setText(title);
-        areaContent.setText(TextCleaner.clean(content));
+        areaContent.setText(TextCleaner.cleanParallel(content));
+    }
+
+    /**
+     * Called by the URL dialog after it stored several pages as new texts
+     */
+    public void textsImportedFromUrls(int imported, int duplicates, int failed) {
+        showMessage(imported + " texts imported"
+                        + (duplicates > 0 ? ", " + duplicates + " already in your library" : "")
+                        + (failed > 0 ? ", " + failed + " pages failed" : ""),
+                failed > 0 ? MessageType.WARNING : MessageType.SUCCESS);
     }
 
     private void openAddUrlWindow() {
@@ -376,15 +540,21 @@ public class addTextController {
 
         File selectedFile = fileChooser.showOpenDialog(null);
         if (selectedFile != null) {
+            String fileName = selectedFile.getName();
+            if (fileName.toLowerCase().endsWith(".txt")) {
+                fileName = fileName.substring(0, fileName.length() - 4);
+            }
+            // Too large for the editor; cleaned and stored directly
+            if (selectedFile.length() > TextService.STREAMED_IMPORT_BYTES) {
+                importLargeTxt(selectedFile.toPath(), fileName);
+                return;
+            }
             try {
-                String content = Files.readString(selectedFile.toPath());
-                String fileName = selectedFile.getName();
-                if (fileName.toLowerCase().endsWith(".txt")) {
-                    fileName = fileName.substring(0, fileName.length() - 4);
-                }
+                // The editor holds the whole text anyway; a large one is cleaned on all cores
+                String content = TextCleaner.cleanParallel(Files.readString(selectedFile.toPath()));
 
                 titleField.setText(fileName);
-                areaContent.setText(TextCleaner.clean(content));
+                areaContent.setText(content);
                 System.out.println("Texto cargado desde: " + fileName);
 
             } catch (IOException e) {
@@ -395,6 +565,54 @@ public class addTextController {
         }
     }
 
+    /**
+     * Cleans a large TXT file while reading it and stores it page by page, so the book is
+     * never held in memory as a whole
+     */
+    private void importLargeTxt(Path file, String title) {
+        if (isLoading)
+            return;
+        titleField.setText(title);
+        setLoadingState(true);
+
+        Task<ImportResult> importTask = new Task<ImportResult>() {
+            @Override
+            protected ImportResult call() {
+                Texts text = new Texts();
+                text.setTittle(title);
+                return textService.importText(text, out -> {
+                    try (Reader reader = Files.newBufferedReader(file)) {
+                        TextCleaner.clean(reader, out);
+                    }
+                });
+            }
+        };
+
+        importTask.setOnSucceeded(e -> {
+            setLoadingState(false);
+            switch (importTask.getValue()) {
+                case STORED:
+                    showMessage("Text saved successfully!", MessageType.SUCCESS);
+                    goToTexts();
+                    break;
+                case DUPLICATE:
+                    showMessage("This file is already in your library.", MessageType.INFO);
+                    break;
+                default:
+                    showMessage("Could not import the file. Please try again.", MessageType.ERROR);
+            }
+        });
+
+        importTask.setOnFailed(e -> {
+            setLoadingState(false);
+            showMessage("An error occurred while importing. Please try again.", MessageType.ERROR);
+        });
+
+        Thread importThread = new Thread(importTask);
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+
     private void setLoadingState(boolean loading) {
         isLoading = loading;
         loadingContainer.setVisible(loading);
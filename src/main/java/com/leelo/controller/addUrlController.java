@@ -1,12 +1,24 @@
 package com.leelo.controller;
 
-import org.jsoup.Jsoup;
+import com.leelo.model.Texts;
+import com.leelo.service.TextService;
+import com.leelo.service.UrlFetchService;
+import com.leelo.util.ArticleExtractor;
+import com.leelo.util.ContentHash;
+import com.leelo.util.TextCleaner;
 import org.jsoup.nodes.Document;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 public class addUrlController {
 
@@ -16,8 +28,12 @@ public class addUrlController {
     private TextField urlField;
     @FXML
     private Button saveButton;
+    @FXML
+    private Label statusLabel;
 
     private addTextController parent;
+    private UrlFetchService fetchService = new UrlFetchService();
+    private TextService textService = new TextService();
 
     public void setParentController(addTextController parent) {
         this.parent = parent;
@@ -33,30 +49,137 @@ public class addUrlController {
         String url = urlField.getText().trim();
 
         if (title.isBlank() || url.isBlank()) {
-            System.out.println("Debe llenar ambos campos");
+            statusLabel.setText("Debe llenar ambos campos");
             return;
         }
 
-        // Intentar leer el contenido de la página
+        // Several URLs separated by spaces are imported together
+        List<URI> uris = new ArrayList<>();
         try {
-            System.out.println("Leyendo contenido de la página: " + url);
-            Document doc = Jsoup.connect(url).get();
+            for (String part : url.split("\\s+")) {
+                uris.add(UrlFetchService.toUri(part));
+            }
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText(e.getMessage());
+            return;
+        }
+
+        if (uris.size() == 1) {
+            fetchOne(title, uris.get(0));
+        } else {
+            fetchMany(title, uris);
+        }
+    }
 
-            // Extraer texto visible de la página
-            String text = doc.body().text();
+    /**
+     * Downloads one page in the background and hands its text to the editor
+     */
+    private void fetchOne(String title, URI uri) {
+        Task<String> fetchTask = new Task<String>() {
+            @Override
+            protected String call() throws Exception {
+                UrlFetchService.FetchResult result = fetchService.fetch(uri);
+                return textOf(result.parse());
+            }
+        };
 
-            // Enviar título y texto al controlador principal
+        fetchTask.setOnSucceeded(e -> {
             if (parent != null) {
-                parent.addTextFromUrl(title, text);
+                parent.addTextFromUrl(title, fetchTask.getValue());
             }
+            close();
+        });
+        fetchTask.setOnFailed(e -> {
+            setBusy(false);
+            Throwable error = fetchTask.getException();
+            statusLabel.setText("Error al leer la página: " + (error == null ? "" : error.getMessage()));
+        });
 
-            System.out.println("Texto extraído correctamente de: " + title);
+        setBusy(true);
+        statusLabel.setText("Leyendo " + uri.getHost() + "...");
+        start(fetchTask);
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error al leer la página: " + e.getMessage());
-        }
+    /**
+     * Downloads several pages at once and stores each one as a new text, titled after the
+     * page or, failing that, after the given title and its position in the list. A page
+     * whose text is already stored is counted as a duplicate and not stored again.
+     */
+    private void fetchMany(String title, List<URI> uris) {
+        Task<int[]> fetchTask = new Task<int[]>() {
+            @Override
+            protected int[] call() {
+                List<UrlFetchService.FetchResult> results = fetchService.fetchAll(uris, (result, done, total) ->
+                        updateMessage("Página " + done + " de " + total), this::isCancelled);
+                int imported = 0;
+                int duplicates = 0;
+                for (int i = 0; i < results.size() && !isCancelled(); i++) {
+                    UrlFetchService.FetchResult result = results.get(i);
+                    try {
+                        Document document = result.parse();
+                        String body = TextCleaner.clean(textOf(document));
+                        if (body.isEmpty()) {
+                            continue;
+                        }
+                        String hash = ContentHash.of(body);
+                        if (textService.findTextIdByContentHash(hash) > 0) {
+                            duplicates++;
+                            continue;
+                        }
+                        Texts text = new Texts();
+                        text.setTittle(document.title().isBlank() ? title + " " + (i + 1) : document.title().trim());
+                        text.setText(body);
+                        text.setContentHash(hash);
+                        if (textService.addText(text)) {
+                            imported++;
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Error al leer la página: " + result);
+                    }
+                }
+                return new int[]{imported, duplicates, results.size() - imported - duplicates};
+            }
+        };
+
+        fetchTask.setOnSucceeded(e -> {
+            int[] counts = fetchTask.getValue();
+            if (parent != null) {
+                parent.textsImportedFromUrls(counts[0], counts[1], counts[2]);
+            }
+            close();
+        });
+        fetchTask.setOnFailed(e -> {
+            setBusy(false);
+            statusLabel.textProperty().unbind();
+            statusLabel.setText("Error al leer las páginas.");
+        });
+
+        setBusy(true);
+        statusLabel.textProperty().bind(fetchTask.messageProperty());
+        start(fetchTask);
+    }
+
+    private static String textOf(Document document) {
+        // Solo el contenido principal: sin menús, barras laterales, comentarios ni pies de página
+        return ArticleExtractor.extract(document);
+    }
+
+    private void start(Task<?> task) {
+        // Closing the dialog cancels the task: waiting downloads fail and nothing more is stored
+        saveButton.getScene().getWindow().addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> task.cancel());
+        Thread fetchThread = new Thread(task);
+        fetchThread.setDaemon(true);
+        fetchThread.start();
+    }
+
+    private void setBusy(boolean busy) {
+        saveButton.setDisable(busy);
+        titleField.setDisable(busy);
+        urlField.setDisable(busy);
+    }
 
-        // Cerrar ventana
+    private void close() {
+        statusLabel.textProperty().unbind();
         Stage stage = (Stage) saveButton.getScene().getWindow();
         stage.close();
     }
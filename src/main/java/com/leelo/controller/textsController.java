@@ -1,10 +1,15 @@
 package com.leelo.controller;
 
 import com.leelo.App;
+import com.leelo.model.TextSearchHit;
+import com.leelo.model.TextSummary;
 import com.leelo.model.Texts;
 import com.leelo.service.TextService;
+import javafx.animation.PauseTransition;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -14,13 +19,17 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class textsController {
     @FXML
-    private TableView<Texts> textsTable;
+    private TableView<TextSummary> textsTable;
     @FXML
     private Button addButton;
     @FXML
@@ -34,18 +43,32 @@ public class textsController {
     @FXML
     private TextField searchText;
     @FXML
-    private TableColumn<Texts, String> titleCol;
+    private TableColumn<TextSummary, String> titleCol;
     @FXML
-    private TableColumn<Texts, String> dateCol;
+    private TableColumn<TextSummary, String> dateCol;
+    @FXML
+    private TableColumn<TextSummary, String> matchCol;
 
     private TextService TextService = new TextService();
-    private ObservableList<Texts> textsList = FXCollections.observableArrayList();
+    private ObservableList<TextSummary> textsList = FXCollections.observableArrayList();
+    // Summaries loaded once per refresh; the search field filters this list in memory
+    private List<TextSummary> allTexts = List.of();
+    private Map<Integer, TextSummary> textsById = Map.of();
+    // Best full-text match per text for the current search, in rank order
+    private Map<Integer, TextSearchHit> bodyHits = new LinkedHashMap<>();
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(200));
+    private static final int MAX_SEARCH_HITS = 500;
 
     @FXML
     public void initialize() {
 
         titleCol.setCellValueFactory(new PropertyValueFactory<>("tittle"));
         dateCol.setCellValueFactory(new PropertyValueFactory<>("creationDate"));
+        matchCol.setCellValueFactory(cell -> {
+            TextSearchHit hit = bodyHits.get(cell.getValue().getIdText());
+            // The stored page of the hit is not a page of the reader, so only the excerpt is shown
+            return new SimpleStringProperty(hit == null ? "" : hit.getSnippet());
+        });
 
         loadTexts();
         addButton.setOnAction(e -> goToAddText());
@@ -60,21 +83,68 @@ public class textsController {
             }
         });
 
-        // search a text by name
+        // search a text by name at once, and by content once typing pauses
         searchText.textProperty().addListener((observable, oldValue, newValue) -> {
-            String filter = newValue.toLowerCase(); 
-            List<Texts> filteredTexts = TextService.listAllTexts().stream()
-                    .filter(text -> text.getTittle().toLowerCase().contains(filter))
-                    .toList(); 
-
-            textsList.setAll(filteredTexts);
+            bodyHits = new LinkedHashMap<>();
+            showSearchResults(newValue);
+            searchDelay.playFromStart();
         });
+        searchDelay.setOnFinished(e -> searchBodies(searchText.getText()));
 
     }
 
+    private void showSearchResults(String query) {
+        String filter = query.toLowerCase();
+        Map<Integer, TextSummary> byId = new LinkedHashMap<>();
+        for (TextSummary text : allTexts) {
+            if (text.getTittle().toLowerCase().contains(filter)) {
+                byId.put(text.getIdText(), text);
+            }
+        }
+        for (Integer idText : bodyHits.keySet()) {
+            TextSummary text = textsById.get(idText);
+            if (text != null) {
+                byId.putIfAbsent(idText, text);
+            }
+        }
+        textsList.setAll(byId.values());
+        textsTable.refresh();
+    }
+
+    private void searchBodies(String query) {
+        if (query == null || query.trim().length() < 2) {
+            return;
+        }
+        Task<List<TextSearchHit>> searchTask = new Task<>() {
+            @Override
+            protected List<TextSearchHit> call() {
+                return TextService.searchTexts(query, MAX_SEARCH_HITS);
+            }
+        };
+        searchTask.setOnSucceeded(e -> {
+            // Ignore results for a query the user has already changed
+            if (!query.equals(searchText.getText())) {
+                return;
+            }
+            Map<Integer, TextSearchHit> hits = new LinkedHashMap<>();
+            for (TextSearchHit hit : searchTask.getValue()) {
+                hits.putIfAbsent(hit.getIdText(), hit);
+            }
+            bodyHits = hits;
+            showSearchResults(query);
+        });
+        Thread searchThread = new Thread(searchTask);
+        searchThread.setDaemon(true);
+        searchThread.start();
+    }
+
     private void loadTexts() {
-        List<Texts> texts = TextService.listAllTexts();
-        textsList.setAll(texts);
+        allTexts = TextService.listTextSummaries();
+        textsById = new HashMap<>();
+        for (TextSummary text : allTexts) {
+            textsById.put(text.getIdText(), text);
+        }
+        textsList.setAll(allTexts);
         textsTable.setItems(textsList);
     }
 
@@ -87,18 +157,22 @@ public class textsController {
     }
 
     private void editSelectedText() {
-        Texts selected = textsTable.getSelectionModel().getSelectedItem();
+        TextSummary selected = textsTable.getSelectionModel().getSelectedItem();
         if (selected == null) {
             // Optional: show selection required message
             return;
         }
+        Texts text = TextService.getText(selected.getIdText());
+        if (text == null) {
+            return;
+        }
         try {
         
             FXMLLoader loader = new FXMLLoader(App.class.getResource("add_text.fxml"));
             Parent root = loader.load();
 
             addTextController controller = loader.getController();
-            controller.setTextToEdit(selected);
+            controller.setTextToEdit(text);
         
             App.getScene().setRoot(root);
 
@@ -108,7 +182,7 @@ public class textsController {
     }
 
     private void deleteSelectedText() {
-        Texts selected = textsTable.getSelectionModel().getSelectedItem();
+        TextSummary selected = textsTable.getSelectionModel().getSelectedItem();
         if (selected == null) {
             // Optional: show selection required message
             return;
@@ -131,7 +205,7 @@ public class textsController {
 
     private void readSelectedText() {
 
-        Texts selected = textsTable.getSelectionModel().getSelectedItem();
+        TextSummary selected = textsTable.getSelectionModel().getSelectedItem();
         if (selected == null) return;
 
         try {
@@ -141,6 +215,10 @@ public class textsController {
 
             ReadingController controller = loader.getController();
             controller.setText(selected);
+            TextSearchHit hit = bodyHits.get(selected.getIdText());
+            if (hit != null) {
+                controller.goToPage(hit.getPage());
+            }
             
             App.getScene().setRoot(root);
 
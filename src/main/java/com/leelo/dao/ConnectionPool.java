@@ -0,0 +1,484 @@
+package com.leelo.dao;
+
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of long-lived SQLite connections: a single writer plus up to N read-only readers.
+ * SQLite allows only one writer at a time, so the writer is handed out under a lock
+ * (re-entrant for the owning thread) while readers are shared through a semaphore.
+ * Borrowed connections are proxies; closing them returns the physical connection
+ * to the pool instead of closing the file. Idle readers are closed after the configured timeout.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final DatabaseConfig config;
+
+    // Writer connection, guarded by writerLock
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private Connection writer;
+
+    // Reader connections
+    private final Semaphore readerPermits;
+    private final Deque<IdleConnection> idleReaders = new ArrayDeque<>();
+    private final AtomicInteger openReaders = new AtomicInteger();
+    private final AtomicInteger readersInUse = new AtomicInteger();
+
+    // Statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool for the database described by the given configuration.
+     * Connections are opened lazily on first borrow.
+     * @param config Pool and database settings
+     */
+    public ConnectionPool(DatabaseConfig config) {
+        this.config = config;
+        this.readerPermits = new Semaphore(config.getMaxReaders(), true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "leelo-db-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, config.getIdleTimeoutMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleReaders, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows the writer connection. Blocks while another thread holds it.
+     * The same thread may borrow it again (nested DAO calls); the connection must be
+     * closed on the thread that borrowed it.
+     * @return Connection proxy that returns the writer to the pool on close
+     * @throws SQLException if the pool is closed, the wait times out or the connection cannot be opened
+     */
+    public Connection borrowWriter() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        try {
+            if (!writerLock.tryLock(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out waiting for the writer connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the writer connection", e);
+        }
+        recordBorrow(start);
+
+        try {
+            if (writer == null || writer.isClosed()) {
+                writer = openConnection(false);
+            }
+        } catch (SQLException e) {
+            writerLock.unlock();
+            throw e;
+        }
+        if (writerLock.getHoldCount() == 1) {
+            updatePeak();
+        }
+        Connection physical = writer;
+        return wrap(physical, () -> releaseWriter(physical));
+    }
+
+    /**
+     * Borrows a read-only connection, opening a new one if no idle reader is available
+     * and the reader limit has not been reached.
+     * @return Connection proxy that returns the reader to the pool on close
+     * @throws SQLException if the pool is closed, the wait times out or the connection cannot be opened
+     */
+    public Connection borrowReader() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        try {
+            if (!readerPermits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out waiting for a reader connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", e);
+        }
+        recordBorrow(start);
+
+        Connection physical;
+        try {
+            physical = takeIdleReader();
+            if (physical == null) {
+                physical = openConnection(true);
+                openReaders.incrementAndGet();
+            }
+        } catch (SQLException e) {
+            readerPermits.release();
+            throw e;
+        }
+        readersInUse.incrementAndGet();
+        updatePeak();
+        Connection borrowed = physical;
+        return wrap(borrowed, () -> releaseReader(borrowed));
+    }
+
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Takes a snapshot of the pool counters
+     * @return Current pool statistics
+     */
+    public Stats getStats() {
+        return new Stats(
+                borrowCount.get(),
+                borrowWaitNanos.get(),
+                maxBorrowWaitNanos.get(),
+                readersInUse.get(),
+                openReaders.get(),
+                config.getMaxReaders(),
+                writerLock.isLocked(),
+                peakInUse.get(),
+                evictedCount.get());
+    }
+
+    /**
+     * Closes every pooled connection. Connections still borrowed are closed when returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        synchronized (idleReaders) {
+            for (IdleConnection idle : idleReaders) {
+                closeQuietly(idle.connection);
+                openReaders.decrementAndGet();
+            }
+            idleReaders.clear();
+        }
+        if (writerLock.tryLock()) {
+            try {
+                closeQuietly(writer);
+                writer = null;
+            } finally {
+                writerLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Opens a physical connection with the storage profile pragmas applied.
+     * The journal mode is persistent in the database file, so only the writer sets it.
+     */
+    protected Connection openConnection(boolean readOnly) throws SQLException {
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setReadOnly(readOnly);
+        if (!readOnly) {
+            sqliteConfig.setJournalMode(config.getProfile().getJournalMode());
+        }
+        sqliteConfig.setSynchronous(config.getProfile().getSynchronous());
+        sqliteConfig.setCacheSize(config.getCacheSize());
+        sqliteConfig.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(config.getMmapSize()));
+        sqliteConfig.setTempStore(config.isTempStoreMemory()
+                ? SQLiteConfig.TempStore.MEMORY : SQLiteConfig.TempStore.DEFAULT);
+        sqliteConfig.setBusyTimeout(config.getBusyTimeoutMillis());
+        return sqliteConfig.createConnection(config.getUrl());
+    }
+
+    private Connection takeIdleReader() {
+        synchronized (idleReaders) {
+            IdleConnection idle = idleReaders.pollFirst();
+            return idle != null ? idle.connection : null;
+        }
+    }
+
+    private void releaseWriter(Connection physical) {
+        try {
+            if (writerLock.getHoldCount() == 1) {
+                resetState(physical);
+                if (closed) {
+                    closeQuietly(physical);
+                    writer = null;
+                }
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private void releaseReader(Connection physical) {
+        readersInUse.decrementAndGet();
+        try {
+            if (closed || physical.isClosed() || !resetState(physical)) {
+                closeQuietly(physical);
+                openReaders.decrementAndGet();
+            } else {
+                synchronized (idleReaders) {
+                    // Most recently used first, so rarely used readers age out
+                    idleReaders.addFirst(new IdleConnection(physical, System.nanoTime()));
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+            openReaders.decrementAndGet();
+        } finally {
+            readerPermits.release();
+        }
+    }
+
+    /**
+     * Rolls back any unfinished transaction and restores auto-commit
+     * @return true if the connection can be reused
+     */
+    private boolean resetState(Connection physical) {
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void evictIdleReaders() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        List<Connection> expired = new ArrayList<>();
+        synchronized (idleReaders) {
+            Iterator<IdleConnection> it = idleReaders.descendingIterator();
+            while (it.hasNext()) {
+                IdleConnection idle = it.next();
+                if (idle.idleSince - cutoff > 0) {
+                    break;
+                }
+                it.remove();
+                expired.add(idle.connection);
+            }
+        }
+        for (Connection connection : expired) {
+            closeQuietly(connection);
+            openReaders.decrementAndGet();
+            evictedCount.incrementAndGet();
+        }
+    }
+
+    private void recordBorrow(long startNanos) {
+        long waited = System.nanoTime() - startNanos;
+        borrowCount.incrementAndGet();
+        borrowWaitNanos.addAndGet(waited);
+        maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    private void updatePeak() {
+        int inUse = readersInUse.get() + (writerLock.isLocked() ? 1 : 0);
+        peakInUse.accumulateAndGet(inUse, Math::max);
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private static Connection wrap(Connection physical, Runnable release) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new BorrowedConnection(physical, release));
+    }
+
+    /**
+     * Proxy handler for a borrowed connection. Closing it closes the statements
+     * created through it and hands the physical connection back to the pool.
+     */
+    private static class BorrowedConnection implements InvocationHandler {
+        private final Connection physical;
+        private final Runnable release;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean released;
+
+        BorrowedConnection(Connection physical, Runnable release) {
+            this.physical = physical;
+            this.release = release;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        closeStatements();
+                        release.run();
+                    }
+                    return null;
+                case "isClosed":
+                    return released || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof Statement) {
+                    // A long-held connection creates many statements; keep only the open ones
+                    statements.removeIf(BorrowedConnection::isClosed);
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private static boolean isClosed(Statement statement) {
+            try {
+                return statement.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+
+        private void closeStatements() {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Statement already unusable, nothing left to release
+                }
+            }
+            statements.clear();
+        }
+    }
+
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long idleSince;
+
+        IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * Snapshot of pool usage counters
+     */
+    public static class Stats {
+        private final long borrowCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final int readersInUse;
+        private final int openReaders;
+        private final int maxReaders;
+        private final boolean writerInUse;
+        private final int peakInUse;
+        private final long evictedCount;
+
+        public Stats(long borrowCount, long totalWaitNanos, long maxWaitNanos, int readersInUse,
+                     int openReaders, int maxReaders, boolean writerInUse, int peakInUse, long evictedCount) {
+            this.borrowCount = borrowCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.readersInUse = readersInUse;
+            this.openReaders = openReaders;
+            this.maxReaders = maxReaders;
+            this.writerInUse = writerInUse;
+            this.peakInUse = peakInUse;
+            this.evictedCount = evictedCount;
+        }
+
+        public long getBorrowCount() {
+            return borrowCount;
+        }
+
+        public double getAverageWaitMillis() {
+            return borrowCount > 0 ? totalWaitNanos / 1_000_000.0 / borrowCount : 0.0;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+
+        public int getReadersInUse() {
+            return readersInUse;
+        }
+
+        public int getOpenReaders() {
+            return openReaders;
+        }
+
+        public int getMaxReaders() {
+            return maxReaders;
+        }
+
+        public boolean isWriterInUse() {
+            return writerInUse;
+        }
+
+        public int getPeakInUse() {
+            return peakInUse;
+        }
+
+        public long getEvictedCount() {
+            return evictedCount;
+        }
+
+        /**
+         * @return Fraction of pool capacity (readers plus writer) currently borrowed, 0.0 to 1.0
+         */
+        public double getUtilization() {
+            int inUse = readersInUse + (writerInUse ? 1 : 0);
+            return (double) inUse / (maxReaders + 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Pool: %d borrows, avg wait %.3f ms, max wait %.3f ms, in use %d/%d readers%s, peak %d",
+                    borrowCount, getAverageWaitMillis(), getMaxWaitMillis(), readersInUse, maxReaders,
+                    writerInUse ? " + writer" : "", peakInUse);
+        }
+    }
+}
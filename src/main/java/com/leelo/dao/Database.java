@@ -1,53 +1,85 @@
 package com.leelo.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 public class Database {
-    private static final String DB_URL = "jdbc:sqlite:leelo.db";
+    private static volatile ConnectionPool pool;
 
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (Database.class) {
+                if (pool == null) {
+                    pool = new ConnectionPool(DatabaseConfig.load());
+                }
+                current = pool;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Borrows the pooled writer connection. Closing it returns it to the pool.
+     * Kept as the general-purpose entry point for code that may write.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        return getWriteConnection();
+    }
+
+    /**
+     * Borrows the single writer connection. Must be closed on the borrowing thread.
+     */
+    public static Connection getWriteConnection() throws SQLException {
+        return pool().borrowWriter();
+    }
+
+    /**
+     * Borrows one of the read-only connections for queries
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return pool().borrowReader();
+    }
+
+    /**
+     * @return Borrow wait times and utilization of the connection pool
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return pool().getStats();
+    }
+
+    /**
+     * @return Settings the pool was opened with
+     */
+    public static DatabaseConfig getConfig() {
+        return pool().getConfig();
+    }
+
+    /**
+     * Closes all pooled connections. The pool is recreated on the next borrow.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            // Refresh planner statistics for indexes whose data changed this session
+            try (Connection conn = pool.borrowWriter(); Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA optimize");
+            } catch (SQLException e) {
+                System.err.println("PRAGMA optimize failed: " + e.getMessage());
+            }
+            pool.close();
+            pool = null;
+        }
     }
 
     public static void initialize() {
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            //Create table text 
-            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS texts (" +
-                    "id_text INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "tittle TEXT NOT NULL," +
-                    "text TEXT NOT NULL," +
-                    "creation_date TEXT NOT NULL)");
-            //Create table word 
-            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS words (" +
-                    "id_term INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "term TEXT NOT NULL," +
-                    "translation TEXT," +
-                    "pronunciation TEXT," +
-                    "state INTEGER NOT NULL," +
-                    "url_img TEXT," +
-                    "last_review TEXT," +
-                    "review_count INTEGER DEFAULT 0," +
-                    "success_count INTEGER DEFAULT 0)");
-            //Create table study_sessions for tracking study sessions
-            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS study_sessions (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "session_date TEXT NOT NULL," +
-                    "words_reviewed INTEGER NOT NULL," +
-                    "correct_answers INTEGER NOT NULL," +
-                    "session_duration INTEGER NOT NULL)");
-            // Create table for save the page of a text 
-            stmt.executeUpdate( "CREATE TABLE IF NOT EXISTS progress (" +
-                "id_progress INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "id_book INTEGER NOT NULL,"+
-                "page_book INTEGER NOT NULL," +
-                "FOREIGN KEY (id_book) references texts(id_text) )");
-
-            System.out.println("Database initialization completed.");
+        try (Connection conn = getWriteConnection()) {
+            SchemaMigrator migrator = new SchemaMigrator(SchemaMigrations.all());
+            int applied = migrator.migrate(conn);
+            System.out.println("Database initialization completed. Schema version " + migrator.getLatestVersion()
+                    + " (" + applied + " migrations applied). " + pool().getConfig());
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
-} 
+}
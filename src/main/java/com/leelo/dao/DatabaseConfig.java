@@ -0,0 +1,209 @@
+package com.leelo.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Settings used by {@link Database} to open and pool SQLite connections.
+ * Values are read from {@code leelo.properties} in the working directory (or the file named
+ * by the {@code leelo.config} system property), which also holds the settings of the
+ * services (see com.leelo.service.AppConfig). A system property named {@code leelo.<key>}
+ * overrides the same key from the file:
+ * <ul>
+ *   <li>{@code db.path} - database file (default {@code leelo.db})</li>
+ *   <li>{@code db.pool.readers} - maximum number of reader connections</li>
+ *   <li>{@code db.pool.idleTimeoutMs} - idle time before a reader is closed</li>
+ *   <li>{@code db.pool.borrowTimeoutMs} - maximum wait for a free connection</li>
+ *   <li>{@code storage.profile} - legacy, durable, balanced or fast (see {@link StorageProfile})</li>
+ *   <li>{@code storage.cacheSize} - PRAGMA cache_size, overrides the profile</li>
+ *   <li>{@code storage.mmapSize} - PRAGMA mmap_size in bytes, overrides the profile</li>
+ *   <li>{@code storage.tempStore} - {@code memory} or {@code file}</li>
+ *   <li>{@code storage.busyTimeoutMs} - PRAGMA busy_timeout</li>
+ *   <li>{@code storage.compressText} - DEFLATE-compress new text chunks (default {@code true})</li>
+ * </ul>
+ */
+public class DatabaseConfig {
+
+    public static final String CONFIG_FILE = "leelo.properties";
+    public static final String DEFAULT_PATH = "leelo.db";
+    public static final int DEFAULT_READERS = 4;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+    public static final long DEFAULT_BORROW_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_BUSY_TIMEOUT_MS = 5_000;
+
+    private String path = DEFAULT_PATH;
+    private int maxReaders = DEFAULT_READERS;
+    private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MS;
+    private long borrowTimeoutMillis = DEFAULT_BORROW_TIMEOUT_MS;
+
+    private StorageProfile profile = StorageProfile.BALANCED;
+    private int cacheSize = profile.getCacheSize();
+    private long mmapSize = profile.getMmapSize();
+    private boolean tempStoreMemory = true;
+    private int busyTimeoutMillis = DEFAULT_BUSY_TIMEOUT_MS;
+    private boolean compressText = true;
+
+    /**
+     * Loads the configuration file (if present) and applies system property overrides
+     * @return configuration with defaults for any key that is not set
+     */
+    public static DatabaseConfig load() {
+        return fromProperties(loadProperties());
+    }
+
+    /**
+     * Reads the configuration file (if present) and applies system property overrides
+     * @return every key set, without the {@code leelo.} prefix of system properties
+     */
+    public static Properties loadProperties() {
+        Properties properties = new Properties();
+        Path file = Paths.get(System.getProperty("leelo.config", CONFIG_FILE));
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                System.err.println("Could not read " + file + ": " + e.getMessage());
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("leelo.") && !key.equals("leelo.config")) {
+                properties.setProperty(key.substring("leelo.".length()), System.getProperty(key));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Builds a configuration from already loaded properties
+     * @param properties Keys as documented on this class
+     * @return configuration with defaults for any key that is not set
+     */
+    public static DatabaseConfig fromProperties(Properties properties) {
+        DatabaseConfig config = new DatabaseConfig();
+        config.setPath(properties.getProperty("db.path", DEFAULT_PATH));
+        config.setMaxReaders((int) longValue(properties, "db.pool.readers", DEFAULT_READERS));
+        config.setIdleTimeoutMillis(longValue(properties, "db.pool.idleTimeoutMs", DEFAULT_IDLE_TIMEOUT_MS));
+        config.setBorrowTimeoutMillis(longValue(properties, "db.pool.borrowTimeoutMs", DEFAULT_BORROW_TIMEOUT_MS));
+
+        config.setProfile(StorageProfile.fromName(properties.getProperty("storage.profile"), StorageProfile.BALANCED));
+        config.setCacheSize((int) longValue(properties, "storage.cacheSize", config.getProfile().getCacheSize()));
+        config.setMmapSize(longValue(properties, "storage.mmapSize", config.getProfile().getMmapSize()));
+        config.setTempStoreMemory(!"file".equalsIgnoreCase(properties.getProperty("storage.tempStore", "memory").trim()));
+        config.setBusyTimeoutMillis((int) longValue(properties, "storage.busyTimeoutMs", DEFAULT_BUSY_TIMEOUT_MS));
+        config.setCompressText(!"false".equalsIgnoreCase(properties.getProperty("storage.compressText", "true").trim()));
+        return config;
+    }
+
+    private static long longValue(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public String getUrl() {
+        return "jdbc:sqlite:" + path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getMaxReaders() {
+        return maxReaders;
+    }
+
+    public void setMaxReaders(int maxReaders) {
+        this.maxReaders = Math.max(1, maxReaders);
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public StorageProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Selects a preset and resets the cache and mmap sizes to the preset values
+     * @param profile Storage preset
+     */
+    public void setProfile(StorageProfile profile) {
+        this.profile = profile;
+        this.cacheSize = profile.getCacheSize();
+        this.mmapSize = profile.getMmapSize();
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public void setMmapSize(long mmapSize) {
+        this.mmapSize = mmapSize;
+    }
+
+    public boolean isTempStoreMemory() {
+        return tempStoreMemory;
+    }
+
+    public void setTempStoreMemory(boolean tempStoreMemory) {
+        this.tempStoreMemory = tempStoreMemory;
+    }
+
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    public void setBusyTimeoutMillis(int busyTimeoutMillis) {
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    public boolean isCompressText() {
+        return compressText;
+    }
+
+    public void setCompressText(boolean compressText) {
+        this.compressText = compressText;
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseConfig (path: " + path + ", profile: " + profile + ", readers: " + maxReaders
+                + ", cache_size: " + cacheSize + ", mmap_size: " + mmapSize + ")";
+    }
+}
@@ -0,0 +1,67 @@
+package com.leelo.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * One versioned step of the leelo.db schema. Migrations are applied in version order
+ * by {@link SchemaMigrator}, each inside its own transaction.
+ */
+public class Migration {
+
+    /**
+     * Work performed by a migration on the writer connection
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final Step step;
+
+    public Migration(int version, String description, Step step) {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration versions start at 1");
+        }
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    /**
+     * Creates a migration that runs plain SQL statements in order
+     * @param version Schema version reached after the migration
+     * @param description Human-readable summary for the log
+     * @param statements SQL statements to execute
+     * @return Migration executing the statements
+     */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) {
+                    stmt.executeUpdate(sql);
+                }
+            }
+        });
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void apply(Connection conn) throws SQLException {
+        step.apply(conn);
+    }
+
+    @Override
+    public String toString() {
+        return "Migration " + version + " (" + description + ")";
+    }
+}
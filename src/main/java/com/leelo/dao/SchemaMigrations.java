@@ -0,0 +1,475 @@
+package com.leelo.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Ordered list of leelo.db schema migrations. Append new migrations with the next
+ * version number; never edit one that has already shipped.
+ *
+ * Migrations that compute data keep their own copies of the rules they used when they
+ * shipped (review intervals, words per chunk, chunking, hashing, paragraph counting) at
+ * the end of this file, so later changes to the application code cannot change what an
+ * old migration does. Only the chunk codecs are shared: every codec ever stored must
+ * stay readable.
+ */
+public final class SchemaMigrations {
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * text_search rows are keyed by (id_text << SEARCH_PAGE_BITS) | chunk_index, so the
+     * pages of one text form a contiguous rowid range
+     */
+    static final int SEARCH_PAGE_BITS = 20;
+
+    static long searchRowId(int idText, int chunkIndex) {
+        return ((long) idText << SEARCH_PAGE_BITS) | chunkIndex;
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+                // Tables as originally created by Database.initialize(); IF NOT EXISTS keeps
+                // databases created before versioning at their existing schema
+                Migration.sql(1, "base tables",
+                        "CREATE TABLE IF NOT EXISTS texts (" +
+                                "id_text INTEGER PRIMARY KEY AUTOINCREMENT," +
+                                "tittle TEXT NOT NULL," +
+                                "text TEXT NOT NULL," +
+                                "creation_date TEXT NOT NULL)",
+                        "CREATE TABLE IF NOT EXISTS words (" +
+                                "id_term INTEGER PRIMARY KEY AUTOINCREMENT," +
+                                "term TEXT NOT NULL," +
+                                "translation TEXT," +
+                                "pronunciation TEXT," +
+                                "state INTEGER NOT NULL," +
+                                "url_img TEXT," +
+                                "last_review TEXT," +
+                                "review_count INTEGER DEFAULT 0," +
+                                "success_count INTEGER DEFAULT 0)",
+                        "CREATE TABLE IF NOT EXISTS study_sessions (" +
+                                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                                "session_date TEXT NOT NULL," +
+                                "words_reviewed INTEGER NOT NULL," +
+                                "correct_answers INTEGER NOT NULL," +
+                                "session_duration INTEGER NOT NULL)",
+                        "CREATE TABLE IF NOT EXISTS progress (" +
+                                "id_progress INTEGER PRIMARY KEY AUTOINCREMENT," +
+                                "id_book INTEGER NOT NULL," +
+                                "page_book INTEGER NOT NULL," +
+                                "FOREIGN KEY (id_book) references texts(id_text) )"),
+
+                Migration.sql(2, "secondary indexes",
+                        "CREATE INDEX IF NOT EXISTS idx_words_state ON words(state)",
+                        "CREATE INDEX IF NOT EXISTS idx_words_term ON words(term)",
+                        "CREATE INDEX IF NOT EXISTS idx_words_last_review ON words(last_review)",
+                        "CREATE INDEX IF NOT EXISTS idx_study_sessions_date ON study_sessions(session_date)",
+                        // Keep only the latest progress row per book before enforcing uniqueness
+                        "DELETE FROM progress WHERE id_progress NOT IN " +
+                                "(SELECT MAX(id_progress) FROM progress GROUP BY id_book)",
+                        "CREATE UNIQUE INDEX IF NOT EXISTS idx_progress_book ON progress(id_book)",
+                        "ANALYZE"),
+
+                new Migration(3, "words.next_review_date", SchemaMigrations::addNextReviewDate),
+
+                new Migration(4, "texts summary columns", SchemaMigrations::addTextSummaryColumns),
+
+                new Migration(5, "text_chunks", SchemaMigrations::moveBodiesToChunks),
+
+                new Migration(6, "compressed text_chunks", SchemaMigrations::compressChunks),
+
+                new Migration(7, "text_search full-text index", SchemaMigrations::createTextSearch),
+
+                new Migration(8, "texts.content_hash", SchemaMigrations::addContentHash),
+
+                new Migration(9, "text_chunks layout and progress.char_offset", SchemaMigrations::addChunkLayout),
+
+                // Pages of the reader's layout when the progress was saved; 0 for older rows
+                Migration.sql(10, "progress.page_total",
+                        "ALTER TABLE progress ADD COLUMN page_total INTEGER NOT NULL DEFAULT 0")
+        );
+    }
+
+    /**
+     * Adds the precomputed next review day (epoch day) and fills it for existing words
+     * with the review rules Word.isDueForReview() had when this migration shipped
+     */
+    private static void addNextReviewDate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE words ADD COLUMN next_review_date INTEGER NOT NULL DEFAULT 0");
+        }
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery(
+                     "SELECT id_term, last_review, state FROM words WHERE last_review IS NOT NULL");
+             PreparedStatement update = conn.prepareStatement(
+                     "UPDATE words SET next_review_date = ? WHERE id_term = ?")) {
+            while (rs.next()) {
+                update.setLong(1, nextReviewDay(rs.getString("last_review"), rs.getInt("state")));
+                update.setInt(2, rs.getInt("id_term"));
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        try (Statement stmt = conn.createStatement()) {
+            // Covers the due-date range scans and the per-state due counts
+            stmt.executeUpdate("CREATE INDEX idx_words_next_review ON words(next_review_date, state)");
+            stmt.executeUpdate("ANALYZE words");
+        }
+    }
+
+    /**
+     * Stores word, character and page counts next to each text so that lists can be
+     * built without reading the bodies
+     */
+    private static void addTextSummaryColumns(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE texts ADD COLUMN word_count INTEGER NOT NULL DEFAULT 0");
+            stmt.executeUpdate("ALTER TABLE texts ADD COLUMN char_count INTEGER NOT NULL DEFAULT 0");
+            stmt.executeUpdate("ALTER TABLE texts ADD COLUMN page_count INTEGER NOT NULL DEFAULT 0");
+        }
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id_text, text FROM texts");
+             PreparedStatement update = conn.prepareStatement(
+                     "UPDATE texts SET word_count = ?, char_count = ?, page_count = ? WHERE id_text = ?")) {
+            while (rs.next()) {
+                String text = rs.getString("text");
+                int words = countWords(text);
+                update.setInt(1, words);
+                update.setInt(2, text == null ? 0 : text.length());
+                update.setInt(3, (words + WORDS_PER_CHUNK - 1) / WORDS_PER_CHUNK);
+                update.setInt(4, rs.getInt("id_text"));
+                update.executeUpdate();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_texts_creation_date ON texts(creation_date)");
+        }
+    }
+
+    /**
+     * Moves every text body into page-sized rows of text_chunks and drops texts.text,
+     * so the reader can load a single page without reading the whole book
+     */
+    private static void moveBodiesToChunks(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE text_chunks (" +
+                    "id_text INTEGER NOT NULL REFERENCES texts(id_text) ON DELETE CASCADE," +
+                    "chunk_index INTEGER NOT NULL," +
+                    "content TEXT NOT NULL," +
+                    "PRIMARY KEY (id_text, chunk_index)) WITHOUT ROWID");
+        }
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id_text, text FROM texts");
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO text_chunks(id_text, chunk_index, content) VALUES (?, ?, ?)");
+             PreparedStatement pages = conn.prepareStatement("UPDATE texts SET page_count = ? WHERE id_text = ?")) {
+            while (rs.next()) {
+                int idText = rs.getInt("id_text");
+                List<String> chunks = chunk(rs.getString("text"));
+                for (int i = 0; i < chunks.size(); i++) {
+                    insert.setInt(1, idText);
+                    insert.setInt(2, i);
+                    insert.setString(3, chunks.get(i));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                pages.setInt(1, chunks.size());
+                pages.setInt(2, idText);
+                pages.executeUpdate();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE texts DROP COLUMN text");
+        }
+    }
+
+    /**
+     * Rebuilds text_chunks with a per-chunk codec and DEFLATE-compresses the existing pages.
+     * Run VACUUM afterwards to return the freed pages to the file system.
+     */
+    private static void compressChunks(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE text_chunks_new (" +
+                    "id_text INTEGER NOT NULL REFERENCES texts(id_text) ON DELETE CASCADE," +
+                    "chunk_index INTEGER NOT NULL," +
+                    "codec INTEGER NOT NULL," +
+                    "raw_length INTEGER NOT NULL," +
+                    "content BLOB NOT NULL," +
+                    "PRIMARY KEY (id_text, chunk_index)) WITHOUT ROWID");
+        }
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id_text, chunk_index, content FROM text_chunks");
+             PreparedStatement insert = conn.prepareStatement("INSERT INTO text_chunks_new" +
+                     "(id_text, chunk_index, codec, raw_length, content) VALUES (?, ?, ?, ?, ?)")) {
+            while (rs.next()) {
+                TextCodec.Encoded encoded = TextCodec.encodeBest(rs.getString("content"), true);
+                insert.setInt(1, rs.getInt("id_text"));
+                insert.setInt(2, rs.getInt("chunk_index"));
+                insert.setInt(3, encoded.getCodec().getId());
+                insert.setInt(4, encoded.getRawLength());
+                insert.setBytes(5, encoded.getData());
+                insert.executeUpdate();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TABLE text_chunks");
+            stmt.executeUpdate("ALTER TABLE text_chunks_new RENAME TO text_chunks");
+        }
+    }
+
+    /**
+     * Creates the FTS5 index over text pages and fills it from the stored chunks.
+     * The index is contentless: it only keeps the terms, and snippets are built from
+     * the stored chunk of each hit. contentless_delete lets the rows of a text be
+     * deleted by rowid.
+     */
+    private static void createTextSearch(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE VIRTUAL TABLE text_search USING fts5(" +
+                    "content, content = '', contentless_delete = 1, " +
+                    "tokenize = 'unicode61 remove_diacritics 2')");
+        }
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery(
+                     "SELECT id_text, chunk_index, codec, raw_length, content FROM text_chunks");
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO text_search(rowid, content) VALUES (?, ?)")) {
+            while (rs.next()) {
+                String content = TextCodec.fromId(rs.getInt("codec"))
+                        .decode(rs.getBytes("content"), rs.getInt("raw_length"));
+                insert.setLong(1, searchRowId(rs.getInt("id_text"), rs.getInt("chunk_index")));
+                insert.setString(2, content);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Adds the SHA-256 fingerprint of each body, used to find a text that was already
+     * imported, and fills it from the stored chunks
+     */
+    private static void addContentHash(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE texts ADD COLUMN content_hash TEXT");
+        }
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery(
+                     "SELECT id_text, codec, raw_length, content FROM text_chunks ORDER BY id_text, chunk_index");
+             PreparedStatement update = conn.prepareStatement("UPDATE texts SET content_hash = ? WHERE id_text = ?")) {
+            int current = 0;
+            MessageDigest hash = null;
+            while (rs.next()) {
+                int idText = rs.getInt("id_text");
+                if (hash != null && idText != current) {
+                    update.setString(1, HexFormat.of().formatHex(hash.digest()));
+                    update.setInt(2, current);
+                    update.executeUpdate();
+                    hash = null;
+                }
+                if (hash == null) {
+                    hash = sha256();
+                    current = idText;
+                }
+                // Chunks start at a word, so no surrogate pair is split between two of them
+                hash.update(TextCodec.fromId(rs.getInt("codec"))
+                        .decode(rs.getBytes("content"), rs.getInt("raw_length")).getBytes(StandardCharsets.UTF_8));
+            }
+            if (hash != null) {
+                update.setString(1, HexFormat.of().formatHex(hash.digest()));
+                update.setInt(2, current);
+                update.executeUpdate();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_texts_content_hash ON texts(content_hash)");
+        }
+    }
+
+    /**
+     * Stores the character length and paragraph count of every chunk, so the continuous
+     * reader can find a paragraph or a character offset without decoding the text, and
+     * records reading progress as a character offset
+     */
+    private static void addChunkLayout(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE text_chunks ADD COLUMN char_length INTEGER NOT NULL DEFAULT 0");
+            stmt.executeUpdate("ALTER TABLE text_chunks ADD COLUMN paragraphs INTEGER NOT NULL DEFAULT 0");
+            stmt.executeUpdate("ALTER TABLE progress ADD COLUMN char_offset INTEGER NOT NULL DEFAULT 0");
+        }
+        // id_text, chunk_index, char_length, paragraphs
+        List<int[]> layout = new ArrayList<>();
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery(
+                     "SELECT id_text, chunk_index, codec, raw_length, content FROM text_chunks ORDER BY id_text, chunk_index")) {
+            int current = 0;
+            ParagraphCounter paragraphs = null;
+            while (rs.next()) {
+                int idText = rs.getInt("id_text");
+                if (paragraphs == null || idText != current) {
+                    paragraphs = new ParagraphCounter();
+                    current = idText;
+                }
+                String content = TextCodec.fromId(rs.getInt("codec"))
+                        .decode(rs.getBytes("content"), rs.getInt("raw_length"));
+                layout.add(new int[]{idText, rs.getInt("chunk_index"), content.length(), paragraphs.next(content)});
+            }
+        }
+        try (PreparedStatement update = conn.prepareStatement(
+                "UPDATE text_chunks SET char_length = ?, paragraphs = ? WHERE id_text = ? AND chunk_index = ?")) {
+            for (int[] chunk : layout) {
+                update.setInt(1, chunk[2]);
+                update.setInt(2, chunk[3]);
+                update.setInt(3, chunk[0]);
+                update.setInt(4, chunk[1]);
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        try (Statement stmt = conn.createStatement()) {
+            // The saved page starts after the characters of the pages before it
+            stmt.executeUpdate("UPDATE progress SET char_offset = (SELECT COALESCE(SUM(c.char_length), 0) " +
+                    "FROM text_chunks c WHERE c.id_text = progress.id_book AND c.chunk_index < progress.page_book - 1)");
+        }
+    }
+
+    // Rules as they were when the migrations above shipped; do not change them
+
+    /** Days until the next review by learning state (migration 3) */
+    private static final int[] REVIEW_INTERVALS = {0, 1, 3, 7, 14, 30};
+
+    /**
+     * Epoch day of the next review, or 0 for a word never reviewed or with an
+     * unreadable date (migration 3)
+     */
+    private static long nextReviewDay(String lastReview, int state) {
+        if (lastReview == null || lastReview.isEmpty()) {
+            return 0;
+        }
+        try {
+            LocalDate lastReviewDate = LocalDate.parse(lastReview, DateTimeFormatter.ISO_LOCAL_DATE);
+            int intervalDays = (state >= 0 && state < REVIEW_INTERVALS.length) ? REVIEW_INTERVALS[state] : REVIEW_INTERVALS[0];
+            return lastReviewDate.plusDays(intervalDays).toEpochDay();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /** Words per chunk of text_chunks (migrations 4 and 5) */
+    private static final int WORDS_PER_CHUNK = 200;
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Whitespace-separated words of a body (migration 4)
+     */
+    private static int countWords(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean space = isSpace(text.charAt(i));
+            if (!space && !inWord) {
+                count++;
+            }
+            inWord = !space;
+        }
+        return count;
+    }
+
+    /**
+     * Splits a body into exact substrings of WORDS_PER_CHUNK words; each chunk starts at
+     * its first word and keeps the whitespace after its last one (migration 5)
+     */
+    private static List<String> chunk(String text) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return chunks;
+        }
+        int chunkStart = 0;
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean space = isSpace(text.charAt(i));
+            if (!space && !inWord) {
+                if (words == WORDS_PER_CHUNK) {
+                    chunks.add(text.substring(chunkStart, i));
+                    chunkStart = i;
+                    words = 0;
+                }
+                words++;
+            }
+            inWord = !space;
+        }
+        chunks.add(text.substring(chunkStart));
+        return chunks;
+    }
+
+    /**
+     * SHA-256 of the UTF-8 body (migration 8)
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Paragraphs starting in each chunk of a text, given the chunks in order (migration 9).
+     * A paragraph starts at the first word after whitespace holding a line break, and at
+     * the first word of a chunk after one in which no paragraph started.
+     */
+    private static final class ParagraphCounter {
+        private boolean lineBreakBefore = true;
+        private boolean startedInPrevious = true;
+
+        int next(String chunk) {
+            boolean firstWordStarts = lineBreakBefore || !startedInPrevious;
+            int starts = 0;
+            boolean inWord = false;
+            boolean firstWord = true;
+            boolean lineBreak = false;
+            for (int i = 0; i < chunk.length(); i++) {
+                char c = chunk.charAt(i);
+                if (!isSpace(c)) {
+                    if (!inWord) {
+                        if ((firstWord && firstWordStarts) || lineBreak) {
+                            starts++;
+                        }
+                        firstWord = false;
+                    }
+                    lineBreak = false;
+                    inWord = true;
+                } else {
+                    lineBreak |= c == '\n' || c == '\r';
+                    inWord = false;
+                }
+            }
+            int lastWordEnd = chunk.length();
+            while (lastWordEnd > 0 && isSpace(chunk.charAt(lastWordEnd - 1))) {
+                lastWordEnd--;
+            }
+            boolean trailingBreak = chunk.indexOf('\n', lastWordEnd) >= 0 || chunk.indexOf('\r', lastWordEnd) >= 0;
+            lineBreakBefore = lastWordEnd == 0 ? lineBreakBefore || trailingBreak : trailingBreak;
+            startedInPrevious = starts > 0;
+            return starts;
+        }
+    }
+}
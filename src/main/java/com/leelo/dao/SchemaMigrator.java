@@ -0,0 +1,91 @@
+package com.leelo.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies ordered schema migrations and records the schema version in PRAGMA user_version.
+ * Each migration runs in its own transaction together with the version bump, so a failed
+ * migration leaves the database at the previous version.
+ */
+public class SchemaMigrator {
+
+    private final List<Migration> migrations;
+
+    /**
+     * @param migrations Migrations to manage; versions must be unique
+     */
+    public SchemaMigrator(List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).getVersion() == sorted.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).getVersion());
+            }
+        }
+        this.migrations = sorted;
+    }
+
+    /**
+     * @return Highest version known to this migrator (0 if there are no migrations)
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    /**
+     * Reads the schema version stored in the database header
+     * @param conn Open connection
+     * @return Current PRAGMA user_version
+     * @throws SQLException if the pragma cannot be read
+     */
+    public static int getVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Applies every migration newer than the database's current version
+     * @param conn Writer connection; must be in auto-commit mode
+     * @return Number of migrations applied
+     * @throws SQLException if a migration fails (it is rolled back and later ones are skipped)
+     */
+    public int migrate(Connection conn) throws SQLException {
+        int current = getVersion(conn);
+        if (current > getLatestVersion()) {
+            System.err.println("Database schema version " + current + " is newer than this application ("
+                    + getLatestVersion() + ")");
+            return 0;
+        }
+
+        int applied = 0;
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+            conn.setAutoCommit(false);
+            try {
+                migration.apply(conn);
+                try (Statement stmt = conn.createStatement()) {
+                    // PRAGMA does not accept bind parameters; the version is an int
+                    stmt.executeUpdate("PRAGMA user_version = " + migration.getVersion());
+                }
+                conn.commit();
+                applied++;
+                System.out.println("Applied " + migration);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Failed to apply " + migration + ": " + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return applied;
+    }
+}
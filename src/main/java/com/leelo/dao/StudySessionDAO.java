@@ -71,7 +71,7 @@ public class StudySessionDAO {
         
         String sql = "SELECT * FROM study_sessions WHERE session_date >= ? AND session_date <= ? ORDER BY session_date DESC";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, from.format(DateTimeFormatter.ISO_LOCAL_DATE));
@@ -99,7 +99,7 @@ public class StudySessionDAO {
         List<StudySession> sessions = new ArrayList<>();
         String sql = "SELECT * FROM study_sessions ORDER BY session_date DESC";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             ResultSet rs = pstmt.executeQuery();
@@ -124,7 +124,7 @@ public class StudySessionDAO {
     public StudySession getStudySessionById(int id) {
         String sql = "SELECT * FROM study_sessions WHERE id = ?";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, id);
@@ -208,7 +208,7 @@ public class StudySessionDAO {
         
         String sql = "SELECT * FROM study_sessions WHERE session_date = ? ORDER BY id DESC";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, date.format(DateTimeFormatter.ISO_LOCAL_DATE));
@@ -233,7 +233,7 @@ public class StudySessionDAO {
     public int getTotalSessionCount() {
         String sql = "SELECT COUNT(*) as session_count FROM study_sessions";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             ResultSet rs = pstmt.executeQuery();
@@ -255,7 +255,7 @@ public class StudySessionDAO {
     public StudySession getMostRecentSession() {
         String sql = "SELECT * FROM study_sessions ORDER BY session_date DESC, id DESC LIMIT 1";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             ResultSet rs = pstmt.executeQuery();
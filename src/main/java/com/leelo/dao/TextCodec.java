@@ -0,0 +1,162 @@
+package com.leelo.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodings of the content column of text_chunks. Each chunk records its own codec,
+ * so pages stay individually addressable and old and new chunks can coexist.
+ */
+public enum TextCodec {
+
+    /** UTF-8 bytes as they are */
+    NONE(0),
+
+    /** Raw DEFLATE stream of the UTF-8 bytes */
+    DEFLATE(1);
+
+    private static final LongAdder decodedBytes = new LongAdder();
+    private static final LongAdder decodeNanos = new LongAdder();
+
+    private final int id;
+
+    TextCodec(int id) {
+        this.id = id;
+    }
+
+    /**
+     * @return Value stored in text_chunks.codec
+     */
+    public int getId() {
+        return id;
+    }
+
+    public static TextCodec fromId(int id) throws SQLException {
+        for (TextCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new SQLException("Unknown text chunk codec " + id);
+    }
+
+    /**
+     * Picks the codec for a new chunk: DEFLATE when compression is enabled and actually
+     * makes the chunk smaller, NONE otherwise
+     * @param content Chunk text
+     * @param compress Whether compression is enabled (storage.compressText)
+     * @return Encoded chunk
+     */
+    public static Encoded encodeBest(String content, boolean compress) {
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (compress) {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length) {
+                return new Encoded(DEFLATE, deflated, raw.length);
+            }
+        }
+        return new Encoded(NONE, raw, raw.length);
+    }
+
+    /**
+     * Decodes a stored chunk and records the time spent for {@link #getDecodedBytes()}
+     * @param data Stored bytes
+     * @param rawLength UTF-8 length of the original text
+     * @return Chunk text
+     * @throws SQLException if the stored data is corrupt
+     */
+    public String decode(byte[] data, int rawLength) throws SQLException {
+        long start = System.nanoTime();
+        byte[] raw = this == DEFLATE ? inflate(data, rawLength) : data;
+        String content = new String(raw, StandardCharsets.UTF_8);
+        decodeNanos.add(System.nanoTime() - start);
+        decodedBytes.add(raw.length);
+        return content;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int rawLength) throws SQLException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != rawLength) {
+                throw new SQLException("Corrupt text chunk: expected " + rawLength + " bytes, got " + n);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SQLException("Corrupt text chunk", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return Total UTF-8 bytes produced by {@link #decode} since startup
+     */
+    public static long getDecodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    /**
+     * @return Total time spent in {@link #decode} since startup
+     */
+    public static long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    /**
+     * A chunk ready to be written: codec, stored bytes and original UTF-8 length
+     */
+    public static class Encoded {
+        private final TextCodec codec;
+        private final byte[] data;
+        private final int rawLength;
+
+        public Encoded(TextCodec codec, byte[] data, int rawLength) {
+            this.codec = codec;
+            this.data = data;
+            this.rawLength = rawLength;
+        }
+
+        public TextCodec getCodec() {
+            return codec;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public int getRawLength() {
+            return rawLength;
+        }
+    }
+}
@@ -1,32 +1,358 @@
 package com.leelo.dao;
 
+import com.leelo.model.ImportResult;
+import com.leelo.model.ParagraphIndex;
+import com.leelo.model.ReadingPosition;
+import com.leelo.model.TextSearchHit;
+import com.leelo.model.TextSummary;
 import com.leelo.model.Texts;
+import com.leelo.util.ContentHash;
+import com.leelo.util.SearchSnippet;
+import com.leelo.util.TextChunker;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TextDAO {
+    private static final String CHUNK_SQL =
+            "INSERT INTO text_chunks(id_text, chunk_index, codec, raw_length, content, char_length, paragraphs) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SEARCH_SQL = "INSERT INTO text_search(rowid, content) VALUES (?, ?)";
+    private static final String HASH_LOOKUP_SQL = "SELECT id_text FROM texts WHERE content_hash = ? LIMIT 1";
+    // Words around the first match shown for a search hit
+    private static final int SNIPPET_WORDS = 12;
+
+    /**
+     * Pages buffered in the insert batches of a spooled import
+     */
+    private static final int STREAM_BATCH_PAGES = 64;
+
+    /**
+     * Produces a text body by writing it to the given writer
+     */
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    /**
+     * A text with its reader pages split and encoded, ready to be inserted
+     */
+    public static final class PreparedText {
+        private final Texts text;
+        private final List<String> pages;
+        private final List<TextCodec.Encoded> chunks;
+        private boolean duplicate;
+
+        private PreparedText(Texts text, List<String> pages, List<TextCodec.Encoded> chunks) {
+            this.text = text;
+            this.pages = pages;
+            this.chunks = chunks;
+        }
+
+        public Texts getText() {
+            return text;
+        }
+
+        /**
+         * @return true if the insert found a stored text with the same body and linked
+         *         this one to it instead of storing a copy
+         */
+        public boolean isDuplicate() {
+            return duplicate;
+        }
+    }
+
+    /**
+     * A streamed text whose pages are split and encoded into a temporary file, ready to
+     * be inserted without holding more than one page in memory. Closing it deletes the file.
+     */
+    public static final class SpooledText implements AutoCloseable {
+        private final Texts text;
+        private final Path file;
+        private int pageCount;
+        private long wordCount;
+        private long charCount;
+
+        private SpooledText(Texts text, Path file) {
+            this.text = text;
+            this.file = file;
+        }
+
+        public Texts getText() {
+            return text;
+        }
+
+        /**
+         * @return Pages of the body; 0 for an empty body, which is never inserted
+         */
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        public long getCharCount() {
+            return charCount;
+        }
+
+        @Override
+        public void close() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Splits and encodes the pages of a text. Can run on any thread; keeps the
+     * compression work away from the writer connection. The content hash is computed
+     * here unless the text already has one.
+     * @param text Text with title and body
+     * @return Text ready for {@link #insertPrepared(List)}
+     */
+    public PreparedText prepare(Texts text) {
+        if (text.getContentHash() == null) {
+            text.setContentHash(ContentHash.of(text.getText()));
+        }
+        List<String> pages = TextChunker.chunk(text.getText(), TextSummary.WORDS_PER_PAGE);
+        return new PreparedText(text, pages, encodeChunks(pages));
+    }
+
+    /**
+     * Inserts a text and its page chunks in one transaction. A text whose body is
+     * already stored is not inserted again; it receives the id of the stored one.
+     * @param text Text with title and body
+     * @return true if the text was stored or already existed
+     */
     public boolean insertText(Texts text) {
-        String sql = "INSERT INTO texts(tittle, text, creation_date) VALUES (?, ?, datetime('now'))";
-        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, text.getTittle());
-            pstmt.setString(2, text.getText());
-            pstmt.executeUpdate();
-            return true;
+        return insertPrepared(List.of(prepare(text)));
+    }
+
+    /**
+     * Inserts several prepared texts in a single transaction; either all of them are
+     * stored or none is. Texts whose body is already stored, or appears earlier in the
+     * list, are linked to the stored text instead (see {@link PreparedText#isDuplicate()}).
+     * @param texts Prepared texts; each receives its generated or existing id
+     * @return true if the texts were stored
+     */
+    public boolean insertPrepared(List<PreparedText> texts) {
+        String sql = "INSERT INTO texts(tittle, creation_date, word_count, char_count, page_count, content_hash) " +
+                     "VALUES (?, datetime('now'), ?, ?, ?, ?)";
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement lookup = conn.prepareStatement(HASH_LOOKUP_SQL)) {
+                for (PreparedText prepared : texts) {
+                    Texts text = prepared.text;
+                    // The writer connection also sees the texts inserted earlier in this batch
+                    int existing = findTextId(lookup, text.getContentHash());
+                    prepared.duplicate = existing > 0;
+                    if (prepared.duplicate) {
+                        text.setIdText(existing);
+                        continue;
+                    }
+                    pstmt.setString(1, text.getTittle());
+                    setStats(pstmt, 2, text.getText(), prepared.chunks.size());
+                    pstmt.setString(5, text.getContentHash());
+                    pstmt.executeUpdate();
+                    ResultSet keys = pstmt.getGeneratedKeys();
+                    if (!keys.next()) {
+                        throw new SQLException("No id generated for " + text.getTittle());
+                    }
+                    text.setIdText(keys.getInt(1));
+                    insertChunks(conn, text.getIdText(), prepared.pages, prepared.chunks);
+                    insertSearchRows(conn, text.getIdText(), prepared.pages);
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                for (PreparedText prepared : texts) {
+                    prepared.text.setIdText(0);
+                    prepared.duplicate = false;
+                }
+                throw e;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
-    
+
+    /**
+     * Inserts a text whose body is streamed into its page chunks as it is produced,
+     * so only one page is held in memory. The body is written and encoded first
+     * (see {@link #spool(Texts, BodyWriter)}); the writer connection is only taken to
+     * insert the finished pages, so other writes are not held up while it is produced.
+     * @param text Text with the title; receives the generated or existing id and the content hash
+     * @param body Writes the (already cleaned) body
+     * @return whether the text was stored, already existed, was empty or failed
+     */
+    public ImportResult insertText(Texts text, BodyWriter body) {
+        try (SpooledText spooled = spool(text, body)) {
+            return insertSpooled(spooled);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ImportResult.FAILED;
+        }
+    }
+
+    /**
+     * Splits a streamed body into pages and encodes them into a temporary file, without
+     * a database connection. The content hash is computed page by page.
+     * @param text Text with the title; receives the content hash
+     * @param body Writes the (already cleaned) body
+     * @return The spooled text, to be inserted with {@link #insertSpooled(SpooledText)} and closed
+     * @throws IOException if the body cannot be written or spooled; nothing is left behind
+     */
+    public SpooledText spool(Texts text, BodyWriter body) throws IOException {
+        boolean compress = Database.getConfig().isCompressText();
+        SpooledText spooled = new SpooledText(text, Files.createTempFile("leelo-import", ".pages"));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spooled.file)))) {
+            ContentHash hash = new ContentHash();
+            TextChunker.ParagraphCounter paragraphs = new TextChunker.ParagraphCounter();
+            TextChunker.PageWriter pages = new TextChunker.PageWriter(TextSummary.WORDS_PER_PAGE, (index, page) -> {
+                spooled.wordCount += TextSummary.countWords(page);
+                spooled.charCount += page.length();
+                hash.update(page);
+                TextCodec.Encoded encoded = TextCodec.encodeBest(page, compress);
+                byte[] search = page.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.getCodec().getId());
+                out.writeInt(encoded.getRawLength());
+                out.writeInt(encoded.getData().length);
+                out.write(encoded.getData());
+                out.writeInt(page.length());
+                out.writeInt(paragraphs.next(page));
+                out.writeInt(search.length);
+                out.write(search);
+            });
+            body.writeTo(pages);
+            pages.close();
+            spooled.pageCount = pages.getPageCount();
+            text.setContentHash(hash.hex());
+        } catch (IOException | RuntimeException e) {
+            spooled.close();
+            throw e;
+        }
+        return spooled;
+    }
+
+    /**
+     * Inserts a spooled text and its pages in one transaction. A text whose body is
+     * already stored is not inserted again; it receives the id of the stored one.
+     * @param spooled Text from {@link #spool(Texts, BodyWriter)}; its text receives its id
+     * @return whether the text was stored, already existed, was empty or failed
+     */
+    public ImportResult insertSpooled(SpooledText spooled) {
+        if (spooled.pageCount == 0) {
+            return ImportResult.EMPTY;
+        }
+        Texts text = spooled.text;
+        String sql = "INSERT INTO texts(tittle, creation_date, word_count, char_count, page_count, content_hash) " +
+                     "VALUES (?, datetime('now'), ?, ?, ?, ?)";
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement chunkStmt = conn.prepareStatement(CHUNK_SQL);
+                 PreparedStatement searchStmt = conn.prepareStatement(SEARCH_SQL);
+                 PreparedStatement lookup = conn.prepareStatement(HASH_LOOKUP_SQL);
+                 DataInputStream in = new DataInputStream(
+                         new BufferedInputStream(Files.newInputStream(spooled.file)))) {
+                int existing = findTextId(lookup, text.getContentHash());
+                if (existing > 0) {
+                    conn.rollback();
+                    text.setIdText(existing);
+                    return ImportResult.DUPLICATE;
+                }
+                pstmt.setString(1, text.getTittle());
+                pstmt.setLong(2, spooled.wordCount);
+                pstmt.setLong(3, spooled.charCount);
+                pstmt.setInt(4, spooled.pageCount);
+                pstmt.setString(5, text.getContentHash());
+                pstmt.executeUpdate();
+                ResultSet keys = pstmt.getGeneratedKeys();
+                if (!keys.next()) {
+                    throw new SQLException("No id generated for " + text.getTittle());
+                }
+                int idText = keys.getInt(1);
+
+                for (int index = 0; index < spooled.pageCount; index++) {
+                    TextCodec codec = TextCodec.fromId(in.readInt());
+                    int rawLength = in.readInt();
+                    byte[] data = in.readNBytes(in.readInt());
+                    int charLength = in.readInt();
+                    int paragraphs = in.readInt();
+                    String page = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+                    addChunk(chunkStmt, idText, index, new TextCodec.Encoded(codec, data, rawLength),
+                            charLength, paragraphs);
+                    addSearchRow(searchStmt, idText, index, page);
+                    if ((index + 1) % STREAM_BATCH_PAGES == 0) {
+                        chunkStmt.executeBatch();
+                        searchStmt.executeBatch();
+                    }
+                }
+                chunkStmt.executeBatch();
+                searchStmt.executeBatch();
+                conn.commit();
+                text.setIdText(idText);
+                return ImportResult.STORED;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            return ImportResult.FAILED;
+        }
+    }
+
+    /**
+     * Looks up a stored text by the SHA-256 of its body
+     * @param contentHash Hash from {@link ContentHash}
+     * @return Id of a text with that body, or 0 if there is none
+     */
+    public int findTextIdByContentHash(String contentHash) {
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(HASH_LOOKUP_SQL)) {
+            return findTextId(pstmt, contentHash);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private static int findTextId(PreparedStatement lookup, String contentHash) throws SQLException {
+        lookup.setString(1, contentHash);
+        try (ResultSet rs = lookup.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
     public boolean saveProgress(int id_book , int page){
-        String sql = "INSERT INTO progress(id_book ,page_book) VALUES(? , ? )" ;
-        String update = "";
+        // progress(id_book) is unique: REPLACE drops the old row and inserts a new one,
+        // so the highest id_progress still marks the last book read.
+        // The character offset is the start of the page
+        String sql = "INSERT OR REPLACE INTO progress(id_book, page_book, char_offset) VALUES(?, ?, " +
+                     "(SELECT COALESCE(SUM(char_length), 0) FROM text_chunks WHERE id_text = ? AND chunk_index < ?))";
 
         try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)){
             
             pstmt.setInt(1, id_book); 
             pstmt.setInt(2, page);
+            pstmt.setInt(3, id_book);
+            pstmt.setInt(4, page - 1);
             
             pstmt.executeUpdate(); 
             return true; 
@@ -36,19 +362,64 @@ public class TextDAO {
             return false; 
         }
     }
-    
-    public boolean updateProgress(int id_book , int page ) {
-        // Eliminar registros antiguos del mismo libro
-        String deleteSql = "DELETE FROM progress WHERE id_book = ?";
-        try (Connection conn = Database.getConnection(); 
-             PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
-            deleteStmt.setInt(1, id_book);
-            deleteStmt.executeUpdate();
+
+    /**
+     * Saves the reader's position together with the page count of its layout, so the
+     * home screen can show the progress with the same pages the reader showed
+     * @param id_book Text id
+     * @param page Page of the reader (1-based), or 0 if not known
+     * @param pageTotal Pages of the reader's layout, or 0 if not known
+     * @param charOffset Character offset of the position in the text
+     * @return true if the progress was saved
+     */
+    public boolean saveProgress(int id_book, int page, int pageTotal, int charOffset) {
+        String sql = "INSERT OR REPLACE INTO progress(id_book, page_book, page_total, char_offset) VALUES(?, ?, ?, ?)";
+        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id_book);
+            pstmt.setInt(2, page);
+            pstmt.setInt(3, pageTotal);
+            pstmt.setInt(4, charOffset);
+            pstmt.executeUpdate();
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
-        
-        // Insertar nuevo registro (esto crea un nuevo id_progress más alto)
+    }
+
+    /**
+     * @return The saved reading position, or the start of the text if it was not read yet
+     */
+    public ReadingPosition getReadingPosition(int id_book) {
+        String sql = "SELECT page_book, page_total, char_offset FROM progress WHERE id_book = ?";
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id_book);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return new ReadingPosition(rs.getInt("page_book"), rs.getInt("page_total"), rs.getInt("char_offset"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ReadingPosition(0, 0, 0);
+    }
+
+    /**
+     * @return Character offset of the saved reading position, or 0 if the text was not read yet
+     */
+    public int getCharOffset(int id_book) {
+        String sql = "SELECT char_offset FROM progress WHERE id_book = ?";
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id_book);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt("char_offset") : 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+    
+    public boolean updateProgress(int id_book , int page ) {
         return saveProgress(id_book, page);
     }
     
@@ -57,7 +428,7 @@ public class TextDAO {
         int page = 0; 
         String sql = "SELECT page_book FROM progress WHERE  id_book = ?";
 
-        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, id_book);
             ResultSet rs = pstmt.executeQuery();
@@ -70,18 +441,17 @@ public class TextDAO {
         return page; 
     }
 
-    public List<Texts> listAll() {
-        List<Texts> texts = new ArrayList<>();
-        String sql = "SELECT * FROM texts ORDER BY creation_date DESC";
-        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * Lists all texts without loading their bodies, newest first
+     * @return Summaries of every stored text
+     */
+    public List<TextSummary> listSummaries() {
+        List<TextSummary> texts = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM texts ORDER BY creation_date DESC";
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Texts text = new Texts();
-                text.setIdText(rs.getInt("id_text"));
-                text.setTittle(rs.getString("tittle"));
-                text.setText(rs.getString("text"));
-                text.setCreationDate(rs.getString("creation_date"));
-                texts.add(text);
+                texts.add(createSummaryFromResultSet(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -89,47 +459,367 @@ public class TextDAO {
         return texts;
     }
 
-    public boolean deleteText(int idText) {
-        String sql = "DELETE FROM texts WHERE id_text = ?";
-        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * @return Summary of the most recently created text, or null if there are none
+     */
+    public TextSummary getNewestSummary() {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM texts ORDER BY creation_date DESC LIMIT 1";
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return createSummaryFromResultSet(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Loads a complete text, joining its chunks back into the body. Only the editor
+     * needs this; the reader loads single pages with {@link #getPages(int, int, int)}.
+     * @param idText Text id
+     * @return The text, or null if it does not exist
+     */
+    public Texts getText(int idText) {
+        String sql = "SELECT id_text, tittle, creation_date FROM texts WHERE id_text = ?";
+        String chunkSql = "SELECT codec, raw_length, content FROM text_chunks WHERE id_text = ? ORDER BY chunk_index";
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             PreparedStatement chunks = conn.prepareStatement(chunkSql)) {
             pstmt.setInt(1, idText);
-            pstmt.executeUpdate();
-            return true;
+            ResultSet rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            Texts text = new Texts();
+            text.setIdText(rs.getInt("id_text"));
+            text.setTittle(rs.getString("tittle"));
+            text.setCreationDate(rs.getString("creation_date"));
+
+            StringBuilder body = new StringBuilder();
+            chunks.setInt(1, idText);
+            ResultSet chunkRs = chunks.executeQuery();
+            while (chunkRs.next()) {
+                body.append(decodeChunk(chunkRs));
+            }
+            text.setText(body.toString());
+            return text;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Loads a range of reader pages of a text
+     * @param idText Text id
+     * @param firstPage First page to load (1-based)
+     * @param lastPage Last page to load, inclusive
+     * @return Page number to page content for the pages that exist in the range
+     */
+    public Map<Integer, String> getPages(int idText, int firstPage, int lastPage) {
+        Map<Integer, String> pages = new HashMap<>();
+        String sql = "SELECT chunk_index, codec, raw_length, content FROM text_chunks " +
+                     "WHERE id_text = ? AND chunk_index BETWEEN ? AND ?";
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, idText);
+            pstmt.setInt(2, firstPage - 1);
+            pstmt.setInt(3, lastPage - 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                pages.put(rs.getInt("chunk_index") + 1, decodeChunk(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return pages;
+    }
+
+    /**
+     * Reads the length and paragraph count of every chunk of a text, without their content
+     * @param idText Text id
+     * @return Index used by the continuous reader; empty if the text has no chunks
+     */
+    public ParagraphIndex getParagraphIndex(int idText) {
+        String sql = "SELECT char_length, paragraphs FROM text_chunks WHERE id_text = ? ORDER BY chunk_index";
+        List<int[]> chunks = new ArrayList<>();
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, idText);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                chunks.add(new int[]{rs.getInt("char_length"), rs.getInt("paragraphs")});
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        int[] charLengths = new int[chunks.size()];
+        int[] paragraphs = new int[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            charLengths[i] = chunks.get(i)[0];
+            paragraphs[i] = chunks.get(i)[1];
+        }
+        return new ParagraphIndex(idText, charLengths, paragraphs);
+    }
+
+    public boolean deleteText(int idText) {
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement chunks = conn.prepareStatement("DELETE FROM text_chunks WHERE id_text = ?");
+                 PreparedStatement pstmt = conn.prepareStatement("DELETE FROM texts WHERE id_text = ?")) {
+                chunks.setInt(1, idText);
+                chunks.executeUpdate();
+                deleteSearchRows(conn, idText);
+                pstmt.setInt(1, idText);
+                pstmt.executeUpdate();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    /**
+     * Replaces the title and body of a text, rewriting its page chunks in one transaction
+     * @param text Text with id, title and the new body
+     * @return true if the text was updated
+     */
     public boolean updateText(Texts text) {
-        String sql = "UPDATE texts SET tittle = ?, text = ? WHERE id_text = ?";
-        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, text.getTittle());
-            pstmt.setString(2, text.getText());
-            pstmt.setInt(3, text.getIdText());
-            pstmt.executeUpdate();
-            return true;
+        String sql = "UPDATE texts SET tittle = ?, word_count = ?, char_count = ?, page_count = ?, content_hash = ? " +
+                     "WHERE id_text = ?";
+        text.setContentHash(ContentHash.of(text.getText()));
+        List<String> pages = TextChunker.chunk(text.getText(), TextSummary.WORDS_PER_PAGE);
+        List<TextCodec.Encoded> chunks = encodeChunks(pages);
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                 PreparedStatement delete = conn.prepareStatement("DELETE FROM text_chunks WHERE id_text = ?")) {
+                pstmt.setString(1, text.getTittle());
+                setStats(pstmt, 2, text.getText(), chunks.size());
+                pstmt.setString(5, text.getContentHash());
+                pstmt.setInt(6, text.getIdText());
+                pstmt.executeUpdate();
+                delete.setInt(1, text.getIdText());
+                delete.executeUpdate();
+                deleteSearchRows(conn, text.getIdText());
+                insertChunks(conn, text.getIdText(), pages, chunks);
+                insertSearchRows(conn, text.getIdText(), pages);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
     
-    public Texts getLastReadBook() {
-        String sql = "SELECT t.* FROM texts t " +
-                     "INNER JOIN progress p ON t.id_text = p.id_book " +
+    /**
+     * @return Summary of the text with the most recent progress entry, or null if nothing was read yet
+     */
+    public TextSummary getLastReadSummary() {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM texts " +
+                     "INNER JOIN progress p ON id_text = p.id_book " +
                      "ORDER BY p.id_progress DESC LIMIT 1";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                Texts text = new Texts();
-                text.setIdText(rs.getInt("id_text"));
-                text.setTittle(rs.getString("tittle"));
-                text.setText(rs.getString("text"));
-                text.setCreationDate(rs.getString("creation_date"));
-                return text;
+                return createSummaryFromResultSet(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static final String SUMMARY_COLUMNS =
+            "id_text, tittle, creation_date, word_count, char_count, page_count";
+
+    private TextSummary createSummaryFromResultSet(ResultSet rs) throws SQLException {
+        TextSummary summary = new TextSummary();
+        summary.setIdText(rs.getInt("id_text"));
+        summary.setTittle(rs.getString("tittle"));
+        summary.setCreationDate(rs.getString("creation_date"));
+        summary.setWordCount(rs.getInt("word_count"));
+        summary.setCharCount(rs.getInt("char_count"));
+        summary.setPageCount(rs.getInt("page_count"));
+        return summary;
+    }
+
+    private void setStats(PreparedStatement pstmt, int firstIndex, String body, int pages) throws SQLException {
+        pstmt.setInt(firstIndex, TextSummary.countWords(body));
+        pstmt.setInt(firstIndex + 1, body == null ? 0 : body.length());
+        pstmt.setInt(firstIndex + 2, pages);
+    }
+
+    /**
+     * Encodes the reader pages of a body; done before the writer is
+     * borrowed so compression does not hold the write lock
+     */
+    private List<TextCodec.Encoded> encodeChunks(List<String> pages) {
+        boolean compress = Database.getConfig().isCompressText();
+        List<TextCodec.Encoded> encoded = new ArrayList<>();
+        for (String chunk : pages) {
+            encoded.add(TextCodec.encodeBest(chunk, compress));
+        }
+        return encoded;
+    }
+
+    /**
+     * Writes the page chunks of a text; runs inside the caller's transaction
+     */
+    private void insertChunks(Connection conn, int idText, List<String> pages, List<TextCodec.Encoded> chunks)
+            throws SQLException {
+        TextChunker.ParagraphCounter paragraphs = new TextChunker.ParagraphCounter();
+        try (PreparedStatement pstmt = conn.prepareStatement(CHUNK_SQL)) {
+            for (int i = 0; i < chunks.size(); i++) {
+                String page = pages.get(i);
+                addChunk(pstmt, idText, i, chunks.get(i), page.length(), paragraphs.next(page));
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void addChunk(PreparedStatement pstmt, int idText, int index, TextCodec.Encoded encoded,
+                                 int charLength, int paragraphs) throws SQLException {
+        pstmt.setInt(1, idText);
+        pstmt.setInt(2, index);
+        pstmt.setInt(3, encoded.getCodec().getId());
+        pstmt.setInt(4, encoded.getRawLength());
+        pstmt.setBytes(5, encoded.getData());
+        pstmt.setInt(6, charLength);
+        pstmt.setInt(7, paragraphs);
+        pstmt.addBatch();
+    }
+
+    /**
+     * Indexes the pages of a text in text_search; runs inside the caller's transaction
+     */
+    private void insertSearchRows(Connection conn, int idText, List<String> pages) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SEARCH_SQL)) {
+            for (int i = 0; i < pages.size(); i++) {
+                addSearchRow(pstmt, idText, i, pages.get(i));
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void addSearchRow(PreparedStatement pstmt, int idText, int index, String page) throws SQLException {
+        pstmt.setLong(1, SchemaMigrations.searchRowId(idText, index));
+        pstmt.setString(2, page);
+        pstmt.addBatch();
+    }
+
+    private void deleteSearchRows(Connection conn, int idText) throws SQLException {
+        String sql = "DELETE FROM text_search WHERE rowid BETWEEN ? AND ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, SchemaMigrations.searchRowId(idText, 0));
+            pstmt.setLong(2, SchemaMigrations.searchRowId(idText + 1, 0) - 1);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Searches the bodies of all texts with the FTS5 index. Every whitespace-separated
+     * term must appear on the page; the last term also matches as a prefix so results
+     * can follow typing. Accents and case are ignored. The index keeps no copy of the
+     * pages, so the snippet of each hit is built from its stored chunk.
+     * @param query Words typed by the user
+     * @param limit Maximum number of pages to return
+     * @return Matching pages, best match first
+     */
+    public List<TextSearchHit> searchPages(String query, int limit) {
+        List<TextSearchHit> hits = new ArrayList<>();
+        String match = toMatchQuery(query);
+        if (match.isEmpty()) {
+            return hits;
+        }
+        String sql = "SELECT s.rowid AS search_id, t.tittle, s.rank AS rank " +
+                     "FROM text_search s JOIN texts t ON t.id_text = (s.rowid >> " + SchemaMigrations.SEARCH_PAGE_BITS + ") " +
+                     "WHERE text_search MATCH ? ORDER BY s.rank LIMIT ?";
+        String chunkSql = "SELECT codec, raw_length, content FROM text_chunks WHERE id_text = ? AND chunk_index = ?";
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             PreparedStatement chunk = conn.prepareStatement(chunkSql)) {
+            pstmt.setString(1, match);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                long searchId = rs.getLong("search_id");
+                TextSearchHit hit = new TextSearchHit();
+                hit.setIdText((int) (searchId >> SchemaMigrations.SEARCH_PAGE_BITS));
+                hit.setPage((int) (searchId & ((1L << SchemaMigrations.SEARCH_PAGE_BITS) - 1)) + 1);
+                hit.setTittle(rs.getString("tittle"));
+                hit.setRank(rs.getDouble("rank"));
+                hits.add(hit);
+            }
+            // Only the chunks of the hits returned are decoded
+            for (TextSearchHit hit : hits) {
+                chunk.setInt(1, hit.getIdText());
+                chunk.setInt(2, hit.getPage() - 1);
+                try (ResultSet page = chunk.executeQuery()) {
+                    hit.setSnippet(page.next() ? SearchSnippet.build(decodeChunk(page), query, SNIPPET_WORDS) : "");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return hits;
+    }
+
+    /**
+     * Turns free text into an FTS5 query: each term is quoted so operators and
+     * punctuation typed by the user are taken literally
+     */
+    static String toMatchQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        for (String term : query.trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(term.replace("\"", "\"\"")).append('"');
+        }
+        if (match.length() > 0) {
+            match.append('*');
+        }
+        return match.toString();
+    }
+
+    private String decodeChunk(ResultSet rs) throws SQLException {
+        return TextCodec.fromId(rs.getInt("codec")).decode(rs.getBytes("content"), rs.getInt("raw_length"));
+    }
+
+    /**
+     * Reports how much space the text chunks take compared to their plain UTF-8 size,
+     * and how fast chunks were decoded since startup
+     * @return Storage statistics, or null if they cannot be read
+     */
+    public TextStorageStats getStorageStats() {
+        String sql = "SELECT COUNT(*) AS chunks, " +
+                     "COALESCE(SUM(codec <> " + TextCodec.NONE.getId() + "), 0) AS compressed, " +
+                     "COALESCE(SUM(raw_length), 0) AS raw_bytes, " +
+                     "COALESCE(SUM(length(content)), 0) AS stored_bytes FROM text_chunks";
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return new TextStorageStats(rs.getLong("chunks"), rs.getLong("compressed"),
+                        rs.getLong("raw_bytes"), rs.getLong("stored_bytes"),
+                        TextCodec.getDecodedBytes(), TextCodec.getDecodeNanos());
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -0,0 +1,67 @@
+package com.leelo.dao;
+
+/**
+ * Size of the stored text chunks and decode cost, as reported by {@link TextDAO#getStorageStats()}
+ */
+public class TextStorageStats {
+    private final long chunkCount;
+    private final long compressedChunks;
+    private final long rawBytes;
+    private final long storedBytes;
+    private final long decodedBytes;
+    private final long decodeNanos;
+
+    public TextStorageStats(long chunkCount, long compressedChunks, long rawBytes, long storedBytes,
+                            long decodedBytes, long decodeNanos) {
+        this.chunkCount = chunkCount;
+        this.compressedChunks = compressedChunks;
+        this.rawBytes = rawBytes;
+        this.storedBytes = storedBytes;
+        this.decodedBytes = decodedBytes;
+        this.decodeNanos = decodeNanos;
+    }
+
+    public long getChunkCount() {
+        return chunkCount;
+    }
+
+    public long getCompressedChunks() {
+        return compressedChunks;
+    }
+
+    /**
+     * @return UTF-8 size of all text bodies
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * @return Bytes actually stored in text_chunks.content
+     */
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * @return Raw size divided by stored size (1.0 when nothing is stored)
+     */
+    public double getCompressionRatio() {
+        return storedBytes > 0 ? (double) rawBytes / storedBytes : 1.0;
+    }
+
+    /**
+     * @return Decoded megabytes per second since startup (0 if nothing was decoded)
+     */
+    public double getDecodeThroughputMBps() {
+        return decodeNanos > 0 ? decodedBytes / 1_048_576.0 / (decodeNanos / 1_000_000_000.0) : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Text storage: %d chunks (%d compressed), %.1f KB stored for %.1f KB of text "
+                        + "(ratio %.2f), decoded %.1f KB at %.1f MB/s",
+                chunkCount, compressedChunks, storedBytes / 1024.0, rawBytes / 1024.0, getCompressionRatio(),
+                decodedBytes / 1024.0, getDecodeThroughputMBps());
+    }
+}
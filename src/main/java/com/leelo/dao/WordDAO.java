@@ -4,20 +4,26 @@ import com.leelo.model.Word;
 
 import java.sql.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class WordDAO {
     public boolean insertWord(Word word) {
         String sql = "INSERT INTO words(term, translation, pronunciation, state, url_img) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, word.getTerm());
             pstmt.setString(2, word.getTranslation());
             pstmt.setString(3, word.getPronunciation());
             pstmt.setInt(4, word.getState());
             pstmt.setString(5, word.getUrlImg());
             pstmt.executeUpdate();
+            ResultSet keys = pstmt.getGeneratedKeys();
+            if (keys.next()) {
+                word.setIdTerm(keys.getInt(1));
+            }
             return true;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -28,7 +34,7 @@ public class WordDAO {
     public List<Word> listAll() {
         List<Word> words = new ArrayList<>();
         String sql = "SELECT * FROM words";
-        try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = Database.getReadConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 Word word = createWordFromResultSet(rs);
@@ -42,7 +48,7 @@ public class WordDAO {
     
     public boolean updateWord(Word word) {
         String sql = "UPDATE words SET term = ?, translation = ?, pronunciation = ?, state = ?, url_img = ?, " +
-                    "last_review = ?, review_count = ?, success_count = ? WHERE id_term = ?";
+                    "last_review = ?, review_count = ?, success_count = ?, next_review_date = ? WHERE id_term = ?";
         try (Connection conn = Database.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, word.getTerm());
             pstmt.setString(2, word.getTranslation());
@@ -52,7 +58,8 @@ public class WordDAO {
             pstmt.setString(6, word.getLastReview());
             pstmt.setInt(7, word.getReviewCount());
             pstmt.setInt(8, word.getSuccessCount());
-            pstmt.setInt(9, word.getIdTerm());
+            pstmt.setLong(9, schedule(word));
+            pstmt.setInt(10, word.getIdTerm());
             pstmt.executeUpdate();
             return true;
         } catch (SQLException e) {
@@ -93,31 +100,59 @@ public class WordDAO {
         word.setLastReview(rs.getString("last_review"));
         word.setReviewCount(rs.getInt("review_count"));
         word.setSuccessCount(rs.getInt("success_count"));
+        word.setNextReviewDay(rs.getLong("next_review_date"));
         
         return word;
     }
     
+    /**
+     * Recomputes the persisted next review day from the word's last review and state
+     * @param word Word about to be written
+     * @return Value to store in next_review_date
+     */
+    private long schedule(Word word) {
+        long nextReviewDay = Word.computeNextReviewDay(word.getLastReview(), word.getState());
+        word.setNextReviewDay(nextReviewDay);
+        return nextReviewDay;
+    }
+    
+    /**
+     * Review priority computed in SQL, matching SpacedRepetitionService.calculateReviewPriority:
+     * words not yet due get MAX_STATE + 1, due words get their state minus the days overdue
+     * (never below 0). Parameter ?1 is today's epoch day.
+     */
+    private static final String PRIORITY_SQL =
+            "CASE WHEN next_review_date > ?1 THEN 6 " +
+            "ELSE MAX(0, state - CASE WHEN next_review_date = " + Word.UNSCHEDULED + " THEN 0 " +
+            "ELSE ?1 - next_review_date END) END";
+    
     /**
      * Retrieves all words that are due for review based on their last review date and current state
-     * @return List of words that need to be reviewed
+     * @return List of words that need to be reviewed, highest priority first
      */
     public List<Word> getWordsDueForReview() {
+        return getWordsDueForReview(-1);
+    }
+    
+    /**
+     * Retrieves words due for review with an index range scan on next_review_date
+     * @param limit Maximum number of words to return (negative for no limit)
+     * @return Due words ordered by review priority, highest priority first
+     */
+    public List<Word> getWordsDueForReview(int limit) {
         List<Word> dueWords = new ArrayList<>();
-        String sql = "SELECT * FROM words";
+        String sql = "SELECT * FROM words WHERE next_review_date <= ?1 " +
+                     "ORDER BY " + PRIORITY_SQL + ", id_term LIMIT ?2";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            pstmt.setLong(1, LocalDate.now().toEpochDay());
+            pstmt.setInt(2, limit);
             ResultSet rs = pstmt.executeQuery();
-            String currentDate = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
             
             while (rs.next()) {
-                Word word = createWordFromResultSet(rs);
-                
-                // Check if word is due for review
-                if (word.isDueForReview()) {
-                    dueWords.add(word);
-                }
+                dueWords.add(createWordFromResultSet(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error retrieving words due for review: " + e.getMessage());
@@ -127,6 +162,98 @@ public class WordDAO {
         return dueWords;
     }
     
+    /**
+     * Retrieves due words restricted to the given learning states
+     * @param states Learning states to include (0-5)
+     * @param limit Maximum number of words to return (negative for no limit)
+     * @return Due words in the given states ordered by review priority
+     */
+    public List<Word> getWordsDueForReviewByStates(int[] states, int limit) {
+        List<Word> dueWords = new ArrayList<>();
+        if (states == null || states.length == 0) {
+            return dueWords;
+        }
+        
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < states.length; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?").append(i + 3);
+        }
+        String sql = "SELECT * FROM words WHERE next_review_date <= ?1 AND state IN (" + placeholders + ") " +
+                     "ORDER BY " + PRIORITY_SQL + ", id_term LIMIT ?2";
+        
+        try (Connection conn = Database.getReadConnection(); 
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, LocalDate.now().toEpochDay());
+            pstmt.setInt(2, limit);
+            for (int i = 0; i < states.length; i++) {
+                pstmt.setInt(i + 3, states[i]);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                dueWords.add(createWordFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving due words by state: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return dueWords;
+    }
+    
+    /**
+     * Retrieves words in state 0 plus words whose review is overdue
+     * @return High priority words ordered by review priority
+     */
+    public List<Word> getHighPriorityWords() {
+        List<Word> words = new ArrayList<>();
+        String sql = "SELECT * FROM words WHERE state = 0 " +
+                     "OR (next_review_date <> " + Word.UNSCHEDULED + " AND next_review_date < ?1) " +
+                     "ORDER BY " + PRIORITY_SQL + ", id_term";
+        
+        try (Connection conn = Database.getReadConnection(); 
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, LocalDate.now().toEpochDay());
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                words.add(createWordFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving high priority words: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return words;
+    }
+    
+    /**
+     * Counts due words per learning state using the (next_review_date, state) index
+     * @return Map with state as key and count of due words as value (states without due words are absent)
+     */
+    public Map<Integer, Integer> getDueWordCountByState() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        String sql = "SELECT state, COUNT(*) AS due_count FROM words WHERE next_review_date <= ? GROUP BY state";
+        
+        try (Connection conn = Database.getReadConnection(); 
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, LocalDate.now().toEpochDay());
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                counts.put(rs.getInt("state"), rs.getInt("due_count"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting due words by state: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return counts;
+    }
+    
     /**
      * Retrieves words filtered by their learning state
      * @param state The learning state to filter by (0-5)
@@ -136,7 +263,7 @@ public class WordDAO {
         List<Word> words = new ArrayList<>();
         String sql = "SELECT * FROM words WHERE state = ?";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, state);
@@ -160,7 +287,8 @@ public class WordDAO {
      * @return true if update was successful, false otherwise
      */
     public boolean updateWordReviewData(Word word) {
-        String sql = "UPDATE words SET last_review = ?, review_count = ?, success_count = ?, state = ? WHERE id_term = ?";
+        String sql = "UPDATE words SET last_review = ?, review_count = ?, success_count = ?, state = ?, " +
+                    "next_review_date = ? WHERE id_term = ?";
         
         try (Connection conn = Database.getConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -169,7 +297,8 @@ public class WordDAO {
             pstmt.setInt(2, word.getReviewCount());
             pstmt.setInt(3, word.getSuccessCount());
             pstmt.setInt(4, word.getState());
-            pstmt.setInt(5, word.getIdTerm());
+            pstmt.setLong(5, schedule(word));
+            pstmt.setInt(6, word.getIdTerm());
             
             int rowsAffected = pstmt.executeUpdate();
             return rowsAffected > 0;
@@ -190,7 +319,8 @@ public class WordDAO {
             return true;
         }
         
-        String sql = "UPDATE words SET last_review = ?, review_count = ?, success_count = ?, state = ? WHERE id_term = ?";
+        String sql = "UPDATE words SET last_review = ?, review_count = ?, success_count = ?, state = ?, " +
+                    "next_review_date = ? WHERE id_term = ?";
         
         try (Connection conn = Database.getConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -202,7 +332,8 @@ public class WordDAO {
                 pstmt.setInt(2, word.getReviewCount());
                 pstmt.setInt(3, word.getSuccessCount());
                 pstmt.setInt(4, word.getState());
-                pstmt.setInt(5, word.getIdTerm());
+                pstmt.setLong(5, schedule(word));
+                pstmt.setInt(6, word.getIdTerm());
                 pstmt.addBatch();
             }
             
@@ -231,7 +362,7 @@ public class WordDAO {
     public int getTotalWordCount() {
         String sql = "SELECT COUNT(*) as total_count FROM words";
         
-        try (Connection conn = Database.getConnection(); 
+        try (Connection conn = Database.getReadConnection(); 
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             ResultSet rs = pstmt.executeQuery();
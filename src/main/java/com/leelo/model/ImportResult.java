@@ -0,0 +1,17 @@
+package com.leelo.model;
+
+/**
+ * Outcome of storing a text whose body is streamed page by page
+ */
+public enum ImportResult {
+    /** Stored as a new text */
+    STORED,
+    /** A text with the same body was already stored; nothing was inserted */
+    DUPLICATE,
+    /** The body was empty; nothing was inserted */
+    EMPTY,
+    /** The body could not be written or stored; nothing was inserted */
+    FAILED,
+    /** The import was cancelled; nothing was inserted */
+    CANCELLED
+}
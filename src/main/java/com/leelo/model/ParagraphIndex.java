@@ -0,0 +1,106 @@
+package com.leelo.model;
+
+/**
+ * Position of every chunk of a text in characters and in paragraphs, built from the
+ * chunk metadata alone. Lets the continuous reader find the chunk that holds a
+ * paragraph or a character offset while keeping only two numbers per chunk in memory.
+ */
+public class ParagraphIndex {
+    private final int idText;
+    // Both have one entry per chunk plus a final entry with the totals
+    private final int[] charStart;
+    private final int[] firstParagraph;
+
+    /**
+     * @param idText Text id
+     * @param charLengths Characters in each chunk, in chunk order
+     * @param paragraphs Paragraphs starting in each chunk, in chunk order
+     */
+    public ParagraphIndex(int idText, int[] charLengths, int[] paragraphs) {
+        if (charLengths.length != paragraphs.length) {
+            throw new IllegalArgumentException("One length and one paragraph count per chunk");
+        }
+        this.idText = idText;
+        this.charStart = new int[charLengths.length + 1];
+        this.firstParagraph = new int[paragraphs.length + 1];
+        for (int i = 0; i < charLengths.length; i++) {
+            charStart[i + 1] = charStart[i] + charLengths[i];
+            firstParagraph[i + 1] = firstParagraph[i] + paragraphs[i];
+        }
+    }
+
+    public int getIdText() {
+        return idText;
+    }
+
+    public int getChunkCount() {
+        return charStart.length - 1;
+    }
+
+    public int getParagraphCount() {
+        return firstParagraph[firstParagraph.length - 1];
+    }
+
+    public int getCharCount() {
+        return charStart[charStart.length - 1];
+    }
+
+    /**
+     * @return Character offset of the first character of a chunk
+     */
+    public int getCharStart(int chunk) {
+        return charStart[chunk];
+    }
+
+    /**
+     * @return Index of the first paragraph starting in a chunk
+     */
+    public int getFirstParagraph(int chunk) {
+        return firstParagraph[chunk];
+    }
+
+    /**
+     * @return Number of paragraphs starting in a chunk
+     */
+    public int getParagraphsIn(int chunk) {
+        return firstParagraph[chunk + 1] - firstParagraph[chunk];
+    }
+
+    /**
+     * @param paragraph Paragraph index (0-based)
+     * @return The chunk in which the paragraph starts
+     */
+    public int chunkOfParagraph(int paragraph) {
+        return lastAtOrBefore(firstParagraph, paragraph);
+    }
+
+    /**
+     * @param offset Character offset in the text; clamped to the text
+     * @return The chunk holding that character
+     */
+    public int chunkOfOffset(int offset) {
+        return lastAtOrBefore(charStart, offset);
+    }
+
+    /**
+     * Binary search for the last chunk whose start is at or before a value; for paragraphs
+     * this skips chunks where no paragraph starts, as the next chunk has the same start
+     */
+    private int lastAtOrBefore(int[] starts, int value) {
+        int chunks = getChunkCount();
+        if (chunks == 0) {
+            return 0;
+        }
+        int low = 0;
+        int high = chunks - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
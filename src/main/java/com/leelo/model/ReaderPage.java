@@ -0,0 +1,52 @@
+package com.leelo.model;
+
+import java.util.List;
+
+/**
+ * Render model of one reader page, or of one paragraph in the continuous reader: its
+ * tokens, already classified against the vocabulary. Built off the FX thread and
+ * handed to the page renderer.
+ */
+public class ReaderPage {
+    private final int idText;
+    private final int number;
+    private final List<ReaderToken> tokens;
+    private final int charOffset;
+
+    public ReaderPage(int idText, int number, List<ReaderToken> tokens) {
+        this(idText, number, tokens, 0);
+    }
+
+    public ReaderPage(int idText, int number, List<ReaderToken> tokens, int charOffset) {
+        this.idText = idText;
+        this.number = number;
+        this.tokens = List.copyOf(tokens);
+        this.charOffset = charOffset;
+    }
+
+    public int getIdText() {
+        return idText;
+    }
+
+    /**
+     * @return Page number (1-based), or paragraph index (0-based) in the continuous reader
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return Character offset of the paragraph in the text; 0 for pages
+     */
+    public int getCharOffset() {
+        return charOffset;
+    }
+
+    public List<ReaderToken> getTokens() {
+        return tokens;
+    }
+
+    public boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+}
@@ -0,0 +1,57 @@
+package com.leelo.model;
+
+/**
+ * One word of a reader page as it is displayed, with the vocabulary data needed to
+ * color it and to react to a click. Immutable, so it can be built off the FX thread.
+ */
+public class ReaderToken {
+    /** Vocabulary state of a word that is not saved */
+    public static final int NOT_SAVED = 0;
+
+    private final String text;
+    private final String key;
+    private final String selection;
+    private final int state;
+
+    public ReaderToken(String text, String key, String selection, int state) {
+        this.text = text;
+        this.key = key;
+        this.selection = selection;
+        this.state = state;
+    }
+
+    /**
+     * @return The word as shown, with the space that follows it
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return Vocabulary lookup key (WordNormalizer.normalize)
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The word without surrounding punctuation, as saved when clicked
+     */
+    public String getSelection() {
+        return selection;
+    }
+
+    /**
+     * @return State of the saved word (1-4), or NOT_SAVED
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * @return A copy of this token with another vocabulary state
+     */
+    public ReaderToken withState(int state) {
+        return state == this.state ? this : new ReaderToken(text, key, selection, state);
+    }
+}
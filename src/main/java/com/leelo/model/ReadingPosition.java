@@ -0,0 +1,58 @@
+package com.leelo.model;
+
+/**
+ * Saved reading position of a text: the reader's page and page count when it was
+ * saved, and the character offset that places it independently of the layout.
+ */
+public class ReadingPosition {
+    private final int page;
+    private final int pageTotal;
+    private final int charOffset;
+
+    public ReadingPosition(int page, int pageTotal, int charOffset) {
+        this.page = page;
+        this.pageTotal = pageTotal;
+        this.charOffset = charOffset;
+    }
+
+    /**
+     * @return Page of the reader (1-based), or 0 if it was not known when saved
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * @return Pages of the reader's layout when saved, or 0 if unknown
+     */
+    public int getPageTotal() {
+        return pageTotal;
+    }
+
+    public int getCharOffset() {
+        return charOffset;
+    }
+
+    /**
+     * Progress as the reader showed it: page over page count. Positions saved without
+     * the reader's pages fall back to the share of characters before the position.
+     * @param charCount Characters in the text
+     * @return Percentage read, 0 to 100
+     */
+    public int getPercent(int charCount) {
+        int percent;
+        if (pageTotal > 0) {
+            percent = page * 100 / pageTotal;
+        } else if (charCount > 0) {
+            percent = (int) ((long) charOffset * 100 / charCount);
+        } else {
+            percent = 0;
+        }
+        return Math.max(0, Math.min(percent, 100));
+    }
+
+    @Override
+    public String toString() {
+        return "Position (Page: " + page + "/" + pageTotal + ", Offset: " + charOffset + ")";
+    }
+}
@@ -0,0 +1,58 @@
+package com.leelo.model;
+
+/**
+ * One page of a text that matches a full-text search
+ */
+public class TextSearchHit {
+    private int idText;
+    private String tittle;
+    private int page;
+    private String snippet;
+    private double rank;
+
+    public int getIdText() {
+        return idText;
+    }
+    public void setIdText(int idText) {
+        this.idText = idText;
+    }
+    public String getTittle() {
+        return tittle;
+    }
+    public void setTittle(String tittle) {
+        this.tittle = tittle;
+    }
+    /**
+     * @return Stored page (1-based, as in text_chunks) containing the match; not a
+     * page of the reader, whose pages depend on the font and window size
+     */
+    public int getPage() {
+        return page;
+    }
+    public void setPage(int page) {
+        this.page = page;
+    }
+    /**
+     * @return Excerpt around the match with the matched terms in [brackets]
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+    /**
+     * @return BM25 score; lower is a better match
+     */
+    public double getRank() {
+        return rank;
+    }
+    public void setRank(double rank) {
+        this.rank = rank;
+    }
+
+    @Override
+    public String toString() {
+        return "Hit (ID: " + idText + ", Page: " + page + ", Snippet: " + snippet + ")";
+    }
+}
@@ -0,0 +1,96 @@
+package com.leelo.model;
+
+/**
+ * Lightweight view of a text for lists and the home screen. Holds the metadata
+ * stored next to the body in the texts table, but never the body itself.
+ */
+public class TextSummary {
+    /**
+     * Words per stored page (a row of text_chunks); page_count is derived from it. The
+     * reader's pages are cut to fit the screen by the PaginationEngine instead.
+     */
+    public static final int WORDS_PER_PAGE = 200;
+
+    private int idText;
+    private String tittle;
+    private String creationDate;
+    private int wordCount;
+    private int charCount;
+    private int pageCount;
+
+    public int getIdText() {
+        return idText;
+    }
+    public void setIdText(int idText) {
+        this.idText = idText;
+    }
+    public String getTittle() {
+        return tittle;
+    }
+    public void setTittle(String tittle) {
+        this.tittle = tittle;
+    }
+    public String getCreationDate() {
+        return creationDate;
+    }
+    public void setCreationDate(String creationDate) {
+        this.creationDate = creationDate;
+    }
+    public int getWordCount() {
+        return wordCount;
+    }
+    public void setWordCount(int wordCount) {
+        this.wordCount = wordCount;
+    }
+    public int getCharCount() {
+        return charCount;
+    }
+    public void setCharCount(int charCount) {
+        this.charCount = charCount;
+    }
+    /**
+     * @return Stored pages (chunks) of the text; not the reader's pages, which depend on the layout
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    /**
+     * Counts whitespace-separated words the same way the reader splits a text
+     * (on the regex class \s), without allocating the split array
+     * @param text Text body (may be null)
+     * @return Number of words
+     */
+    public static int countWords(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean space = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            if (!space && !inWord) {
+                count++;
+            }
+            inWord = !space;
+        }
+        return count;
+    }
+
+    /**
+     * @param wordCount Number of words in a text
+     * @return Number of stored pages needed for that many words
+     */
+    public static int countPages(int wordCount) {
+        return (wordCount + WORDS_PER_PAGE - 1) / WORDS_PER_PAGE;
+    }
+
+    @Override
+    public String toString() {
+        return "Text (ID: " + idText + ", Title: " + tittle + ")";
+    }
+}
@@ -5,6 +5,7 @@ public class Texts {
     private String tittle;
     private String text;
     private String creationDate;
+    private String contentHash;
 
     public int getIdText() {
         return idText;
@@ -30,6 +31,12 @@ public class Texts {
     public void setCreationDate(String creationDate) {
         this.creationDate = creationDate;
     }
+    public String getContentHash() {
+        return contentHash;
+    }
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
     
     @Override
     public String toString() {
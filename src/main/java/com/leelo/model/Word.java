@@ -16,10 +16,17 @@ public class Word {
     private String lastReview;
     private int reviewCount;
     private int successCount;
+    private long nextReviewDay;
     
     // Spaced repetition intervals for each state (in days)
     private static final int[] INTERVALS = {0, 1, 3, 7, 14, 30};
 
+    /**
+     * Value of next_review_date for words that were never reviewed (or whose last review
+     * cannot be parsed): always due, but never counted as overdue
+     */
+    public static final long UNSCHEDULED = 0;
+
     public int getIdTerm() {
         return idTerm;
     }
@@ -82,6 +89,37 @@ public class Word {
         this.successCount = successCount;
     }
     
+    /**
+     * @return Epoch day of the next review as stored in next_review_date, or {@link #UNSCHEDULED}
+     */
+    public long getNextReviewDay() {
+        return nextReviewDay;
+    }
+    
+    public void setNextReviewDay(long nextReviewDay) {
+        this.nextReviewDay = nextReviewDay;
+    }
+    
+    /**
+     * Computes the persisted next_review_date from a last review date and a state,
+     * using the same rules as {@link #isDueForReview()}
+     * @param lastReview Last review date in ISO format (may be null)
+     * @param state Learning state (0-5)
+     * @return Epoch day of the next review, or {@link #UNSCHEDULED} if the word was never reviewed
+     */
+    public static long computeNextReviewDay(String lastReview, int state) {
+        if (lastReview == null || lastReview.isEmpty()) {
+            return UNSCHEDULED;
+        }
+        try {
+            LocalDate lastReviewDate = LocalDate.parse(lastReview, DateTimeFormatter.ISO_LOCAL_DATE);
+            int intervalDays = (state >= 0 && state < INTERVALS.length) ? INTERVALS[state] : INTERVALS[0];
+            return lastReviewDate.plusDays(intervalDays).toEpochDay();
+        } catch (Exception e) {
+            return UNSCHEDULED;
+        }
+    }
+    
     // Helper methods for spaced repetition
     
     /**
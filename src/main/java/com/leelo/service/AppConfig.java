@@ -0,0 +1,114 @@
+package com.leelo.service;
+
+import com.leelo.dao.DatabaseConfig;
+
+import java.util.Properties;
+
+/**
+ * Settings of the application services, read from the same {@code leelo.properties} and
+ * {@code leelo.<key>} system properties as {@link DatabaseConfig}:
+ * <ul>
+ *   <li>{@code import.pdfWorkers} - threads extracting PDF pages (default {@code 0}: one per core)</li>
+ *   <li>{@code fetch.cacheDir} - directory of cached web pages (default {@code http-cache})</li>
+ *   <li>{@code fetch.maxPerHost} - concurrent downloads from the same site (default {@code 2})</li>
+ *   <li>{@code fetch.timeoutMs} - connect and response timeout of a download</li>
+ *   <li>{@code fetch.cacheMaxMb} - size of the web page cache before the least recently
+ *   used pages are evicted (default {@code 256})</li>
+ * </ul>
+ */
+public class AppConfig {
+
+    public static final String DEFAULT_FETCH_CACHE_DIR = "http-cache";
+    public static final int DEFAULT_FETCH_MAX_PER_HOST = 2;
+    public static final long DEFAULT_FETCH_TIMEOUT_MS = 20_000;
+
+    private int pdfWorkers;
+    private String fetchCacheDir = DEFAULT_FETCH_CACHE_DIR;
+    private int fetchMaxPerHost = DEFAULT_FETCH_MAX_PER_HOST;
+    private long fetchTimeoutMillis = DEFAULT_FETCH_TIMEOUT_MS;
+    private long fetchCacheMaxBytes = HttpDiskCache.DEFAULT_MAX_BYTES;
+
+    // Loaded on first use
+    private static final class Holder {
+        static final AppConfig CONFIG = fromProperties(DatabaseConfig.loadProperties());
+    }
+
+    /**
+     * @return The configuration of this run, loaded once
+     */
+    public static AppConfig get() {
+        return Holder.CONFIG;
+    }
+
+    /**
+     * Builds a configuration from already loaded properties
+     * @param properties Keys as documented on this class
+     * @return configuration with defaults for any key that is not set
+     */
+    public static AppConfig fromProperties(Properties properties) {
+        AppConfig config = new AppConfig();
+        config.setPdfWorkers((int) longValue(properties, "import.pdfWorkers", 0));
+        config.setFetchCacheDir(properties.getProperty("fetch.cacheDir", DEFAULT_FETCH_CACHE_DIR));
+        config.setFetchMaxPerHost((int) longValue(properties, "fetch.maxPerHost", DEFAULT_FETCH_MAX_PER_HOST));
+        config.setFetchTimeoutMillis(longValue(properties, "fetch.timeoutMs", DEFAULT_FETCH_TIMEOUT_MS));
+        config.setFetchCacheMaxBytes(longValue(properties, "fetch.cacheMaxMb",
+                HttpDiskCache.DEFAULT_MAX_BYTES / (1024 * 1024)) * 1024 * 1024);
+        return config;
+    }
+
+    private static long longValue(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return Number of PDF extraction threads; one per core unless configured
+     */
+    public int getPdfWorkers() {
+        return pdfWorkers > 0 ? pdfWorkers : Runtime.getRuntime().availableProcessors();
+    }
+
+    public void setPdfWorkers(int pdfWorkers) {
+        this.pdfWorkers = Math.max(0, pdfWorkers);
+    }
+
+    public String getFetchCacheDir() {
+        return fetchCacheDir;
+    }
+
+    public void setFetchCacheDir(String fetchCacheDir) {
+        this.fetchCacheDir = fetchCacheDir;
+    }
+
+    public int getFetchMaxPerHost() {
+        return fetchMaxPerHost;
+    }
+
+    public void setFetchMaxPerHost(int fetchMaxPerHost) {
+        this.fetchMaxPerHost = Math.max(1, fetchMaxPerHost);
+    }
+
+    public long getFetchTimeoutMillis() {
+        return fetchTimeoutMillis;
+    }
+
+    public void setFetchTimeoutMillis(long fetchTimeoutMillis) {
+        this.fetchTimeoutMillis = Math.max(1, fetchTimeoutMillis);
+    }
+
+    public long getFetchCacheMaxBytes() {
+        return fetchCacheMaxBytes;
+    }
+
+    public void setFetchCacheMaxBytes(long fetchCacheMaxBytes) {
+        this.fetchCacheMaxBytes = Math.max(0, fetchCacheMaxBytes);
+    }
+}
@@ -0,0 +1,499 @@
+package com.leelo.service;
+
+import com.leelo.dao.TextDAO;
+import com.leelo.model.Texts;
+import com.leelo.util.ContentHash;
+import com.leelo.util.TextCleaner;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Imports many TXT and PDF files at once. Every file is read, extracted and cleaned
+ * on its own virtual thread; the prepared texts are handed to a single writer thread
+ * that stores them in batches, one transaction per batch. Files larger than
+ * {@link TextService#STREAMED_IMPORT_BYTES} are not held in memory: their thread
+ * spools the encoded pages to a temporary file, extracting large PDFs on the
+ * configured PDF workers, and the writer only inserts the finished pages.
+ */
+public class BulkImportService {
+
+    /**
+     * Files being read or cleaned at the same time; with large files streamed, bounds the
+     * memory held by texts that are not stored yet
+     */
+    static final int MAX_IN_FLIGHT = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * Prepared texts waiting for the writer
+     */
+    static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * Texts stored per transaction
+     */
+    static final int BATCH_TEXTS = 32;
+
+    public enum Status {
+        IMPORTED, DUPLICATE, EMPTY, FAILED, CANCELLED
+    }
+
+    /**
+     * Outcome of one file
+     */
+    public static class FileResult {
+        private final Path file;
+        private final Status status;
+        private final int idText;
+        private final int charCount;
+        private final String error;
+
+        FileResult(Path file, Status status, int idText, int charCount, String error) {
+            this.file = file;
+            this.status = status;
+            this.idText = idText;
+            this.charCount = charCount;
+            this.error = error;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public int getIdText() {
+            return idText;
+        }
+
+        public int getCharCount() {
+            return charCount;
+        }
+
+        /**
+         * @return Reason the file failed, or null
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return file.getFileName() + ": " + status + (error != null ? " (" + error + ")" : "");
+        }
+    }
+
+    /**
+     * Per-file results and throughput of a whole import
+     */
+    public static class Summary {
+        private final List<FileResult> results;
+        private final long bytesRead;
+        private final long elapsedNanos;
+
+        Summary(List<FileResult> results, long bytesRead, long elapsedNanos) {
+            this.results = results;
+            this.bytesRead = bytesRead;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<FileResult> getResults() {
+            return results;
+        }
+
+        public int count(Status status) {
+            return (int) results.stream().filter(result -> result.getStatus() == status).count();
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double getFilesPerSecond() {
+            return elapsedNanos == 0 ? 0 : results.size() * 1e9 / elapsedNanos;
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytesRead / 1048576.0 * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Bulk import: %d files in %.1f s (%.1f files/s, %.1f MB/s): "
+                            + "%d imported, %d duplicates, %d empty, %d failed, %d cancelled",
+                    results.size(), elapsedNanos / 1e9, getFilesPerSecond(), getMegabytesPerSecond(),
+                    count(Status.IMPORTED), count(Status.DUPLICATE), count(Status.EMPTY),
+                    count(Status.FAILED), count(Status.CANCELLED));
+        }
+    }
+
+    /**
+     * Receives progress from a running import
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called once per file, from the thread that finished it
+         * @param result Outcome of the file
+         * @param done Files finished so far
+         * @param total Files in the import
+         */
+        void fileFinished(FileResult result, int done, int total);
+    }
+
+    private final TextService textService = new TextService();
+    private final long streamedBytes;
+
+    public BulkImportService() {
+        this(TextService.STREAMED_IMPORT_BYTES);
+    }
+
+    /**
+     * @param streamedBytes Files larger than this are spooled page by page while they are read
+     */
+    BulkImportService(long streamedBytes) {
+        this.streamedBytes = streamedBytes;
+    }
+
+    /**
+     * Imports every .txt and .pdf file of a directory and its subdirectories
+     * @see #importFiles(List, Listener, BooleanSupplier)
+     */
+    public Summary importDirectory(Path directory, Listener listener, BooleanSupplier cancelled) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile).filter(BulkImportService::isSupported).sorted().toList();
+        }
+        return importFiles(files, listener, cancelled);
+    }
+
+    /**
+     * Imports a list of files. A file listed twice is imported once, and a file whose
+     * cleaned text is already stored is reported as a duplicate with the id of the stored
+     * text; files that cannot be read are reported as failed without stopping the others.
+     * @param files TXT and PDF files
+     * @param listener Progress receiver; may be called from several threads at once
+     * @param cancelled Checked before each file; files not started yet are reported as cancelled
+     * @return Results and throughput of the import
+     */
+    public Summary importFiles(List<Path> files, Listener listener, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        List<FileResult> results = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger done = new AtomicInteger();
+        int total = files.size();
+        Listener recorder = (result, ignored, ignoredTotal) -> {
+            results.add(result);
+            listener.fileFinished(result, done.incrementAndGet(), total);
+        };
+
+        BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Thread writer = new Thread(() -> writeLoop(queue, recorder), "bulk-import-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        long bytesRead = 0;
+        Set<Path> seen = new HashSet<>();
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : files) {
+                if (!seen.add(identity(file))) {
+                    recorder.fileFinished(new FileResult(file, Status.DUPLICATE, 0, 0, "listed twice"), 0, 0);
+                    continue;
+                }
+                bytesRead += sizeOf(file);
+                executor.execute(() -> {
+                    try {
+                        inFlight.acquire();
+                    } catch (InterruptedException e) {
+                        recorder.fileFinished(new FileResult(file, Status.CANCELLED, 0, 0, null), 0, 0);
+                        return;
+                    }
+                    try {
+                        prepareFile(file, queue, recorder, cancelled);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        try {
+            queue.put(Pending.END);
+            writer.join();
+        } catch (InterruptedException e) {
+            // Cancelled while waiting; texts still queued are dropped
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        return new Summary(List.copyOf(results), bytesRead, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads, extracts and cleans one file on a virtual thread and queues it for the writer
+     */
+    private void prepareFile(Path file, BlockingQueue<Pending> queue, Listener recorder, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            recorder.fileFinished(new FileResult(file, Status.CANCELLED, 0, 0, null), 0, 0);
+            return;
+        }
+        try {
+            if (sizeOf(file) > streamedBytes) {
+                spoolFile(file, queue, recorder, cancelled);
+                return;
+            }
+            String body = readClean(file, cancelled);
+            if (body.isEmpty()) {
+                recorder.fileFinished(new FileResult(file, Status.EMPTY, 0, 0, null), 0, 0);
+                return;
+            }
+            String hash = ContentHash.of(body);
+            int existing = textService.findTextIdByContentHash(hash);
+            if (existing > 0) {
+                recorder.fileFinished(new FileResult(file, Status.DUPLICATE, existing, body.length(), null), 0, 0);
+                return;
+            }
+            Texts text = new Texts();
+            text.setTittle(titleOf(file));
+            text.setText(body);
+            text.setContentHash(hash);
+            // Two files of the same import with the same text are caught by the writer
+            queue.put(new Pending(file, textService.prepareText(text), null));
+        } catch (InterruptedException | InterruptedIOException e) {
+            recorder.fileFinished(new FileResult(file, Status.CANCELLED, 0, 0, null), 0, 0);
+        } catch (Exception e) {
+            recorder.fileFinished(new FileResult(file, Status.FAILED, 0, 0, e.getMessage()), 0, 0);
+        }
+    }
+
+    /**
+     * Cleans a large file page by page into a temporary file and queues it for the writer
+     */
+    private void spoolFile(Path file, BlockingQueue<Pending> queue, Listener recorder, BooleanSupplier cancelled)
+            throws IOException, InterruptedException {
+        Texts text = new Texts();
+        text.setTittle(titleOf(file));
+        // A large PDF is extracted on the PDF workers rather than on this thread alone
+        PdfImportService pdf = new PdfImportService();
+        TextDAO.SpooledText spooled = textService.spoolText(text, out -> writeClean(file, out, cancelled, pdf));
+        try {
+            int charCount = (int) Math.min(spooled.getCharCount(), Integer.MAX_VALUE);
+            if (spooled.getPageCount() == 0) {
+                recorder.fileFinished(new FileResult(file, Status.EMPTY, 0, 0, null), 0, 0);
+                spooled.close();
+                return;
+            }
+            int existing = textService.findTextIdByContentHash(text.getContentHash());
+            if (existing > 0) {
+                recorder.fileFinished(new FileResult(file, Status.DUPLICATE, existing, charCount, null), 0, 0);
+                spooled.close();
+                return;
+            }
+            queue.put(new Pending(file, null, spooled));
+        } catch (InterruptedException | RuntimeException e) {
+            spooled.close();
+            throw e;
+        }
+    }
+
+    private static String readClean(Path file, BooleanSupplier cancelled) throws IOException {
+        StringWriter cleaned = new StringWriter();
+        // Files are already imported in parallel; extract each one on its own thread
+        writeClean(file, cleaned, cancelled, new PdfImportService(1));
+        return cleaned.toString();
+    }
+
+    /**
+     * Extracts or reads a file and writes its cleaned text to out
+     * @throws InterruptedIOException if the import is cancelled before the end of the file
+     */
+    private static void writeClean(Path file, Writer out, BooleanSupplier cancelled, PdfImportService pdf)
+            throws IOException {
+        TextCleaner.CleaningWriter cleaner = new TextCleaner.CleaningWriter(out);
+        if (isPdf(file)) {
+            pdf.extractText(file.toFile(), cleaner, (page, count) -> {
+            }, cancelled);
+        } else {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new InterruptedIOException("Import cancelled");
+                    }
+                    cleaner.write(buffer, 0, read);
+                }
+            }
+        }
+        cleaner.finish();
+    }
+
+    /**
+     * Inserts the pages of a spooled file and deletes its temporary file
+     */
+    private FileResult storeSpooled(Pending pending) {
+        try (TextDAO.SpooledText spooled = pending.spooled) {
+            Texts text = spooled.getText();
+            int charCount = (int) Math.min(spooled.getCharCount(), Integer.MAX_VALUE);
+            switch (textService.addSpooledText(spooled)) {
+                case STORED:
+                    return new FileResult(pending.file, Status.IMPORTED, text.getIdText(), charCount, null);
+                case DUPLICATE:
+                    return new FileResult(pending.file, Status.DUPLICATE, text.getIdText(), charCount, null);
+                case EMPTY:
+                    return new FileResult(pending.file, Status.EMPTY, 0, 0, null);
+                default:
+                    return new FileResult(pending.file, Status.FAILED, 0, 0, "could not be stored");
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return new FileResult(pending.file, Status.FAILED, 0, 0, "could not be stored");
+        }
+    }
+
+    /**
+     * Stores queued texts in batches until the end marker arrives. A failed batch is
+     * retried text by text so that only the texts that cannot be stored are reported.
+     */
+    private void writeLoop(BlockingQueue<Pending> queue, Listener recorder) {
+        List<Pending> batch = new ArrayList<>(BATCH_TEXTS);
+        boolean end = false;
+        while (!end) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                discardSpooled(queue);
+                return;
+            }
+            queue.drainTo(batch, BATCH_TEXTS - 1);
+            end = batch.remove(Pending.END);
+            for (Iterator<Pending> it = batch.iterator(); it.hasNext(); ) {
+                Pending pending = it.next();
+                if (pending.spooled != null) {
+                    it.remove();
+                    recorder.fileFinished(storeSpooled(pending), 0, 0);
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            List<TextDAO.PreparedText> texts = batch.stream().map(pending -> pending.text).toList();
+            if (store(texts)) {
+                batch.forEach(pending -> recorder.fileFinished(imported(pending), 0, 0));
+            } else {
+                for (Pending pending : batch) {
+                    FileResult result = store(List.of(pending.text))
+                            ? imported(pending)
+                            : new FileResult(pending.file, Status.FAILED, 0, 0, "could not be stored");
+                    recorder.fileFinished(result, 0, 0);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Stores a batch; the writer must survive any failure, or producers would wait on it forever
+     */
+    private boolean store(List<TextDAO.PreparedText> texts) {
+        try {
+            return textService.addPreparedTexts(texts);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the temporary files of spooled texts the writer will not store
+     */
+    private static void discardSpooled(BlockingQueue<Pending> queue) {
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Pending pending : left) {
+            if (pending.spooled != null) {
+                pending.spooled.close();
+            }
+        }
+    }
+
+    private static FileResult imported(Pending pending) {
+        Texts text = pending.text.getText();
+        Status status = pending.text.isDuplicate() ? Status.DUPLICATE : Status.IMPORTED;
+        return new FileResult(pending.file, status, text.getIdText(), text.getText().length(), null);
+    }
+
+    static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".txt") || name.endsWith(".pdf");
+    }
+
+    private static boolean isPdf(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".pdf");
+    }
+
+    static String titleOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static Path identity(Path file) {
+        try {
+            return file.toRealPath();
+        } catch (IOException e) {
+            return file.toAbsolutePath().normalize();
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A prepared text, or the spooled pages of a large file, on its way to the writer
+     */
+    private static final class Pending {
+        static final Pending END = new Pending(null, null, null);
+
+        final Path file;
+        // Exactly one of the two is set, except for END
+        final TextDAO.PreparedText text;
+        final TextDAO.SpooledText spooled;
+
+        Pending(Path file, TextDAO.PreparedText text, TextDAO.SpooledText spooled) {
+            this.file = file;
+            this.text = text;
+            this.spooled = spooled;
+        }
+    }
+}
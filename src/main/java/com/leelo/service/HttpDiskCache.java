@@ -0,0 +1,291 @@
+package com.leelo.service;
+
+import com.leelo.util.ContentHash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of HTTP responses keyed by URL. Each response is kept in one file
+ * together with the validators (ETag and Last-Modified) needed to revalidate it, and
+ * is replaced atomically so concurrent fetches never read a half-written entry.
+ * <p>
+ * The cache is kept under a size limit: a hit refreshes the modification time of its
+ * file, and when a write goes over the limit the least recently used entries (oldest
+ * modification time) are deleted until the cache is back under it.
+ */
+public class HttpDiskCache {
+
+    private static final int MAGIC = 0x4C48_4301;
+
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * A cached response
+     */
+    public static final class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final String contentType;
+        private final byte[] body;
+
+        public Entry(String etag, String lastModified, String contentType, byte[] body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        /**
+         * @return ETag header of the response, or null
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return Last-Modified header of the response, or null
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    // Bytes on disk, scanned on the first write; -1 until then
+    private final AtomicLong size = new AtomicLong(-1);
+
+    /**
+     * @param directory Directory holding the entries; created on the first write
+     */
+    public HttpDiskCache(Path directory) {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param directory Directory holding the entries; created on the first write
+     * @param maxBytes Size the entries may take on disk before the oldest are evicted
+     */
+    public HttpDiskCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param uri Requested URL
+     * @return The cached response, or null if there is none or it cannot be read
+     */
+    public Entry get(URI uri) {
+        Path file = fileFor(uri);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(uri.toString())) {
+                return null;
+            }
+            String etag = emptyToNull(in.readUTF());
+            String lastModified = emptyToNull(in.readUTF());
+            String contentType = emptyToNull(in.readUTF());
+            byte[] body = in.readNBytes(in.readInt());
+            touch(file);
+            return new Entry(etag, lastModified, contentType, body);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Could not read cached response for " + uri + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response, replacing the previous one for the same URL
+     * @param uri Requested URL
+     * @param entry Response to keep
+     * @return true if the entry was written
+     */
+    public boolean put(URI uri, Entry entry) {
+        Path file = fileFor(uri);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, "entry", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(uri.toString());
+                out.writeUTF(nullToEmpty(entry.getEtag()));
+                out.writeUTF(nullToEmpty(entry.getLastModified()));
+                out.writeUTF(nullToEmpty(entry.getContentType()));
+                out.writeInt(entry.getBody().length);
+                out.write(entry.getBody());
+            }
+            long written = Files.size(temp);
+            long replaced = sizeOf(file);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (size.get() < 0) {
+                size.compareAndSet(-1, scan());
+            } else {
+                size.addAndGet(written - replaced);
+            }
+            if (size.get() > maxBytes) {
+                trim();
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not cache response for " + uri + ": " + e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Removes the cached response of a URL, if any
+     */
+    public void remove(URI uri) {
+        Path file = fileFor(uri);
+        try {
+            long length = sizeOf(file);
+            if (Files.deleteIfExists(file) && size.get() >= 0) {
+                size.addAndGet(-length);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not remove cached response for " + uri + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Bytes the entries take on disk
+     */
+    public long size() {
+        if (size.get() < 0) {
+            size.compareAndSet(-1, scan());
+        }
+        return size.get();
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits in its limit
+     */
+    private synchronized void trim() {
+        if (size.get() <= maxBytes) {
+            return;
+        }
+        List<Path> files = entries();
+        List<FileTime> times = new ArrayList<>(files.size());
+        List<Integer> order = new ArrayList<>(files.size());
+        long total = 0;
+        for (int i = 0; i < files.size(); i++) {
+            times.add(lastModified(files.get(i)));
+            order.add(i);
+            total += sizeOf(files.get(i));
+        }
+        order.sort(Comparator.comparing(times::get));
+        for (int i : order) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Path file = files.get(i);
+            long length = sizeOf(file);
+            try {
+                if (Files.deleteIfExists(file)) {
+                    total -= length;
+                }
+            } catch (IOException e) {
+                System.err.println("Could not evict cached response " + file + ": " + e.getMessage());
+            }
+        }
+        size.set(total);
+    }
+
+    private long scan() {
+        long total = 0;
+        for (Path file : entries()) {
+            total += sizeOf(file);
+        }
+        return total;
+    }
+
+    private List<Path> entries() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.http")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing cached yet
+        } catch (IOException e) {
+            System.err.println("Could not list cached responses: " + e.getMessage());
+        }
+        return files;
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only the eviction order depends on it
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path fileFor(URI uri) {
+        return directory.resolve(ContentHash.of(uri.toString()) + ".http");
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
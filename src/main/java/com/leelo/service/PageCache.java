@@ -0,0 +1,82 @@
+package com.leelo.service;
+
+import com.leelo.model.ReaderPage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used set of prepared reader pages. Every page is stored with the
+ * vocabulary version it was classified against, so a page is only served as-is
+ * while no word has been saved, updated or deleted since.
+ */
+public class PageCache {
+
+    /**
+     * A prepared page and the vocabulary version its tokens reflect
+     */
+    public static final class Entry {
+        private final ReaderPage page;
+        private final long vocabularyVersion;
+
+        Entry(ReaderPage page, long vocabularyVersion) {
+            this.page = page;
+            this.vocabularyVersion = vocabularyVersion;
+        }
+
+        public ReaderPage getPage() {
+            return page;
+        }
+
+        public long getVocabularyVersion() {
+            return vocabularyVersion;
+        }
+    }
+
+    private final Map<Long, Entry> entries;
+
+    /**
+     * @param capacity Pages kept before the least recently used one is dropped
+     */
+    public PageCache(int capacity) {
+        this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return The cached page and its vocabulary version, or null; marks the page as recently used
+     */
+    public synchronized Entry get(int idText, int page) {
+        return entries.get(key(idText, page));
+    }
+
+    /**
+     * @return true if the page is cached; does not change the order of use
+     */
+    public synchronized boolean contains(int idText, int page) {
+        return entries.containsKey(key(idText, page));
+    }
+
+    public synchronized void put(ReaderPage page, long vocabularyVersion) {
+        entries.put(key(page.getIdText(), page.getNumber()), new Entry(page, vocabularyVersion));
+    }
+
+    /**
+     * Drops every page, e.g. when the pages are cut for another layout
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static long key(int idText, int page) {
+        return ((long) idText << 32) | (page & 0xFFFF_FFFFL);
+    }
+}
@@ -0,0 +1,130 @@
+package com.leelo.service;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Pages of one text in one layout, as cut by the {@link PaginationEngine}. Each page
+ * is a run of whole lines, so page numbers and offsets map to each other exactly.
+ *
+ * The lines may still be being laid out: the count is estimated until they are all
+ * known, and the methods that need lines not laid out yet wait for them. Those must
+ * not be called on the FX thread, which the layout needs to measure words.
+ */
+public class Pagination {
+    private final PaginationEngine.Lines lines;
+    private final PaginationEngine.Layout layout;
+    private final int linesPerPage;
+
+    Pagination(PaginationEngine.Lines lines, PaginationEngine.Layout layout, int linesPerPage) {
+        this.lines = lines;
+        this.layout = layout;
+        this.linesPerPage = linesPerPage;
+    }
+
+    public int getIdText() {
+        return lines.getIdText();
+    }
+
+    public PaginationEngine.Layout getLayout() {
+        return layout;
+    }
+
+    public int getLinesPerPage() {
+        return linesPerPage;
+    }
+
+    /**
+     * @return true once every line of the text is laid out and the page count is exact
+     */
+    public boolean isComplete() {
+        return lines.isComplete();
+    }
+
+    /**
+     * Never waits: while the layout runs, the pages of the rest of the text are
+     * estimated from the pages per character so far
+     * @return Pages in the text, at least 1
+     */
+    public int getPageCount() {
+        int known = pagesOf(lines.getCount());
+        int laidOut = lines.getLaidOut();
+        if (lines.isComplete() || laidOut <= 0) {
+            return known;
+        }
+        long estimate = (long) lines.getCharCount() * lines.getCount() / laidOut;
+        return Math.max(known, pagesOf((int) Math.min(estimate, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * @param page Page number (1-based)
+     * @return true if the page can be read without waiting for the layout
+     */
+    public boolean isLaidOut(int page) {
+        return lines.isComplete() || lines.getCount() > page * linesPerPage;
+    }
+
+    /**
+     * Waits until the lines of the offset are laid out
+     * @param charOffset Character offset in the text, e.g. a saved reading position
+     * @return The page holding that character (1-based)
+     */
+    public int pageOf(int charOffset) {
+        lines.awaitOffset(charOffset);
+        return lines.lineOf(charOffset) / linesPerPage + 1;
+    }
+
+    /**
+     * Same as {@link #pageOf(int)} without waiting, so it can be called on the FX
+     * thread; offsets not laid out yet get an estimate
+     */
+    public int estimatePageOf(int charOffset) {
+        int laidOut = lines.getLaidOut();
+        if (charOffset < laidOut || lines.isComplete() || laidOut <= 0) {
+            return Math.min(lines.lineOf(charOffset) / linesPerPage + 1, getPageCount());
+        }
+        return Math.max(1, Math.min((int) ((long) charOffset * getPageCount() / lines.getCharCount()) + 1,
+                getPageCount()));
+    }
+
+    /**
+     * Waits until the first line of the page is laid out
+     * @param page Page number (1-based)
+     * @return Character offset where the page starts; the end of the text past the last page
+     */
+    public int getPageStart(int page) {
+        int line = (page - 1) * linesPerPage;
+        lines.awaitLine(line);
+        return lines.startOf(line);
+    }
+
+    /**
+     * Waits until the line after the page is laid out
+     * @param page Page number (1-based)
+     * @return Character offset where the next page starts, or the end of the text
+     */
+    public int getPageEnd(int page) {
+        int line = page * linesPerPage;
+        lines.awaitLine(line);
+        return lines.startOf(line);
+    }
+
+    /**
+     * Same as {@link #pageOf(int)} without waiting: the page is passed to the action
+     * right away if the offset is laid out, otherwise on the layout thread once it is
+     */
+    public void whenPageOf(int charOffset, IntConsumer action) {
+        lines.whenLaidOut(charOffset, () -> action.accept(lines.lineOf(charOffset) / linesPerPage + 1));
+    }
+
+    /**
+     * Runs an action once the layout is finished: right away if it already is,
+     * otherwise on the layout thread
+     */
+    public void whenComplete(Runnable action) {
+        lines.whenComplete(action);
+    }
+
+    private int pagesOf(int lineCount) {
+        return Math.max(1, (lineCount + linesPerPage - 1) / linesPerPage);
+    }
+}
@@ -0,0 +1,419 @@
+package com.leelo.service;
+
+import com.leelo.model.ParagraphIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Cuts texts into reader pages that fit the screen. The words are measured in the
+ * reader's font and wrapped into lines the way the page wraps them, and a page takes
+ * as many lines as fit in its height. The 200-word chunks of text_chunks remain the
+ * storage unit only; the pages and the page count of the reader come from here.
+ *
+ * Line breaks depend on the text, the font and the width, and are kept for a few
+ * such layouts; another page height only groups the same lines differently. Lines
+ * are laid out on a background thread a batch of chunks at a time, so the first
+ * pages of a text can be shown long before the last one is reached.
+ */
+public class PaginationEngine {
+
+    /** Line layouts kept, e.g. the current font and window size and the previous ones */
+    static final int CACHED_LAYOUTS = 6;
+    /** Chunks read and measured per step of the layout */
+    static final int CHUNKS_PER_READ = 32;
+
+    /**
+     * Measures text in the reader's font
+     */
+    public interface Measurer {
+        /**
+         * @param words Distinct words, without whitespace; called on the layout thread
+         * @return Width of each word, in the order given
+         */
+        double[] widths(List<String> words);
+
+        /** @return Width of the space that follows every word */
+        double spaceWidth();
+
+        /** @return Height of one line of text */
+        double lineHeight();
+    }
+
+    /**
+     * Font and size of the area the pages are laid out in
+     */
+    public static final class Layout {
+        private final String fontFamily;
+        private final double fontSize;
+        private final int width;
+        private final int height;
+
+        /**
+         * @param width Width available to the text, in pixels
+         * @param height Height available to the text, in pixels
+         */
+        public Layout(String fontFamily, double fontSize, double width, double height) {
+            this.fontFamily = fontFamily;
+            this.fontSize = fontSize;
+            // Whole pixels, so small resizes reuse the lines already laid out
+            this.width = (int) width;
+            this.height = (int) height;
+        }
+
+        public String getFontFamily() {
+            return fontFamily;
+        }
+
+        public double getFontSize() {
+            return fontSize;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Layout)) {
+                return false;
+            }
+            Layout layout = (Layout) other;
+            return fontFamily.equals(layout.fontFamily) && fontSize == layout.fontSize
+                    && width == layout.width && height == layout.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fontFamily, fontSize, width, height);
+        }
+
+        @Override
+        public String toString() {
+            return "Layout (Font: " + fontFamily + " " + fontSize + ", Size: " + width + "x" + height + ")";
+        }
+    }
+
+    private static final PaginationEngine INSTANCE = new PaginationEngine(new TextService());
+
+    // Lines are laid out one text at a time, in the order they were requested
+    private static final ExecutorService LAYOUT_THREAD = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reader-layout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TextService textService;
+    // Line breaks by text, font and width, least recently used first
+    private final Map<List<Object>, Lines> lineCache = new LinkedHashMap<>(CACHED_LAYOUTS * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Lines> eldest) {
+            if (size() > CACHED_LAYOUTS) {
+                eldest.getValue().cancel();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    PaginationEngine(TextService textService) {
+        this.textService = textService;
+    }
+
+    public static PaginationEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the pages of a text for a layout. Lines already laid out for the same
+     * text, font and width are reused; otherwise they are laid out in the background
+     * and the pagination fills in as they come.
+     * @param index Chunks of the text
+     * @param layout Font and size of the page area
+     * @param measurer Measures the font of the layout; only created if the lines are not cached
+     * @return The pagination; its blocking methods must not be called on the FX thread
+     */
+    public Pagination paginate(ParagraphIndex index, Layout layout, Supplier<Measurer> measurer) {
+        int idText = index.getIdText();
+        // The length is part of the key so an edited text is laid out again
+        List<Object> key = List.of(idText, index.getCharCount(), layout.getFontFamily(),
+                layout.getFontSize(), layout.getWidth());
+        Lines lines;
+        synchronized (lineCache) {
+            lines = lineCache.get(key);
+            if (lines == null) {
+                // Lines still being laid out for another font or width of the text are not needed anymore
+                lineCache.values().removeIf(other -> other.getIdText() == idText && other.cancel());
+                Measurer fontMeasurer = measurer.get();
+                lines = new Lines(idText, index.getCharCount(), fontMeasurer.lineHeight());
+                lineCache.put(key, lines);
+                Lines job = lines;
+                LAYOUT_THREAD.execute(() -> layOut(index, job, fontMeasurer, layout.getWidth()));
+            }
+        }
+        int linesPerPage = Math.max(1, (int) (layout.getHeight() / lines.getLineHeight()));
+        return new Pagination(lines, layout, linesPerPage);
+    }
+
+    /**
+     * Wraps the words of a text into lines of the given width. A word goes to the next
+     * line when it does not fit after the words before it; a word wider than the line
+     * gets a line of its own, so every line starts at a word and no page is left empty.
+     */
+    void layOut(ParagraphIndex index, Lines lines, Measurer measurer, double width) {
+        try {
+            Map<String, Double> widths = new HashMap<>();
+            double space = measurer.spaceWidth();
+            double x = 0;
+            lines.add(0);
+            for (int first = 0; first < index.getChunkCount(); first += CHUNKS_PER_READ) {
+                if (lines.isCancelled()) {
+                    return;
+                }
+                int last = Math.min(first + CHUNKS_PER_READ, index.getChunkCount()) - 1;
+                Map<Integer, String> chunks = textService.getPages(index.getIdText(), first + 1, last + 1);
+                measureNew(chunks, widths, measurer);
+                int end = index.getCharStart(first);
+                for (int chunk = first; chunk <= last; chunk++) {
+                    String content = chunks.get(chunk + 1);
+                    int base = index.getCharStart(chunk);
+                    int length = content == null ? 0 : content.length();
+                    int i = 0;
+                    while (i < length) {
+                        while (i < length && isSpace(content.charAt(i))) {
+                            i++;
+                        }
+                        int start = i;
+                        while (i < length && !isSpace(content.charAt(i))) {
+                            i++;
+                        }
+                        if (start == i) {
+                            break;
+                        }
+                        double w = widths.get(content.substring(start, i));
+                        if (x > 0 && x + w > width) {
+                            lines.add(base + start);
+                            x = 0;
+                        }
+                        x += w + space;
+                    }
+                    end = base + length;
+                }
+                lines.laidOut(end);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            lines.finish();
+        }
+    }
+
+    /**
+     * Measures the words of a batch that were not measured yet, all in one call
+     */
+    private static void measureNew(Map<Integer, String> chunks, Map<String, Double> widths, Measurer measurer) {
+        List<String> unknown = new ArrayList<>();
+        for (String content : chunks.values()) {
+            if (content.isBlank()) {
+                continue;
+            }
+            for (String word : content.trim().split("\\s+")) {
+                if (!widths.containsKey(word)) {
+                    widths.put(word, 0.0);
+                    unknown.add(word);
+                }
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        double[] measured = measurer.widths(unknown);
+        for (int i = 0; i < unknown.size(); i++) {
+            widths.put(unknown.get(i), measured[i]);
+        }
+    }
+
+    // Same whitespace as the \s the reader splits words on
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Start offsets of the lines of one text, font and width, filled in by the layout
+     * thread. Readers wait on it until the lines they need are laid out.
+     */
+    static final class Lines {
+        private final int idText;
+        private final int charCount;
+        private final double lineHeight;
+        private int[] starts = new int[256];
+        private int count;
+        // Characters of the text already wrapped into lines
+        private int laidOut;
+        private boolean complete;
+        private boolean cancelled;
+        private final List<Runnable> onComplete = new ArrayList<>();
+        // Actions waiting for an offset to be laid out, by offset
+        private final List<Map.Entry<Integer, Runnable>> onLaidOut = new ArrayList<>();
+
+        Lines(int idText, int charCount, double lineHeight) {
+            this.idText = idText;
+            this.charCount = charCount;
+            this.lineHeight = lineHeight > 0 ? lineHeight : 1;
+        }
+
+        int getIdText() {
+            return idText;
+        }
+
+        int getCharCount() {
+            return charCount;
+        }
+
+        double getLineHeight() {
+            return lineHeight;
+        }
+
+        synchronized void add(int start) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = start;
+        }
+
+        void laidOut(int chars) {
+            List<Runnable> actions = new ArrayList<>();
+            synchronized (this) {
+                laidOut = chars;
+                notifyAll();
+                onLaidOut.removeIf(waiting -> waiting.getKey() < chars && actions.add(waiting.getValue()));
+            }
+            actions.forEach(Runnable::run);
+        }
+
+        void finish() {
+            List<Runnable> actions;
+            synchronized (this) {
+                complete = true;
+                if (!cancelled) {
+                    laidOut = charCount;
+                }
+                notifyAll();
+                actions = new ArrayList<>();
+                onLaidOut.forEach(waiting -> actions.add(waiting.getValue()));
+                onLaidOut.clear();
+                actions.addAll(onComplete);
+                onComplete.clear();
+            }
+            actions.forEach(Runnable::run);
+        }
+
+        /**
+         * Stops the layout if it is still running
+         * @return true if it was stopped, false if it had already finished
+         */
+        synchronized boolean cancel() {
+            if (complete) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized boolean isComplete() {
+            return complete;
+        }
+
+        synchronized int getCount() {
+            return count;
+        }
+
+        synchronized int getLaidOut() {
+            return laidOut;
+        }
+
+        /**
+         * @return Start of a line, or the end of the text past the last line; the end of
+         * the lines laid out if the layout was stopped before reaching it
+         */
+        synchronized int startOf(int line) {
+            if (line < count) {
+                return starts[line];
+            }
+            return cancelled ? laidOut : charCount;
+        }
+
+        /**
+         * @return The last line starting at or before an offset
+         */
+        synchronized int lineOf(int charOffset) {
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (starts[mid] <= charOffset) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        synchronized void awaitLine(int line) {
+            try {
+                while (count <= line && !complete) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized void awaitOffset(int charOffset) {
+            try {
+                while (laidOut <= charOffset && !complete) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void whenLaidOut(int charOffset, Runnable action) {
+            synchronized (this) {
+                if (laidOut <= charOffset && !complete) {
+                    onLaidOut.add(Map.entry(charOffset, action));
+                    return;
+                }
+            }
+            action.run();
+        }
+
+        void whenComplete(Runnable action) {
+            synchronized (this) {
+                if (!complete) {
+                    onComplete.add(action);
+                    return;
+                }
+            }
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.leelo.service;
+
+import com.leelo.dao.TextDAO;
+import com.leelo.model.ImportResult;
+import com.leelo.model.Texts;
+import com.leelo.util.TextCleaner;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Imports a PDF into storage one page at a time: each page is extracted, cleaned and
+ * split into reader pages as it arrives, so neither the raw nor the cleaned text of the
+ * whole book is ever held in memory.
+ *
+ * With more than one worker, pages are extracted in ranges on a thread pool and written
+ * out in page order; PDDocument is not thread-safe, so every worker loads its own copy.
+ */
+public class PdfImportService {
+
+    /**
+     * Number of cleaned characters offered as a preview of the import
+     */
+    public static final int PREVIEW_CHARS = 3000;
+
+    /**
+     * Pages extracted together by one worker
+     */
+    public static final int RANGE_PAGES = 8;
+
+    /**
+     * Receives progress from a running import; called on the importing thread
+     */
+    public interface Listener {
+        /**
+         * @param page Number of PDF pages extracted so far
+         * @param pageCount Pages in the document
+         */
+        void pageExtracted(int page, int pageCount);
+
+        /**
+         * Called once with the beginning of the cleaned text, as soon as it is known
+         */
+        default void preview(String text) {
+        }
+    }
+
+    private final TextService textService = new TextService();
+    private final int workers;
+
+    /**
+     * Uses the number of workers configured as import.pdfWorkers
+     */
+    public PdfImportService() {
+        this(AppConfig.get().getPdfWorkers());
+    }
+
+    /**
+     * @param workers Threads extracting pages; 1 extracts on the importing thread
+     */
+    public PdfImportService(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Extracts, cleans and stores a PDF
+     * @param file PDF file
+     * @param title Title of the new text
+     * @param listener Progress receiver
+     * @param cancelled Checked before every page or page range; the import is rolled back once it returns true
+     * @return STORED or DUPLICATE, with the id of the text and its title set on it; EMPTY if the
+     *         document has no text, FAILED if it could not be stored, CANCELLED if the import was cancelled
+     * @throws IOException if the PDF cannot be read or is encrypted
+     */
+    public ImportResult importPdf(File file, String title, Listener listener, BooleanSupplier cancelled)
+            throws IOException {
+        // Checked before extracting, which would only report a failure
+        try (PDDocument document = load(file)) {
+            if (document.isEncrypted()) {
+                throw new IOException("El archivo está encriptado.");
+            }
+        }
+        Texts text = new Texts();
+        text.setTittle(title);
+        // Pages are extracted and encoded before the writer connection is taken
+        try (TextDAO.SpooledText spooled = textService.spoolText(text, out -> {
+            PreviewWriter preview = new PreviewWriter(out, listener);
+            TextCleaner.CleaningWriter cleaner = new TextCleaner.CleaningWriter(preview);
+            extractText(file, cleaner, listener, cancelled);
+            cleaner.finish();
+            preview.finish();
+        })) {
+            if (cancelled.getAsBoolean()) {
+                return ImportResult.CANCELLED;
+            }
+            return textService.addSpooledText(spooled);
+        } catch (InterruptedIOException e) {
+            // Cancelled while extracting
+            return ImportResult.CANCELLED;
+        }
+    }
+
+    static PDDocument load(File file) throws IOException {
+        // Buffer decoded streams in temp files rather than on the heap
+        return Loader.loadPDF(file, IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    /**
+     * Writes the raw text of every page of a PDF to out, in page order
+     * @param file PDF file; parallel workers load their own copies
+     * @param out Receives the text
+     * @param listener Progress receiver; the preview is not reported here
+     * @param cancelled Checked between pages or page ranges
+     * @throws IOException if the PDF cannot be read, is encrypted or a page cannot be extracted,
+     *         or InterruptedIOException when cancelled
+     */
+    public void extractText(File file, Writer out, Listener listener, BooleanSupplier cancelled) throws IOException {
+        int pageCount;
+        int ranges;
+        int threads;
+        try (PDDocument document = load(file)) {
+            if (document.isEncrypted()) {
+                throw new IOException("El archivo está encriptado.");
+            }
+            pageCount = document.getNumberOfPages();
+            ranges = (pageCount + RANGE_PAGES - 1) / RANGE_PAGES;
+            threads = Math.min(workers, ranges);
+            if (threads <= 1) {
+                extractPages(document, pageCount, out, listener, cancelled);
+                return;
+            }
+        }
+        // Only the page count was needed here; the workers load their own copies
+        extractParallel(file, pageCount, ranges, threads, out, listener, cancelled);
+    }
+
+    private static void extractPages(PDDocument document, int pageCount, Writer out, Listener listener,
+                                     BooleanSupplier cancelled) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int page = 1; page <= pageCount; page++) {
+            if (cancelled.getAsBoolean()) {
+                throw new InterruptedIOException("PDF import cancelled");
+            }
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            stripper.writeText(document, out);
+            listener.pageExtracted(page, pageCount);
+        }
+    }
+
+    private void extractParallel(File file, int pageCount, int ranges, int threads, Writer out, Listener listener,
+                                 BooleanSupplier cancelled) throws IOException {
+        Map<Integer, CompletableFuture<String>> results = new ConcurrentHashMap<>();
+        AtomicInteger nextRange = new AtomicInteger();
+        // Workers may run at most this many ranges ahead of the writer, which bounds memory
+        Semaphore window = new Semaphore(threads * 2);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-extract");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.execute(() -> extractRanges(file, pageCount, ranges, nextRange, window, results));
+            }
+            for (int range = 0; range < ranges; range++) {
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("PDF import cancelled");
+                }
+                String text;
+                try {
+                    text = results.computeIfAbsent(range, k -> new CompletableFuture<>()).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("PDF import interrupted");
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                }
+                results.remove(range);
+                window.release();
+                out.write(text);
+                listener.pageExtracted(Math.min(pageCount, (range + 1) * RANGE_PAGES), pageCount);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Worker loop: claims page ranges in order and extracts them from its own document
+     */
+    private static void extractRanges(File file, int pageCount, int ranges, AtomicInteger nextRange,
+                                      Semaphore window, Map<Integer, CompletableFuture<String>> results) {
+        try (PDDocument document = load(file)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            while (true) {
+                window.acquire();
+                int range = nextRange.getAndIncrement();
+                if (range >= ranges) {
+                    return;
+                }
+                CompletableFuture<String> result = results.computeIfAbsent(range, k -> new CompletableFuture<>());
+                try {
+                    stripper.setStartPage(range * RANGE_PAGES + 1);
+                    stripper.setEndPage(Math.min(pageCount, (range + 1) * RANGE_PAGES));
+                    result.complete(stripper.getText(document));
+                } catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Import finished or cancelled
+        } catch (IOException e) {
+            // Fail the ranges this worker would have taken so the writer does not wait for them
+            for (int range = nextRange.getAndIncrement(); range < ranges; range = nextRange.getAndIncrement()) {
+                results.computeIfAbsent(range, k -> new CompletableFuture<>()).completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Passes text through and reports the first PREVIEW_CHARS characters
+     */
+    private static class PreviewWriter extends Writer {
+        private final Writer out;
+        private final Listener listener;
+        private final StringBuilder preview = new StringBuilder();
+        private boolean reported;
+
+        PreviewWriter(Writer out, Listener listener) {
+            this.out = out;
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (!reported) {
+                preview.append(cbuf, off, Math.min(len, PREVIEW_CHARS - preview.length()));
+                if (preview.length() >= PREVIEW_CHARS) {
+                    finish();
+                }
+            }
+            out.write(cbuf, off, len);
+        }
+
+        void finish() {
+            if (!reported) {
+                reported = true;
+                listener.preview(preview.toString());
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
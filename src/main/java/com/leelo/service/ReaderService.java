@@ -0,0 +1,383 @@
+package com.leelo.service;
+
+import com.leelo.model.ParagraphIndex;
+import com.leelo.model.ReaderPage;
+import com.leelo.model.ReaderToken;
+import com.leelo.model.Word;
+import com.leelo.util.TextChunker;
+import com.leelo.util.WordNormalizer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Builds the render model of reader pages: reads the text of the page, as cut by the
+ * {@link PaginationEngine}, from the chunks holding it, splits it into tokens and
+ * classifies each token against the vocabulary. Meant to run on a background thread
+ * so the FX thread only applies the result.
+ *
+ * Prepared pages are kept in a small LRU, and the pages next to the one being read
+ * can be prepared ahead of time, so turning a page is usually a cache hit. Reading
+ * progress is written on a background thread as well.
+ *
+ * For the continuous reader the same work is done per paragraph: the chunk holding a
+ * paragraph is loaded on demand and all the paragraphs starting in it are prepared
+ * at once. Only a bounded number of chunks and paragraphs is kept.
+ */
+public class ReaderService {
+
+    /** Prepared pages kept per reader; enough to flip back and forth around the current page */
+    static final int CACHED_PAGES = 8;
+    /** Prepared paragraphs kept for the continuous reader; several screens' worth */
+    static final int CACHED_PARAGRAPHS = 256;
+    /** Decoded chunks kept; a page or a paragraph rarely needs more than two */
+    static final int CACHED_CHUNKS = 8;
+
+    // Progress writes of every reader, coalesced per text: only the last position
+    // (page, page count, character offset) is written
+    private static final Map<Integer, int[]> pendingProgress = new ConcurrentHashMap<>();
+    private static final AtomicBoolean progressScheduled = new AtomicBoolean();
+    private static final ExecutorService PROGRESS_WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reader-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TextService textService = new TextService();
+    private final WordService wordService = new WordService();
+    private final VocabularyCache vocabulary = VocabularyCache.getInstance();
+    private final PageCache pageCache = new PageCache(CACHED_PAGES);
+    private final PageCache paragraphCache = new PageCache(CACHED_PARAGRAPHS);
+    // Decoded chunks by (id_text << 32 | chunk_index), least recently used first
+    private final Map<Long, String> chunkCache = new LinkedHashMap<>(CACHED_CHUNKS * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > CACHED_CHUNKS;
+        }
+    };
+
+    // Pages in the cache were cut by this pagination; another layout starts over.
+    // Read without the lock by getCachedPage, since preparePage may hold it waiting for the layout
+    private volatile Pagination cachedPagination;
+
+    /**
+     * Loads, tokenizes and classifies a page of a pagination. Waits for the layout
+     * if the page is not laid out yet.
+     * @param index Chunks of the text
+     * @param pagination Pages of the text in the reader's layout
+     * @param page Page number (1-based)
+     * @return The page; empty if the text has no such page
+     */
+    public synchronized ReaderPage preparePage(ParagraphIndex index, Pagination pagination, int page) {
+        usePagination(pagination);
+        int idText = index.getIdText();
+        long version = vocabulary.getVersion();
+        PageCache.Entry cached = pageCache.get(idText, page);
+        ReaderPage prepared;
+        if (cached == null) {
+            int start = pagination.getPageStart(page);
+            int end = pagination.getPageEnd(page);
+            String content = end > start ? loadRange(index, start, end) : null;
+            prepared = new ReaderPage(idText, page, tokenize(content, wordService::findSavedWord), start);
+        } else if (cached.getVocabularyVersion() != version) {
+            // Words were saved since: only the states change, the page is not read again
+            prepared = reclassify(cached.getPage(), wordService::findSavedWord);
+        } else {
+            return cached.getPage();
+        }
+        pageCache.put(prepared, version);
+        return prepared;
+    }
+
+    /**
+     * Returns a page without doing any work, so it can be called on the FX thread
+     * @return The prepared page if it is cached for this pagination and up to date with the vocabulary, or null
+     */
+    public ReaderPage getCachedPage(Pagination pagination, int page) {
+        if (pagination != cachedPagination) {
+            return null;
+        }
+        PageCache.Entry cached = pageCache.get(pagination.getIdText(), page);
+        if (cached == null || cached.getVocabularyVersion() != vocabulary.getVersion()) {
+            return null;
+        }
+        return cached.getPage();
+    }
+
+    /**
+     * Prepares the pages before and after a page if they are not cached yet. A next
+     * page that is not laid out yet is left alone rather than waited for.
+     */
+    public synchronized void prefetch(ParagraphIndex index, Pagination pagination, int page) {
+        int idText = index.getIdText();
+        if (pagination != cachedPagination) {
+            return;
+        }
+        if (page < pagination.getPageCount() && pagination.isLaidOut(page + 1)
+                && !pageCache.contains(idText, page + 1)) {
+            preparePage(index, pagination, page + 1);
+        }
+        if (page > 1 && !pageCache.contains(idText, page - 1)) {
+            preparePage(index, pagination, page - 1);
+        }
+    }
+
+    private void usePagination(Pagination pagination) {
+        if (pagination != cachedPagination) {
+            pageCache.clear();
+            cachedPagination = pagination;
+        }
+    }
+
+    /**
+     * @return The text between two character offsets, read from the chunks holding it
+     */
+    private String loadRange(ParagraphIndex index, int start, int end) {
+        StringBuilder text = new StringBuilder(end - start);
+        for (int chunk = index.chunkOfOffset(start); chunk < index.getChunkCount(); chunk++) {
+            int chunkStart = index.getCharStart(chunk);
+            if (chunkStart >= end) {
+                break;
+            }
+            String content = loadChunk(index, chunk);
+            if (content == null) {
+                break;
+            }
+            int from = Math.max(0, start - chunkStart);
+            int to = Math.min(content.length(), end - chunkStart);
+            if (from < to) {
+                text.append(content, from, to);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads where the chunks and paragraphs of a text start, for the continuous reader
+     */
+    public ParagraphIndex loadParagraphIndex(int idText) {
+        return textService.getParagraphIndex(idText);
+    }
+
+    /**
+     * Returns a paragraph without doing any work, so it can be called on the FX thread
+     * @return The prepared paragraph if it is cached and up to date with the vocabulary, or null
+     */
+    public ReaderPage getCachedParagraph(int idText, int paragraph) {
+        PageCache.Entry cached = paragraphCache.get(idText, paragraph);
+        if (cached == null || cached.getVocabularyVersion() != vocabulary.getVersion()) {
+            return null;
+        }
+        return cached.getPage();
+    }
+
+    /**
+     * Loads, tokenizes and classifies a paragraph of the continuous reader, together
+     * with the other paragraphs starting in the same chunk
+     * @param index Index of the text
+     * @param paragraph Paragraph index (0-based)
+     * @return The paragraph; empty if the text has no such paragraph
+     */
+    public synchronized ReaderPage prepareParagraph(ParagraphIndex index, int paragraph) {
+        int idText = index.getIdText();
+        long version = vocabulary.getVersion();
+        PageCache.Entry cached = paragraphCache.get(idText, paragraph);
+        if (cached == null) {
+            prepareChunk(index, index.chunkOfParagraph(paragraph), version);
+            cached = paragraphCache.get(idText, paragraph);
+            if (cached == null) {
+                return new ReaderPage(idText, paragraph, List.of());
+            }
+        }
+        if (cached.getVocabularyVersion() == version) {
+            return cached.getPage();
+        }
+        ReaderPage prepared = reclassify(cached.getPage(), wordService::findSavedWord);
+        paragraphCache.put(prepared, version);
+        return prepared;
+    }
+
+    /**
+     * Prepares the paragraphs of the chunk after the one holding a paragraph, so
+     * scrolling on reaches paragraphs that are already prepared
+     */
+    public synchronized void prefetchParagraphs(ParagraphIndex index, int paragraph) {
+        int next = index.chunkOfParagraph(paragraph) + 1;
+        if (next < index.getChunkCount() && index.getParagraphsIn(next) > 0
+                && !paragraphCache.contains(index.getIdText(), index.getFirstParagraph(next))) {
+            prepareChunk(index, next, vocabulary.getVersion());
+        }
+    }
+
+    /**
+     * @param index Index of the text
+     * @param charOffset Character offset in the text, e.g. a saved reading position
+     * @return The paragraph holding that character
+     */
+    public synchronized int findParagraph(ParagraphIndex index, int charOffset) {
+        int chunk = index.chunkOfOffset(charOffset);
+        int first = index.getFirstParagraph(chunk);
+        int found = Math.max(0, first - 1);
+        for (int paragraph = first; paragraph < first + index.getParagraphsIn(chunk); paragraph++) {
+            if (prepareParagraph(index, paragraph).getCharOffset() > charOffset) {
+                break;
+            }
+            found = paragraph;
+        }
+        return found;
+    }
+
+    /**
+     * Splits a chunk into its paragraphs and caches them. The last paragraph continues
+     * into the next chunk up to the first paragraph that starts there.
+     */
+    private void prepareChunk(ParagraphIndex index, int chunk, long version) {
+        String content = loadChunk(index, chunk);
+        if (content == null) {
+            return;
+        }
+        List<Integer> starts = paragraphStarts(index, chunk, content);
+        int first = index.getFirstParagraph(chunk);
+        int count = Math.min(starts.size(), index.getParagraphsIn(chunk));
+        for (int i = 0; i < count; i++) {
+            int start = starts.get(i);
+            String text = i + 1 < starts.size()
+                    ? content.substring(start, starts.get(i + 1))
+                    : content.substring(start) + continuation(index, chunk + 1);
+            List<ReaderToken> tokens = tokenize(text, wordService::findSavedWord);
+            paragraphCache.put(new ReaderPage(index.getIdText(), first + i, tokens,
+                    index.getCharStart(chunk) + start), version);
+        }
+    }
+
+    /**
+     * @return The text of a chunk before its first paragraph start; empty past the last chunk
+     */
+    private String continuation(ParagraphIndex index, int chunk) {
+        if (chunk >= index.getChunkCount()) {
+            return "";
+        }
+        String content = loadChunk(index, chunk);
+        if (content == null) {
+            return "";
+        }
+        List<Integer> starts = paragraphStarts(index, chunk, content);
+        return starts.isEmpty() ? content : content.substring(0, starts.get(0));
+    }
+
+    private static List<Integer> paragraphStarts(ParagraphIndex index, int chunk, String content) {
+        List<Integer> starts = TextChunker.paragraphStarts(content, true);
+        // One start more than stored: the first word continues the paragraph of the previous chunk
+        if (starts.size() > index.getParagraphsIn(chunk)) {
+            starts = starts.subList(1, starts.size());
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the content of a chunk, reading it together with the chunk after it,
+     * which the last paragraph usually continues into
+     */
+    private String loadChunk(ParagraphIndex index, int chunk) {
+        int idText = index.getIdText();
+        String content = chunkCache.get(chunkKey(idText, chunk));
+        if (content == null) {
+            Map<Integer, String> pages = textService.getPages(idText, chunk + 1, chunk + 2);
+            for (Map.Entry<Integer, String> page : pages.entrySet()) {
+                chunkCache.put(chunkKey(idText, page.getKey() - 1), page.getValue());
+            }
+            content = pages.get(chunk + 1);
+        }
+        return content;
+    }
+
+    private static long chunkKey(int idText, int chunk) {
+        return ((long) idText << 32) | (chunk & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Saves the reading position without blocking the caller. Writes that are still
+     * waiting for the same text are replaced, so quick page turns cost one write.
+     * @param page Page of the reader (1-based), or 0 if the pages are not known yet
+     * @param pageCount Pages of the reader's layout, or 0 if not known
+     * @param charOffset Character offset of the position in the text
+     */
+    public static void saveProgress(int idText, int page, int pageCount, int charOffset) {
+        pendingProgress.put(idText, new int[]{page, pageCount, charOffset});
+        if (progressScheduled.compareAndSet(false, true)) {
+            PROGRESS_WRITER.execute(ReaderService::writeProgress);
+        }
+    }
+
+    /**
+     * Waits for pending progress writes; called before the database is closed
+     */
+    public static void flushProgress() {
+        try {
+            PROGRESS_WRITER.submit(ReaderService::writeProgress).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeProgress() {
+        progressScheduled.set(false);
+        TextService textService = new TextService();
+        for (Integer idText : pendingProgress.keySet()) {
+            int[] position = pendingProgress.remove(idText);
+            if (position == null) {
+                continue;
+            }
+            textService.saveProgress(idText, position[0], position[1], position[2]);
+        }
+    }
+
+    /**
+     * Splits a page on whitespace, the same way pages are counted, and classifies every token
+     * @param idText Text id
+     * @param page Page number (1-based)
+     * @param content Page content (may be null)
+     * @param vocabulary Saved word for a normalized key, or null
+     * @return The render model of the page
+     */
+    static ReaderPage buildPage(int idText, int page, String content, Function<String, Word> vocabulary) {
+        return new ReaderPage(idText, page, tokenize(content, vocabulary));
+    }
+
+    private static List<ReaderToken> tokenize(String content, Function<String, Word> vocabulary) {
+        List<ReaderToken> tokens = new ArrayList<>();
+        if (content != null && !content.isBlank()) {
+            for (String word : content.trim().split("\\s+")) {
+                String key = WordNormalizer.normalize(word);
+                Word saved = vocabulary.apply(key);
+                tokens.add(new ReaderToken(word + " ", key, WordNormalizer.trimToWord(word),
+                        saved == null ? ReaderToken.NOT_SAVED : saved.getState()));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Updates the vocabulary states of a prepared page
+     * @return The page with current states; the same page if none changed
+     */
+    static ReaderPage reclassify(ReaderPage page, Function<String, Word> vocabulary) {
+        List<ReaderToken> tokens = new ArrayList<>(page.getTokens().size());
+        boolean changed = false;
+        for (ReaderToken token : page.getTokens()) {
+            Word saved = vocabulary.apply(token.getKey());
+            ReaderToken current = token.withState(saved == null ? ReaderToken.NOT_SAVED : saved.getState());
+            changed |= current != token;
+            tokens.add(current);
+        }
+        return changed ? new ReaderPage(page.getIdText(), page.getNumber(), tokens, page.getCharOffset()) : page;
+    }
+}
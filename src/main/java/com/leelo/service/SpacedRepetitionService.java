@@ -7,9 +7,9 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Service class implementing the core spaced repetition algorithm
@@ -178,6 +178,9 @@ public class SpacedRepetitionService {
         // Set last review date to today
         word.setLastReview(LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE));
         
+        // Keep the indexed next_review_date in step with the new state
+        word.setNextReviewDay(Word.computeNextReviewDay(word.getLastReview(), newState));
+        
         return word;
     }
     
@@ -210,12 +213,8 @@ public class SpacedRepetitionService {
      * @return List of words due for review, prioritized by learning state and overdue status
      */
     public List<Word> getWordsForReview() {
-        List<Word> dueWords = wordDAO.getWordsDueForReview();
-        
-        // Sort by priority: lower states and overdue words get higher priority
-        return dueWords.stream()
-                .sorted(Comparator.comparingInt(this::calculateReviewPriority))
-                .collect(Collectors.toList());
+        // Filtering and ordering (see calculateReviewPriority) happen in SQL on next_review_date
+        return wordDAO.getWordsDueForReview();
     }
     
     /**
@@ -224,13 +223,7 @@ public class SpacedRepetitionService {
      * @return List of prioritized words for review (up to maxWords)
      */
     public List<Word> getWordsForReview(int maxWords) {
-        List<Word> allDueWords = getWordsForReview();
-        
-        if (allDueWords.size() <= maxWords) {
-            return allDueWords;
-        }
-        
-        return allDueWords.subList(0, maxWords);
+        return wordDAO.getWordsDueForReview(maxWords);
     }
     
     /**
@@ -240,22 +233,7 @@ public class SpacedRepetitionService {
      * @return List of words from specified states that are due for review
      */
     public List<Word> getWordsForReviewByStates(int[] states, int maxWords) {
-        List<Word> filteredWords = new ArrayList<>();
-        
-        for (int state : states) {
-            List<Word> stateWords = wordDAO.getWordsByState(state);
-            // Filter to only include words that are due for review
-            List<Word> dueStateWords = stateWords.stream()
-                    .filter(Word::isDueForReview)
-                    .collect(Collectors.toList());
-            filteredWords.addAll(dueStateWords);
-        }
-        
-        // Sort by priority and limit results
-        return filteredWords.stream()
-                .sorted(Comparator.comparingInt(this::calculateReviewPriority))
-                .limit(maxWords)
-                .collect(Collectors.toList());
+        return wordDAO.getWordsDueForReviewByStates(states, maxWords);
     }
     
     /**
@@ -269,7 +247,11 @@ public class SpacedRepetitionService {
         Word updatedWord = updateWordAfterReview(word, correct);
         
         // Save updated word to database
-        return wordDAO.updateWordReviewData(updatedWord);
+        boolean ok = wordDAO.updateWordReviewData(updatedWord);
+        if (ok) {
+            VocabularyCache.getInstance().put(updatedWord);
+        }
+        return ok;
     }
     
     /**
@@ -285,7 +267,13 @@ public class SpacedRepetitionService {
             updatedWords.add(updatedWord);
         }
         
-        return wordDAO.updateWordReviewDataBatch(updatedWords);
+        boolean ok = wordDAO.updateWordReviewDataBatch(updatedWords);
+        if (ok) {
+            for (Word word : updatedWords) {
+                VocabularyCache.getInstance().put(word);
+            }
+        }
+        return ok;
     }
     
     /**
@@ -293,28 +281,19 @@ public class SpacedRepetitionService {
      * @return List of words that should be prioritized for review
      */
     public List<Word> getHighPriorityWords() {
-        List<Word> allWords = wordDAO.listAll();
-        
-        return allWords.stream()
-                .filter(word -> word.getState() == 0 || 
-                               (word.isDueForReview() && word.getDaysUntilNextReview() < 0))
-                .sorted(Comparator.comparingInt(this::calculateReviewPriority))
-                .collect(Collectors.toList());
+        return wordDAO.getHighPriorityWords();
     }
     
     /**
      * Gets the count of words due for review by learning state
      * @return Map with state as key and count of due words as value
      */
-    public java.util.Map<Integer, Integer> getDueWordCountByState() {
-        java.util.Map<Integer, Integer> counts = new java.util.HashMap<>();
+    public Map<Integer, Integer> getDueWordCountByState() {
+        Map<Integer, Integer> dueCounts = wordDAO.getDueWordCountByState();
+        Map<Integer, Integer> counts = new HashMap<>();
         
         for (int state = 0; state <= MAX_STATE; state++) {
-            List<Word> stateWords = wordDAO.getWordsByState(state);
-            long dueCount = stateWords.stream()
-                    .filter(Word::isDueForReview)
-                    .count();
-            counts.put(state, (int) dueCount);
+            counts.put(state, dueCounts.getOrDefault(state, 0));
         }
         
         return counts;
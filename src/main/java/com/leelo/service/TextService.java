@@ -1,16 +1,73 @@
 package com.leelo.service;
 
 import com.leelo.dao.TextDAO;
+import com.leelo.model.ImportResult;
+import com.leelo.model.ParagraphIndex;
+import com.leelo.model.ReadingPosition;
+import com.leelo.model.TextSearchHit;
+import com.leelo.model.TextSummary;
 import com.leelo.model.Texts;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class TextService {
+
+    /**
+     * Files larger than this are cleaned and stored page by page while they are read,
+     * with {@link #importText(Texts, TextDAO.BodyWriter)}, instead of being held in memory
+     */
+    public static final long STREAMED_IMPORT_BYTES = 16L * 1024 * 1024;
+
     private TextDAO TextDAO = new TextDAO();
 
     public boolean addText(Texts text) {
         return TextDAO.insertText(text);
     }
 
+    /**
+     * Splits and encodes a text for {@link #addPreparedTexts(List)}; safe to call from worker threads
+     */
+    public TextDAO.PreparedText prepareText(Texts text) {
+        return TextDAO.prepare(text);
+    }
+
+    /**
+     * Stores several prepared texts in one transaction
+     */
+    public boolean addPreparedTexts(List<TextDAO.PreparedText> texts) {
+        return TextDAO.insertPrepared(texts);
+    }
+
+    /**
+     * Stores a text whose body is written page by page instead of held in memory
+     */
+    public ImportResult importText(Texts text, TextDAO.BodyWriter body) {
+        return TextDAO.insertText(text, body);
+    }
+
+    /**
+     * Writes and encodes the pages of a streamed body into a temporary file for
+     * {@link #addSpooledText(TextDAO.SpooledText)}; safe to call from worker threads
+     */
+    public TextDAO.SpooledText spoolText(Texts text, TextDAO.BodyWriter body) throws IOException {
+        return TextDAO.spool(text, body);
+    }
+
+    /**
+     * Stores a spooled text; the caller still closes it
+     */
+    public ImportResult addSpooledText(TextDAO.SpooledText spooled) {
+        return TextDAO.insertSpooled(spooled);
+    }
+
+    /**
+     * @return Id of a stored text with the given content hash, or 0
+     */
+    public int findTextIdByContentHash(String contentHash) {
+        return TextDAO.findTextIdByContentHash(contentHash);
+    }
+
     public boolean savePage(int id_text , int page ){
         return TextDAO.saveProgress(id_text , page); 
     }
@@ -23,8 +80,43 @@ public class TextService {
         return TextDAO.getPage(id_book); 
     } 
 
-    public List<Texts> listAllTexts() {
-        return TextDAO.listAll();
+    /**
+     * Saves the reader's position with the page count of its layout
+     */
+    public boolean saveProgress(int idText, int page, int pageTotal, int charOffset) {
+        return TextDAO.saveProgress(idText, page, pageTotal, charOffset);
+    }
+
+    public ReadingPosition getReadingPosition(int idText) {
+        return TextDAO.getReadingPosition(idText);
+    }
+
+    public int getCharOffset(int idText) {
+        return TextDAO.getCharOffset(idText);
+    }
+
+    public ParagraphIndex getParagraphIndex(int idText) {
+        return TextDAO.getParagraphIndex(idText);
+    }
+
+    public List<TextSummary> listTextSummaries() {
+        return TextDAO.listSummaries();
+    }
+
+    public TextSummary getNewestTextSummary() {
+        return TextDAO.getNewestSummary();
+    }
+
+    public Texts getText(int idText) {
+        return TextDAO.getText(idText);
+    }
+
+    public Map<Integer, String> getPages(int idText, int firstPage, int lastPage) {
+        return TextDAO.getPages(idText, firstPage, lastPage);
+    }
+
+    public List<TextSearchHit> searchTexts(String query, int limit) {
+        return TextDAO.searchPages(query, limit);
     }
 
     public boolean deleteText(int idText) {
@@ -35,7 +127,7 @@ public class TextService {
         return TextDAO.updateText(text);
     }
     
-    public Texts getLastReadBook() {
-        return TextDAO.getLastReadBook();
+    public TextSummary getLastReadBook() {
+        return TextDAO.getLastReadSummary();
     }
 } 
@@ -0,0 +1,324 @@
+package com.leelo.service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Downloads web pages for import. Every request runs on a virtual thread with a timeout;
+ * the number of requests in flight is bounded overall and per host, and responses are
+ * kept in an {@link HttpDiskCache} and revalidated with ETag / Last-Modified, so fetching
+ * an article again costs a 304 instead of the whole page.
+ */
+public class UrlFetchService {
+
+    /**
+     * Requests in flight at the same time, over all hosts
+     */
+    public static final int MAX_CONCURRENT = 8;
+
+    /**
+     * Where a fetched body came from
+     */
+    public enum Source {
+        /** Downloaded */
+        NETWORK,
+        /** Revalidated with a 304; the cached body is current */
+        NOT_MODIFIED,
+        /** The request failed and an older cached body is returned */
+        STALE
+    }
+
+    /**
+     * Outcome of one URL
+     */
+    public static final class FetchResult {
+        private final URI uri;
+        private final int statusCode;
+        private final byte[] body;
+        private final String contentType;
+        private final Source source;
+        private final String error;
+
+        FetchResult(URI uri, int statusCode, byte[] body, String contentType, Source source, String error) {
+            this.uri = uri;
+            this.statusCode = statusCode;
+            this.body = body;
+            this.contentType = contentType;
+            this.source = source;
+            this.error = error;
+        }
+
+        static FetchResult failed(URI uri, int statusCode, String error) {
+            return new FetchResult(uri, statusCode, null, null, null, error);
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+
+        /**
+         * @return HTTP status of the last response, or 0 if no response arrived
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return true if a body is available
+         */
+        public boolean isOk() {
+            return body != null;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return Where the body came from, or null if there is none
+         */
+        public Source getSource() {
+            return source;
+        }
+
+        /**
+         * @return Reason the request failed, or null; set for stale bodies too
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Parses the body as HTML. The charset is taken from the Content-Type header or,
+         * failing that, detected by Jsoup from the page itself.
+         * @throws IOException if there is no body
+         */
+        public Document parse() throws IOException {
+            if (body == null) {
+                throw new IOException(error != null ? error : "No content for " + uri);
+            }
+            return Jsoup.parse(new ByteArrayInputStream(body), charsetOf(contentType), uri.toString());
+        }
+
+        @Override
+        public String toString() {
+            return uri + ": " + (isOk() ? source : "failed") + (error != null ? " (" + error + ")" : "");
+        }
+    }
+
+    /**
+     * Receives progress from {@link #fetchAll(List, Listener, BooleanSupplier)}
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called once per URL, from the thread that fetched it
+         * @param result Outcome of the URL
+         * @param done URLs finished so far
+         * @param total URLs in the batch
+         */
+        void fetched(FetchResult result, int done, int total);
+    }
+
+    private final HttpClient client;
+    private final HttpDiskCache cache;
+    private final Duration timeout;
+    private final int maxPerHost;
+    private final Semaphore permits;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Uses the cache directory, per-host limit and timeout configured as fetch.*
+     */
+    public UrlFetchService() {
+        this(new HttpDiskCache(Paths.get(AppConfig.get().getFetchCacheDir()), AppConfig.get().getFetchCacheMaxBytes()),
+                MAX_CONCURRENT, AppConfig.get().getFetchMaxPerHost(),
+                Duration.ofMillis(AppConfig.get().getFetchTimeoutMillis()));
+    }
+
+    /**
+     * @param cache Response cache, or null to always download
+     * @param maxConcurrent Requests in flight over all hosts
+     * @param maxPerHost Requests in flight to the same host
+     * @param timeout Connect timeout, and time allowed for each response
+     */
+    public UrlFetchService(HttpDiskCache cache, int maxConcurrent, int maxPerHost, Duration timeout) {
+        this.cache = cache;
+        this.timeout = timeout;
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Parses a URL typed by the user; "https://" is assumed when no scheme is given
+     * @throws IllegalArgumentException if it is not an http(s) URL
+     */
+    public static URI toUri(String url) {
+        String trimmed = url.trim();
+        if (!trimmed.contains("://")) {
+            trimmed = "https://" + trimmed;
+        }
+        URI uri = URI.create(trimmed);
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https") || uri.getHost() == null) {
+            throw new IllegalArgumentException("URL no válida: " + url);
+        }
+        return uri;
+    }
+
+    /**
+     * Fetches one URL, blocking the calling thread; never call it on the FX thread
+     * @param uri http(s) URL
+     * @return The body, or the reason it could not be fetched
+     */
+    public FetchResult fetch(URI uri) {
+        return fetch(uri, () -> false);
+    }
+
+    private FetchResult fetch(URI uri, BooleanSupplier cancelled) {
+        Semaphore host = hostPermits.computeIfAbsent(hostKey(uri), key -> new Semaphore(maxPerHost));
+        try {
+            // Host first: waiting for a busy host must not hold one of the global permits
+            host.acquire();
+            try {
+                permits.acquire();
+                try {
+                    // Checked again after waiting for a permit, which may take a while
+                    if (cancelled.getAsBoolean()) {
+                        return FetchResult.failed(uri, 0, "cancelled");
+                    }
+                    return request(uri);
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                host.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FetchResult.failed(uri, 0, "cancelled");
+        }
+    }
+
+    /**
+     * Fetches many URLs at once, each on its own virtual thread, within the concurrency limits
+     * @param uris URLs to fetch
+     * @param listener Progress receiver; may be called from several threads at once
+     * @param cancelled Checked before each request; URLs not started yet fail as cancelled
+     * @return One result per URL, in the order of uris
+     */
+    public List<FetchResult> fetchAll(List<URI> uris, Listener listener, BooleanSupplier cancelled) {
+        FetchResult[] results = new FetchResult[uris.size()];
+        AtomicInteger done = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < results.length; i++) {
+                int index = i;
+                URI uri = uris.get(i);
+                executor.execute(() -> {
+                    FetchResult result = fetch(uri, cancelled);
+                    results[index] = result;
+                    listener.fetched(result, done.incrementAndGet(), results.length);
+                });
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private FetchResult request(URI uri) throws InterruptedException {
+        HttpDiskCache.Entry cached = cache != null ? cache.get(uri) : null;
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("User-Agent", "Leelo")
+                .header("Accept", "text/html,application/xhtml+xml,text/plain;q=0.9,*/*;q=0.8")
+                .GET();
+        if (cached != null && cached.getEtag() != null) {
+            builder.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            builder.header("If-Modified-Since", cached.getLastModified());
+        }
+
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return cached != null
+                    ? new FetchResult(uri, 0, cached.getBody(), cached.getContentType(), Source.STALE, error)
+                    : FetchResult.failed(uri, 0, error);
+        }
+
+        int status = response.statusCode();
+        if (status == 304 && cached != null) {
+            return new FetchResult(uri, status, cached.getBody(), cached.getContentType(), Source.NOT_MODIFIED, null);
+        }
+        if (status < 200 || status >= 300) {
+            return cached != null && status >= 500
+                    ? new FetchResult(uri, status, cached.getBody(), cached.getContentType(), Source.STALE, "HTTP " + status)
+                    : FetchResult.failed(uri, status, "HTTP " + status);
+        }
+
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        if (cache != null) {
+            cache.put(uri, new HttpDiskCache.Entry(
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null),
+                    contentType, response.body()));
+        }
+        return new FetchResult(uri, status, response.body(), contentType, Source.NETWORK, null);
+    }
+
+    private static String hostKey(URI uri) {
+        return uri.getHost().toLowerCase(Locale.ROOT) + ":" + uri.getPort();
+    }
+
+    /**
+     * @return The charset parameter of a Content-Type header, or null
+     */
+    static String charsetOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String[] pair = parameter.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                String charset = pair[1].trim().replace("\"", "");
+                try {
+                    return Charset.isSupported(charset) ? charset : null;
+                } catch (IllegalCharsetNameException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,211 @@
+package com.leelo.service;
+
+import com.leelo.dao.WordDAO;
+import com.leelo.model.Word;
+import com.leelo.util.WordNormalizer;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide index of the saved vocabulary by normalized term, used by the reader
+ * to color every token. Loaded from the database on first use and then kept current by
+ * WordService and SpacedRepetitionService, so page turns never query the words table.
+ *
+ * When several saved words normalize to the same key, the one with the highest id wins,
+ * as it did when the reader rebuilt its map from WordService.listWords().
+ *
+ * Every change is announced to the registered listeners with the keys it affects, so
+ * the reader can recolor just those words.
+ */
+public class VocabularyCache {
+
+    /**
+     * Notified after the vocabulary changed, on the thread that changed it
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param keys Normalized keys whose saved word may be different now,
+         *             or null if the whole vocabulary was dropped
+         */
+        void vocabularyChanged(Set<String> keys);
+    }
+
+    private static final VocabularyCache INSTANCE = new VocabularyCache(new WordDAO());
+
+    private final WordDAO wordDAO;
+    private final Map<String, Word> byTerm = new ConcurrentHashMap<>();
+    private final Map<Integer, Word> byId = new HashMap<>();
+    private final Map<Integer, String> keyById = new HashMap<>();
+    private volatile boolean loaded;
+    // Bumped on every change, so prepared reader pages can tell they are out of date
+    private final AtomicLong version = new AtomicLong();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    VocabularyCache(WordDAO wordDAO) {
+        this.wordDAO = wordDAO;
+    }
+
+    public static VocabularyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Looks up a saved word by its normalized form
+     * @param normalizedTerm Key produced by WordNormalizer.normalize
+     * @return The saved word, or null if the word is not in the vocabulary
+     */
+    public Word lookup(String normalizedTerm) {
+        ensureLoaded();
+        return byTerm.get(normalizedTerm);
+    }
+
+    /**
+     * @return A number that changes whenever a word is added, updated or removed
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return Number of saved words in the cache
+     */
+    public synchronized int size() {
+        ensureLoaded();
+        return byId.size();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a newly saved word or replaces the cached copy of an updated one
+     * @param word Word with its database id set
+     */
+    public void put(Word word) {
+        Set<String> keys = new LinkedHashSet<>();
+        synchronized (this) {
+            if (!loaded) {
+                // The full load will include this word
+                return;
+            }
+            // An edited term leaves its old key as well
+            String oldKey = removeKey(word.getIdTerm());
+            if (oldKey != null) {
+                keys.add(oldKey);
+            }
+            keys.add(index(word));
+            version.incrementAndGet();
+        }
+        fireChanged(keys);
+    }
+
+    /**
+     * Removes a deleted word
+     * @param idTerm Id of the deleted word
+     */
+    public void remove(int idTerm) {
+        String key;
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            key = removeKey(idTerm);
+            byId.remove(idTerm);
+            version.incrementAndGet();
+        }
+        if (key != null) {
+            fireChanged(Set.of(key));
+        }
+    }
+
+    /**
+     * Drops the cached vocabulary; it is reloaded on the next lookup
+     */
+    public void invalidate() {
+        synchronized (this) {
+            loaded = false;
+            byTerm.clear();
+            byId.clear();
+            keyById.clear();
+            version.incrementAndGet();
+        }
+        fireChanged(null);
+    }
+
+    private void fireChanged(Set<String> keys) {
+        Set<String> changed = keys == null ? null : Set.copyOf(keys);
+        for (Listener listener : listeners) {
+            listener.vocabularyChanged(changed);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    for (Word word : wordDAO.listAll()) {
+                        index(word);
+                    }
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The key of the word
+     */
+    private String index(Word word) {
+        // Uncached: a full vocabulary load would only flush the memo used by the reader
+        String key = WordNormalizer.normalizeUncached(word.getTerm());
+        byId.put(word.getIdTerm(), word);
+        keyById.put(word.getIdTerm(), key);
+        Word current = byTerm.get(key);
+        if (current == null || current.getIdTerm() <= word.getIdTerm()) {
+            byTerm.put(key, word);
+        }
+        return key;
+    }
+
+    /**
+     * Unlinks a word from its current key, handing the key to the next saved word
+     * with the same normalized form if there is one
+     * @return The key the word had, or null if it was not cached
+     */
+    private String removeKey(int idTerm) {
+        String key = keyById.remove(idTerm);
+        if (key == null) {
+            return null;
+        }
+        Word current = byTerm.get(key);
+        if (current == null || current.getIdTerm() != idTerm) {
+            return key;
+        }
+        Word replacement = null;
+        for (Map.Entry<Integer, String> entry : keyById.entrySet()) {
+            if (entry.getValue().equals(key)
+                    && (replacement == null || entry.getKey() > replacement.getIdTerm())) {
+                replacement = byId.get(entry.getKey());
+            }
+        }
+        if (replacement != null) {
+            byTerm.put(key, replacement);
+        } else {
+            byTerm.remove(key);
+        }
+        return key;
+    }
+}
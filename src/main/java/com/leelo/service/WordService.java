@@ -6,9 +6,14 @@ import java.util.List;
 
 public class WordService {
     private WordDAO WordDAO = new WordDAO();
+    private VocabularyCache vocabulary = VocabularyCache.getInstance();
 
     public boolean addWord(Word word) {
-        return WordDAO.insertWord(word);
+        boolean ok = WordDAO.insertWord(word);
+        if (ok) {
+            vocabulary.put(word);
+        }
+        return ok;
     }
 
     public List<Word> listWords() {
@@ -16,10 +21,27 @@ public class WordService {
     }
 
     public boolean updateWord(Word word) {
-        return WordDAO.updateWord(word);
+        boolean ok = WordDAO.updateWord(word);
+        if (ok) {
+            vocabulary.put(word);
+        }
+        return ok;
     }
 
     public boolean deleteWord(int idTerm) {
-        return WordDAO.deleteWord(idTerm);
+        boolean ok = WordDAO.deleteWord(idTerm);
+        if (ok) {
+            vocabulary.remove(idTerm);
+        }
+        return ok;
+    }
+
+    /**
+     * Finds a saved word by its normalized form without querying the database
+     * @param normalizedTerm Key produced by WordNormalizer.normalize
+     * @return The saved word, or null if it is not in the vocabulary
+     */
+    public Word findSavedWord(String normalizedTerm) {
+        return vocabulary.lookup(normalizedTerm);
     }
 } 
\ No newline at end of file
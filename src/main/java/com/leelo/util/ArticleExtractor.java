@@ -0,0 +1,384 @@
+package com.leelo.util;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the main content of a web article, leaving out navigation, sidebars,
+ * footers, comments and ads. Works like the Readability algorithm:
+ * <ol>
+ *   <li>Elements that never hold article text (scripts, forms, navigation) are removed,
+ *       and so are blocks whose class or id looks like boilerplate ("sidebar", "comment").</li>
+ *   <li>Every paragraph with enough text adds a score, based on its length and commas,
+ *       to its parent and, halved, to its grandparent.</li>
+ *   <li>The block with the best score, scaled down by its link density, is the article;
+ *       siblings that score close to it or read like prose are kept with it.</li>
+ *   <li>Lists, tables and blocks inside the article that look like link lists or
+ *       info boxes rather than prose are dropped.</li>
+ * </ol>
+ * The result keeps paragraph breaks as blank lines. When no block qualifies the text of
+ * the whole (cleaned up) body is returned.
+ */
+public class ArticleExtractor {
+
+    /**
+     * Articles shorter than this are treated as a failed extraction
+     */
+    static final int MIN_ARTICLE_CHARS = 250;
+
+    /**
+     * Paragraphs shorter than this do not vote for their ancestors
+     */
+    private static final int MIN_PARAGRAPH_CHARS = 25;
+
+    private static final Set<String> REMOVED_TAGS = Set.of(
+            "script", "style", "noscript", "template", "iframe", "object", "embed", "canvas", "svg",
+            "form", "button", "input", "select", "textarea", "nav", "aside", "footer", "dialog", "menu");
+
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "p", "div", "section", "article", "main", "header", "h1", "h2", "h3", "h4", "h5", "h6",
+            "ul", "ol", "li", "dl", "dt", "dd", "blockquote", "pre", "table", "tr", "figure",
+            "figcaption", "hr", "address", "details", "summary");
+
+    private static final Set<String> PARAGRAPH_TAGS = Set.of("p", "pre", "td", "blockquote");
+
+    private static final Pattern UNLIKELY = Pattern.compile(
+            "-ad-|\\bads?\\b|banner|breadcrumb|combx|comment|community|cookie|disqus|extra|foot|gdpr|header|"
+                    + "legends|menu|masthead|newsletter|pagination|pager|popup|promo|related|remark|replies|"
+                    + "rss|share|shoutbox|sidebar|skyscraper|social|sponsor|subscribe|supplemental|"
+                    + "toolbar|trending|widget|most-read|editsection|\\breferences?\\b|catlinks|"
+                    + "comentario|compartir|publicidad|relacionad|mas-leido",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern MAYBE_CANDIDATE = Pattern.compile(
+            "and|article|body|column|content|main|shadow", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern POSITIVE = Pattern.compile(
+            "article|body|content|entry|hentry|h-entry|main|page|post|text|blog|story|cuerpo|nota",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern NEGATIVE = Pattern.compile(
+            "hidden|banner|combx|comment|com-|contact|foot|footnote|gdpr|masthead|media|meta|outbrain|"
+                    + "promo|related|scroll|share|shoutbox|sidebar|skyscraper|sponsor|shopping|tags|tool|"
+                    + "widget|cookie|newsletter|subscribe|nav|menu|\\btoc\\b|infobox|navbox|comentario|publicidad",
+            Pattern.CASE_INSENSITIVE);
+
+    private ArticleExtractor() {
+    }
+
+    /**
+     * @param document Parsed page; it is not modified
+     * @return The article text with paragraphs separated by blank lines; empty if the page has no text
+     */
+    public static String extract(Document document) {
+        Element body = document.clone().body();
+        if (body == null) {
+            return "";
+        }
+        prune(body);
+
+        Map<Element, Double> scores = new IdentityHashMap<>();
+        for (Element paragraph : body.getAllElements()) {
+            if (!isParagraph(paragraph)) {
+                continue;
+            }
+            String text = paragraph.text();
+            if (text.length() < MIN_PARAGRAPH_CHARS) {
+                continue;
+            }
+            double score = 1 + count(text, ',') + Math.min(text.length() / 100, 3);
+            Element parent = paragraph.parent();
+            if (parent != null) {
+                scores.merge(parent, score, Double::sum);
+                Element grandparent = parent.parent();
+                if (grandparent != null) {
+                    scores.merge(grandparent, score / 2, Double::sum);
+                }
+            }
+        }
+
+        Element top = null;
+        double topScore = 0;
+        for (Map.Entry<Element, Double> entry : scores.entrySet()) {
+            Element candidate = entry.getKey();
+            double score = (entry.getValue() + baseScore(candidate)) * (1 - linkDensity(candidate));
+            entry.setValue(score);
+            if (score > topScore) {
+                top = candidate;
+                topScore = score;
+            }
+        }
+        if (top == null) {
+            return format(List.of(body));
+        }
+
+        List<Element> content = withSiblings(top, topScore, scores);
+        for (Element element : content) {
+            cleanConditionally(element, scores);
+        }
+        String article = format(content);
+        if (article.length() < MIN_ARTICLE_CHARS) {
+            String whole = format(List.of(body));
+            return whole.length() > article.length() ? whole : article;
+        }
+        return article;
+    }
+
+    /**
+     * Removes elements that never hold article text and blocks named like boilerplate
+     */
+    private static void prune(Element body) {
+        List<Element> remove = new ArrayList<>();
+        for (Element element : body.getAllElements()) {
+            if (element == body) {
+                continue;
+            }
+            String tag = element.normalName();
+            if (REMOVED_TAGS.contains(tag)
+                    || tag.equals("header") && element.closest("article, main") == null
+                    || element.hasAttr("hidden")
+                    || "true".equals(element.attr("aria-hidden"))
+                    || element.attr("style").replace(" ", "").contains("display:none")) {
+                remove.add(element);
+                continue;
+            }
+            if (tag.equals("article") || tag.equals("main")) {
+                continue;
+            }
+            String names = element.className() + " " + element.id();
+            if (names.isBlank()) {
+                continue;
+            }
+            if (UNLIKELY.matcher(names).find() && !MAYBE_CANDIDATE.matcher(names).find()) {
+                remove.add(element);
+            }
+        }
+        // Removing a parent detaches its children as well
+        for (Element element : remove) {
+            element.remove();
+        }
+    }
+
+    /**
+     * Drops the lists, tables and divs of the article that are unlikely to be prose:
+     * blocks named like boilerplate without paragraphs voting for them, and blocks with
+     * few commas that are mostly links
+     */
+    private static void cleanConditionally(Element root, Map<Element, Double> scores) {
+        List<Element> blocks = root.select("table, ul, ol, div");
+        // Innermost first, so a removed child no longer counts for its parent
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            Element block = blocks.get(i);
+            if (block == root || block.parent() == null) {
+                continue;
+            }
+            double weight = classWeight(block);
+            if (weight + scores.getOrDefault(block, 0.0) < 0) {
+                block.remove();
+                continue;
+            }
+            String text = block.text();
+            if (count(text, ',') >= 10) {
+                continue;
+            }
+            boolean list = block.normalName().equals("ul") || block.normalName().equals("ol");
+            double density = linkDensity(block);
+            if (list && density > 0.5
+                    || weight < 25 && density > 0.2
+                    || weight >= 25 && density > 0.5) {
+                block.remove();
+            }
+        }
+    }
+
+    /**
+     * A paragraph tag, or a block holding only inline content (text laid out with divs and br)
+     */
+    private static boolean isParagraph(Element element) {
+        String tag = element.normalName();
+        if (PARAGRAPH_TAGS.contains(tag)) {
+            return true;
+        }
+        if (!tag.equals("div") && !tag.equals("section") && !tag.equals("span")) {
+            return false;
+        }
+        if (tag.equals("span") && element.parent() != null && isParagraph(element.parent())) {
+            return false;
+        }
+        for (Element child : element.children()) {
+            if (BLOCK_TAGS.contains(child.normalName())) {
+                return false;
+            }
+        }
+        return element.hasText();
+    }
+
+    private static double baseScore(Element element) {
+        double score = switch (element.normalName()) {
+            case "article", "main" -> 10;
+            case "div" -> 5;
+            case "pre", "td", "blockquote" -> 3;
+            case "address", "ol", "ul", "dl", "dd", "dt", "li", "form" -> -3;
+            case "h1", "h2", "h3", "h4", "h5", "h6", "th" -> -5;
+            default -> 0;
+        };
+        return score + classWeight(element);
+    }
+
+    private static double classWeight(Element element) {
+        double weight = 0;
+        for (String name : new String[]{element.className(), element.id()}) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (NEGATIVE.matcher(name).find()) {
+                weight -= 25;
+            }
+            if (POSITIVE.matcher(name).find()) {
+                weight += 25;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @return Share of the text of an element that is link text
+     */
+    static double linkDensity(Element element) {
+        int length = element.text().length();
+        if (length == 0) {
+            return 0;
+        }
+        int linkLength = 0;
+        for (Element link : element.select("a")) {
+            linkLength += link.text().length();
+        }
+        return Math.min(1, (double) linkLength / length);
+    }
+
+    /**
+     * The top candidate together with the siblings that belong to the same article,
+     * such as a lead paragraph or a second content column
+     */
+    private static List<Element> withSiblings(Element top, double topScore, Map<Element, Double> scores) {
+        Element parent = top.parent();
+        if (parent == null) {
+            return List.of(top);
+        }
+        double threshold = Math.max(10, topScore * 0.2);
+        List<Element> kept = new ArrayList<>();
+        for (Element sibling : parent.children()) {
+            if (sibling == top) {
+                kept.add(sibling);
+                continue;
+            }
+            double bonus = !top.className().isEmpty() && top.className().equals(sibling.className())
+                    ? topScore * 0.2 : 0;
+            Double score = scores.get(sibling);
+            if (score != null && score + bonus >= threshold) {
+                kept.add(sibling);
+            } else if (sibling.normalName().equals("p")) {
+                String text = sibling.text();
+                double density = linkDensity(sibling);
+                if (text.length() > 80 && density < 0.25
+                        || !text.isEmpty() && density == 0 && (text.endsWith(".") || text.contains(". "))) {
+                    kept.add(sibling);
+                }
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Renders elements as plain text, one paragraph per block separated by blank lines
+     */
+    static String format(List<Element> elements) {
+        List<String> paragraphs = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        NodeVisitor visitor = new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof TextNode textNode) {
+                    appendText(current, textNode);
+                } else if (node instanceof Element element) {
+                    String tag = element.normalName();
+                    if (tag.equals("br")) {
+                        trimEnd(current);
+                        current.append('\n');
+                    } else if (tag.equals("td") || tag.equals("th")) {
+                        appendSpace(current);
+                    } else if (BLOCK_TAGS.contains(tag)) {
+                        flush(current, paragraphs);
+                    }
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                if (node instanceof Element element && BLOCK_TAGS.contains(element.normalName())) {
+                    flush(current, paragraphs);
+                }
+            }
+        };
+        for (Element element : elements) {
+            element.traverse(visitor);
+            flush(current, paragraphs);
+        }
+        return String.join("\n\n", paragraphs);
+    }
+
+    private static void appendText(StringBuilder current, TextNode node) {
+        if (node.parent() instanceof Element parent && parent.closest("pre") != null) {
+            current.append(node.getWholeText());
+            return;
+        }
+        String text = node.text();
+        if (text.isEmpty()) {
+            return;
+        }
+        if (text.charAt(0) == ' ' && (current.isEmpty() || Character.isWhitespace(current.charAt(current.length() - 1)))) {
+            text = text.substring(1);
+        }
+        current.append(text);
+    }
+
+    private static void appendSpace(StringBuilder current) {
+        if (!current.isEmpty() && !Character.isWhitespace(current.charAt(current.length() - 1))) {
+            current.append(' ');
+        }
+    }
+
+    private static void trimEnd(StringBuilder current) {
+        while (!current.isEmpty() && current.charAt(current.length() - 1) == ' ') {
+            current.setLength(current.length() - 1);
+        }
+    }
+
+    private static void flush(StringBuilder current, List<String> paragraphs) {
+        String paragraph = current.toString().strip();
+        if (!paragraph.isEmpty()) {
+            paragraphs.add(paragraph);
+        }
+        current.setLength(0);
+    }
+
+    private static int count(String text, char c) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,108 @@
+package com.leelo.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Incremental SHA-256 fingerprint of a text, fed in pieces as it streams past.
+ * Feeding the pieces of a text gives the same hash as {@link #of(String)} on the
+ * whole text, wherever the pieces are split.
+ */
+public class ContentHash {
+
+    private final MessageDigest digest;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+    // A high surrogate that ended the previous piece
+    private char pendingHigh;
+
+    public ContentHash() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Hashes a whole text
+     * @param text The text (null hashes like an empty text)
+     * @return Lowercase hex SHA-256 of the UTF-8 encoded text
+     */
+    public static String of(String text) {
+        ContentHash hash = new ContentHash();
+        if (text != null) {
+            hash.update(text);
+        }
+        return hash.hex();
+    }
+
+    /**
+     * Adds the next piece of the text
+     * @param text Piece to add
+     * @return this hash
+     */
+    public ContentHash update(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        if (end == 0) {
+            return this;
+        }
+        if (pendingHigh != 0) {
+            if (Character.isLowSurrogate(text.charAt(0))) {
+                encode(CharBuffer.wrap(new char[]{pendingHigh, text.charAt(0)}));
+                start = 1;
+            } else {
+                encode(CharBuffer.wrap(new char[]{pendingHigh}));
+            }
+            pendingHigh = 0;
+        }
+        if (end > start && Character.isHighSurrogate(text.charAt(end - 1))) {
+            // Keep it until the next piece shows whether a low surrogate follows
+            pendingHigh = text.charAt(end - 1);
+            end--;
+        }
+        encode(CharBuffer.wrap(text, start, end));
+        return this;
+    }
+
+    /**
+     * Encodes a complete piece; lone surrogates become '?' like in String.getBytes
+     */
+    private void encode(CharBuffer in) {
+        encoder.reset();
+        while (encoder.encode(in, bytes, true).isOverflow()) {
+            drain();
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    private void drain() {
+        bytes.flip();
+        digest.update(bytes);
+        bytes.clear();
+    }
+
+    /**
+     * Finishes the hash; the object must not be used afterwards
+     * @return Lowercase hex SHA-256 of everything added
+     */
+    public String hex() {
+        if (pendingHigh != 0) {
+            encode(CharBuffer.wrap(new char[]{pendingHigh}));
+            pendingHigh = 0;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
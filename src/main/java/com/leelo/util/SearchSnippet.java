@@ -0,0 +1,81 @@
+package com.leelo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the snippet shown for a full-text search hit from the text of the page, since
+ * the search index keeps no copy of the pages. Words are compared the way the index
+ * compares them, ignoring case and accents, and the last term of the query also
+ * matches as a prefix.
+ */
+public final class SearchSnippet {
+
+    private SearchSnippet() {
+    }
+
+    /**
+     * @param page Text of the matching page
+     * @param query Words typed by the user
+     * @param words Words in the snippet
+     * @return Up to that many words around the first match, matches in [brackets] and
+     * '…' where the page was cut; the start of the page if no word matches
+     */
+    public static String build(String page, String query, int words) {
+        if (page == null || page.isBlank()) {
+            return "";
+        }
+        List<String> terms = new ArrayList<>();
+        if (query != null) {
+            for (String term : query.trim().split("\\s+")) {
+                String normalized = WordNormalizer.normalize(term);
+                if (!normalized.isEmpty()) {
+                    terms.add(normalized);
+                }
+            }
+        }
+        String[] tokens = page.trim().split("\\s+");
+        boolean[] matches = new boolean[tokens.length];
+        int first = -1;
+        for (int i = 0; i < tokens.length; i++) {
+            matches[i] = matches(WordNormalizer.normalize(tokens[i]), terms);
+            if (matches[i] && first < 0) {
+                first = i;
+            }
+        }
+        // The first match a few words into the snippet, so it reads with some context
+        int start = first < 0 ? 0 : Math.max(0, Math.min(first - words / 4, tokens.length - words));
+        int end = Math.min(tokens.length, start + words);
+        StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append('…');
+        }
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                snippet.append(' ');
+            }
+            if (matches[i]) {
+                snippet.append('[').append(tokens[i]).append(']');
+            } else {
+                snippet.append(tokens[i]);
+            }
+        }
+        if (end < tokens.length) {
+            snippet.append('…');
+        }
+        return snippet.toString();
+    }
+
+    private static boolean matches(String word, List<String> terms) {
+        if (word.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (i == terms.size() - 1 ? word.startsWith(term) : word.equals(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,195 @@
+package com.leelo.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TextChunker {
+
+    /**
+     * Splits a text into chunks of a fixed number of words. Every chunk is an exact
+     * substring of the input: it starts at the first character of its first word and
+     * keeps the whitespace that follows its last word, so concatenating the chunks in
+     * order gives back the original text. Whitespace before the first word belongs to
+     * the first chunk.
+     *
+     * Words are separated by the characters of the regex class \s, the same rule the
+     * reader uses when it splits a page.
+     *
+     * @param text The text to split (may be null).
+     * @param wordsPerChunk Number of words per chunk; the last chunk may hold fewer.
+     * @return The chunks in order; empty for a null or empty text.
+     */
+    public static List<String> chunk(String text, int wordsPerChunk) {
+        if (wordsPerChunk < 1) {
+            throw new IllegalArgumentException("wordsPerChunk must be positive");
+        }
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return chunks;
+        }
+
+        int chunkStart = 0;
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean space = isSpace(text.charAt(i));
+            if (!space && !inWord) {
+                // A word starts here; close the current chunk if it is full
+                if (words == wordsPerChunk) {
+                    chunks.add(text.substring(chunkStart, i));
+                    chunkStart = i;
+                    words = 0;
+                }
+                words++;
+            }
+            inWord = !space;
+        }
+        chunks.add(text.substring(chunkStart));
+        return chunks;
+    }
+
+    /**
+     * Receives the chunks produced by a {@link PageWriter}
+     */
+    @FunctionalInterface
+    public interface PageSink {
+        void accept(int index, String page) throws IOException;
+    }
+
+    /**
+     * Streaming form of {@link #chunk(String, int)}: splits the text written to it with
+     * the same rule and hands each chunk to a sink as soon as it is complete, so only one
+     * chunk is held in memory. The last chunk is delivered by {@link #close()}.
+     */
+    public static class PageWriter extends Writer {
+        private final int wordsPerChunk;
+        private final PageSink sink;
+        private final StringBuilder current = new StringBuilder();
+        private int words;
+        private boolean inWord;
+        private int pages;
+        private boolean closed;
+
+        public PageWriter(int wordsPerChunk, PageSink sink) {
+            if (wordsPerChunk < 1) {
+                throw new IllegalArgumentException("wordsPerChunk must be positive");
+            }
+            this.wordsPerChunk = wordsPerChunk;
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("PageWriter is closed");
+            }
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                char c = cbuf[i];
+                boolean space = isSpace(c);
+                if (!space && !inWord) {
+                    if (words == wordsPerChunk) {
+                        emit();
+                    }
+                    words++;
+                }
+                inWord = !space;
+                current.append(c);
+            }
+        }
+
+        private void emit() throws IOException {
+            sink.accept(pages++, current.toString());
+            current.setLength(0);
+            words = 0;
+        }
+
+        /**
+         * @return Number of chunks delivered so far
+         */
+        public int getPageCount() {
+            return pages;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (current.length() > 0) {
+                emit();
+            }
+        }
+    }
+
+    /**
+     * Finds where the paragraphs of the continuous reader start in a chunk. A paragraph
+     * starts at the first word after whitespace that contains a line break.
+     *
+     * @param chunk A chunk produced by {@link #chunk(String, int)}.
+     * @param firstWordStarts Whether the first word of the chunk starts a paragraph;
+     *                        see {@link ParagraphCounter}.
+     * @return Positions of the paragraph starts in the chunk, in order.
+     */
+    public static List<Integer> paragraphStarts(String chunk, boolean firstWordStarts) {
+        List<Integer> starts = new ArrayList<>();
+        boolean inWord = false;
+        boolean firstWord = true;
+        boolean lineBreak = false;
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (!isSpace(c)) {
+                if (!inWord) {
+                    if ((firstWord && firstWordStarts) || lineBreak) {
+                        starts.add(i);
+                    }
+                    firstWord = false;
+                }
+                lineBreak = false;
+                inWord = true;
+            } else {
+                lineBreak |= c == '\n' || c == '\r';
+                inWord = false;
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Counts the paragraphs that start in each chunk of a text, given the chunks in order.
+     * The first word of a chunk starts a paragraph when the previous chunk ends with a
+     * line break, and also when no paragraph started in the previous chunk: a long
+     * paragraph is cut at that point, so one paragraph never spans more than two chunks.
+     */
+    public static class ParagraphCounter {
+        private boolean lineBreakBefore = true;
+        private boolean startedInPrevious = true;
+
+        /**
+         * @param chunk The next chunk of the text
+         * @return Number of paragraphs starting in it
+         */
+        public int next(String chunk) {
+            List<Integer> starts = paragraphStarts(chunk, lineBreakBefore || !startedInPrevious);
+            int lastWordEnd = chunk.length();
+            while (lastWordEnd > 0 && isSpace(chunk.charAt(lastWordEnd - 1))) {
+                lastWordEnd--;
+            }
+            boolean trailingBreak = chunk.indexOf('\n', lastWordEnd) >= 0 || chunk.indexOf('\r', lastWordEnd) >= 0;
+            lineBreakBefore = lastWordEnd == 0 ? lineBreakBefore || trailingBreak : trailingBreak;
+            startedInPrevious = !starts.isEmpty();
+            return starts.size();
+        }
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
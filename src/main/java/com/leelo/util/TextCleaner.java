@@ -1,14 +1,24 @@
 package com.leelo.util;
 
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class TextCleaner {
 
     /**
      * Cleans the input text by removing unwanted artifacts and normalizing
      * formatting.
-     * 
+     *
+     * The work is done in two linear passes over a char buffer instead of one
+     * regex pass per rule: the first joins spaced-out letters, the second runs
+     * every other rule as a chain of small state machines (see {@link Pipeline}).
+     *
      * @param text The raw text to clean.
      * @return The cleaned text.
      */
@@ -18,54 +28,705 @@ public class TextCleaner {
         }
 
         // 1. Fix spaced characters (e.g., "h o l a" -> "hola")
-        // Loop ensures we handle overlapping or long sequences correctly until no more
-        // matches are found.
-        String previous;
-        do {
-            previous = text;
-            text = text.replaceAll("(?<=\\b[a-zA-Z\\u00C0-\\u00FF])[ ](?=[a-zA-Z\\u00C0-\\u00FF]\\b)", "");
-        } while (!text.equals(previous));
-
-        // 2. Remove references like [1], [12], [a]
-        text = text.replaceAll("\\[\\w+\\]", "");
-
-        // 3. Remove standalone symbols that are likely noise (#, *, etc)
-        // We keep basic punctuation .,;?!()''""-
-        // Remove lines that are just symbols
-
-        // Remove specific unwanted chars mentioned: #
-        text = text.replace("#", "");
-        // Remove command symbol and other common UI artifacts if needed
-        text = text.replace("⌘", "");
-
-        // 5. Extreme Cases Handling
-        // Encoding errors (Replacement Character)
-        text = text.replace("\uFFFD", "");
-
-        // Invisible characters and Control Characters
-        // Remove Zero Width Space (\u200B), BOM (\uFEFF)
-        text = text.replace("\u200B", "").replace("\uFEFF", "");
-        // Remove control characters (except newline \n, return \r, tab \t)
-        text = text.replaceAll("[\\p{Cntrl}&&[^\\r\\n\\t]]", "");
-
-        // 6. Normalize Dashes
-        // Convert Em-dash (—) sequences like "word—word" to "word - word"
-        text = text.replace("—", " - ");
-        // Convert En-dash (–) to standard hyphen "-"
-        text = text.replace("–", "-");
-
-        // 7. Word Rejoining (Aggressive De-hyphenation)
-        // Merges words split by line breaks (e.g., "ca-lculator" -> "calculator").
-        // NOTE: This also affects compound words (e.g., "Post-its" -> "Postits"),
-        // prioritizing the repair of broken text from PDFs.
-        text = text.replaceAll("(?<=[a-zA-Z])-(?=[a-zA-Z])", "");
-
-        // 4. Normalize whitespace
-        // Replace multiple spaces with single space
-        text = text.replaceAll("[ \\t]+", " ");
-        // Replace multiple newlines with double newline (for paragraphs)
-        text = text.replaceAll("(\\r?\\n){3,}", "\n\n");
-
-        return text.trim();
+        char[] buffer = text.toCharArray();
+        int length = joinSpacedLetters(buffer, buffer.length);
+
+        // 2-7. References, symbols, invisible characters, dashes, de-hyphenation
+        // and whitespace, all in one pass
+        StringBuilder out = new StringBuilder(length);
+        Pipeline pipeline = new Pipeline(out);
+        pipeline.feed(buffer, 0, length);
+        pipeline.finish();
+        return out.toString();
+    }
+
+    /**
+     * Cleans everything read from {@code in} and writes the result to {@code out},
+     * holding only a small window of the text in memory. The result is the same as
+     * {@link #clean(String)} on the whole input. Neither stream is closed.
+     *
+     * @param in Source of raw text.
+     * @param out Destination of the cleaned text.
+     * @throws IOException if reading or writing fails
+     */
+    public static void clean(Reader in, Writer out) throws IOException {
+        CleaningWriter cleaner = new CleaningWriter(out);
+        char[] buffer = new char[CleaningWriter.BLOCK];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            cleaner.write(buffer, 0, read);
+        }
+        cleaner.finish();
+    }
+
+    /**
+     * Writer that cleans the text written to it and passes the result on, so producers
+     * that push text (file readers, PDFTextStripper.writeText) can clean as they go.
+     * The output is the same as {@link #clean(String)} on everything written.
+     *
+     * Pass 1 runs on blocks cut right after a character that can never take part in
+     * a spaced-letter join (anything other than a space, an ASCII word character, a
+     * letter of [À-ÿ], a non-spacing mark or a surrogate), so no join is decided across
+     * two blocks. Such a character arrives every few characters in real text; text
+     * without one (no punctuation or line breaks) is cut instead after a space between
+     * two words of at least two ASCII letters or digits, a space pass 1 never removes
+     * and that no other join looks across. Only a run of spaced letters with neither
+     * is kept whole. Pass 2 keeps its state between blocks and only holds back what its
+     * stages are waiting on.
+     */
+    public static final class CleaningWriter extends Writer {
+        static final int BLOCK = 8192;
+
+        private final Writer out;
+        private final StringBuilder cleaned = new StringBuilder(BLOCK);
+        private final Pipeline pipeline = new Pipeline(cleaned);
+        private char[] pending = new char[BLOCK * 2];
+        private int pendingLength;
+        private int processAt = BLOCK;
+        private boolean finished;
+
+        public CleaningWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            reserve(len);
+            System.arraycopy(cbuf, off, pending, pendingLength, len);
+            written(len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            reserve(len);
+            str.getChars(off, off + len, pending, pendingLength);
+            written(len);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            reserve(1);
+            pending[pendingLength] = (char) c;
+            written(1);
+        }
+
+        private void reserve(int len) throws IOException {
+            if (finished) {
+                throw new IOException("Cleaner already finished");
+            }
+            if (pendingLength + len > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + len));
+            }
+        }
+
+        private void written(int len) throws IOException {
+            pendingLength += len;
+            if (pendingLength >= processAt) {
+                process(false);
+            }
+        }
+
+        /**
+         * Cleans the pending text up to the last block seam, or all of it at the end
+         */
+        private void process(boolean end) throws IOException {
+            int seam = pendingLength;
+            if (!end) {
+                while (seam > 0 && !isBlockSeam(pending[seam - 1])) {
+                    seam--;
+                }
+                if (seam == 0) {
+                    seam = lastWordBreak();
+                }
+                if (seam == 0) {
+                    // Spaced letters only; look again once twice as much text is pending
+                    processAt = pendingLength * 2;
+                    return;
+                }
+            }
+            int length = joinSpacedLetters(pending, seam);
+            pipeline.feed(pending, 0, length);
+            System.arraycopy(pending, seam, pending, 0, pendingLength - seam);
+            pendingLength -= seam;
+            processAt = pendingLength + BLOCK;
+            drain();
+        }
+
+        /**
+         * @return Position right after the last space with two ASCII word characters on
+         * each side, or 0 if there is none
+         */
+        private int lastWordBreak() {
+            for (int p = pendingLength - 3; p >= 2; p--) {
+                if (pending[p] == ' ' && isAsciiWord(pending[p - 2]) && isAsciiWord(pending[p - 1])
+                        && isAsciiWord(pending[p + 1]) && isAsciiWord(pending[p + 2])) {
+                    return p + 1;
+                }
+            }
+            return 0;
+        }
+
+        private void drain() throws IOException {
+            if (cleaned.length() > 0) {
+                out.append(cleaned);
+                cleaned.setLength(0);
+            }
+        }
+
+        /**
+         * Cleans and writes everything still pending without closing the downstream
+         * writer; nothing may be written afterwards
+         */
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            process(true);
+            pipeline.finish();
+            drain();
+        }
+
+        /**
+         * Only writes the cleaned text that is already complete; the end of the
+         * input is not known until {@link #finish()}
+         */
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            out.close();
+        }
+    }
+
+    private static boolean isBlockSeam(char c) {
+        return c != ' ' && !isAsciiWord(c) && !isSpacedLetter(c) && !Character.isSurrogate(c)
+                && Character.getType(c) != Character.NON_SPACING_MARK;
+    }
+
+    // ---------------------------------------------------------------------
+    // Parallel cleaning
+    // ---------------------------------------------------------------------
+
+    /**
+     * Below this length {@link #cleanParallel(String)} cleans on the calling thread
+     */
+    static final int PARALLEL_THRESHOLD = 256 * 1024;
+
+    /**
+     * Smallest chunk handed to a worker
+     */
+    static final int MIN_CHUNK = 64 * 1024;
+
+    /**
+     * Cleans large texts on the common fork/join pool. The result is the same as
+     * {@link #clean(String)}.
+     *
+     * @param text The raw text to clean.
+     * @return The cleaned text.
+     */
+    public static String cleanParallel(String text) {
+        return cleanParallel(text, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Splits the text into chunks at safe seams, cleans the chunks on the given pool
+     * and joins the results. The result is the same as {@link #clean(String)}.
+     *
+     * @param text The raw text to clean.
+     * @param pool Pool that cleans the chunks.
+     * @return The cleaned text.
+     */
+    public static String cleanParallel(String text, ForkJoinPool pool) {
+        if (text == null || text.length() < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            return clean(text);
+        }
+        int chunkSize = Math.max(MIN_CHUNK, text.length() / (pool.getParallelism() * 4));
+        List<Integer> seams = findSeams(text, chunkSize);
+        if (seams.size() < 3) {
+            return clean(text);
+        }
+        Chunk[] chunks = pool.invoke(new CleanTask(text, seams.stream().mapToInt(Integer::intValue).toArray(), 0, seams.size() - 1));
+
+        // Whitespace between chunks was trimmed from the end of each chunk and belongs
+        // in the output as soon as some chunk before it produced text
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.text.length() + chunk.trailing.length();
+        }
+        StringBuilder out = new StringBuilder(total);
+        boolean started = false;
+        for (int i = 0; i < chunks.length; i++) {
+            Chunk chunk = chunks[i];
+            out.append(chunk.text);
+            started |= chunk.started;
+            if (started && i < chunks.length - 1) {
+                out.append(chunk.trailing);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Chunk boundaries, including 0 and the text length. A seam sits right after a
+     * line feed that is followed by an ASCII letter or digit:
+     * <ul>
+     *   <li>pass 1 looks at most one character past a space, and a line feed ends every
+     *       run of spaced letters, so no join is decided across the seam</li>
+     *   <li>a line feed also ends any reference, hyphen or blank run in pass 2, so the
+     *       only state left at the seam is the line break run and the trailing whitespace
+     *       of the trim stage, and the letter or digit after it ends both</li>
+     * </ul>
+     * A hyphenated word or spaced heading therefore never straddles two chunks.
+     */
+    static List<Integer> findSeams(String text, int chunkSize) {
+        List<Integer> seams = new ArrayList<>();
+        seams.add(0);
+        int length = text.length();
+        int from = chunkSize;
+        while (from < length) {
+            int newline = text.indexOf('\n', from - 1);
+            while (newline >= 0 && newline + 1 < length && !isAsciiAlphanumeric(text.charAt(newline + 1))) {
+                newline = text.indexOf('\n', newline + 1);
+            }
+            if (newline < 0 || newline + 1 >= length) {
+                break;
+            }
+            seams.add(newline + 1);
+            from = newline + 1 + chunkSize;
+        }
+        seams.add(length);
+        return seams;
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Cleaned chunk with the whitespace trimmed from its end
+     */
+    private record Chunk(String text, String trailing, boolean started) {
+    }
+
+    /**
+     * Cleans the chunks between seams[first] and seams[last], halving the range until
+     * a single chunk is left
+     */
+    private static final class CleanTask extends RecursiveTask<Chunk[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final int[] seams;
+        private final int first;
+        private final int last;
+
+        CleanTask(String text, int[] seams, int first, int last) {
+            this.text = text;
+            this.seams = seams;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected Chunk[] compute() {
+            if (last - first == 1) {
+                return new Chunk[]{cleanChunk(text, seams[first], seams[last])};
+            }
+            int middle = (first + last) >>> 1;
+            CleanTask left = new CleanTask(text, seams, first, middle);
+            left.fork();
+            Chunk[] right = new CleanTask(text, seams, middle, last).compute();
+            Chunk[] done = left.join();
+            Chunk[] all = Arrays.copyOf(done, done.length + right.length);
+            System.arraycopy(right, 0, all, done.length, right.length);
+            return all;
+        }
+    }
+
+    private static Chunk cleanChunk(String text, int from, int to) {
+        char[] buffer = new char[to - from];
+        text.getChars(from, to, buffer, 0);
+        int length = joinSpacedLetters(buffer, buffer.length);
+        StringBuilder out = new StringBuilder(length);
+        Pipeline pipeline = new Pipeline(out);
+        pipeline.feed(buffer, 0, length);
+        pipeline.finish();
+        return new Chunk(out.toString(), pipeline.getTrailing(), pipeline.isStarted());
+    }
+
+    // ---------------------------------------------------------------------
+    // Pass 1: spaced letters
+    // ---------------------------------------------------------------------
+
+    /**
+     * Removes a space between two letters of [a-zA-ZÀ-ÿ] that stand on a
+     * word boundary, repeating until nothing changes. This is the fixed point of
+     * {@code (?<=\b[a-zA-ZÀ-ÿ])[ ](?=[a-zA-ZÀ-ÿ]\b)}, with \b
+     * evaluated exactly as java.util.regex does: ASCII word characters, plus non-spacing
+     * marks that follow a letter or digit.
+     *
+     * Every regex pass removes its matches at once, and a removal can only change the
+     * outcome for the spaces two characters to either side of it, so later passes
+     * only revisit those. The whole fixed point is therefore linear.
+     *
+     * @return the new length of the buffer, compacted in place
+     */
+    static int joinSpacedLetters(char[] buf, int len) {
+        int[] matches = new int[16];
+        int count = 0;
+        for (int p = 0; p < len; p++) {
+            if (buf[p] == ' ' && isJoinable(buf, len, null, p)) {
+                matches = grow(matches, count);
+                matches[count++] = p;
+            }
+        }
+        if (count == 0) {
+            return len;
+        }
+
+        boolean[] removed = new boolean[len];
+        int[] next = new int[16];
+        while (count > 0) {
+            for (int i = 0; i < count; i++) {
+                removed[matches[i]] = true;
+            }
+            int nextCount = 0;
+            for (int i = 0; i < count; i++) {
+                int r = matches[i];
+                for (int p = r - 2; p <= r + 2; p += 4) {
+                    if (p >= 0 && p < len && buf[p] == ' ' && !removed[p] && isJoinable(buf, len, removed, p)) {
+                        next = grow(next, nextCount);
+                        next[nextCount++] = p;
+                    }
+                }
+            }
+            int[] swap = matches;
+            matches = next;
+            next = swap;
+            count = nextCount;
+        }
+
+        int w = 0;
+        for (int i = 0; i < len; i++) {
+            if (!removed[i]) {
+                buf[w++] = buf[i];
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Whether the space at p matches the spaced-letter pattern in the current text,
+     * where the current text is buf without the removed positions
+     */
+    private static boolean isJoinable(char[] buf, int len, boolean[] removed, int p) {
+        int x = p - 1;
+        int y = p + 1;
+        if (x < 0 || y >= len || !isSpacedLetter(buf[x]) || !isSpacedLetter(buf[y])) {
+            return false;
+        }
+        // \b before x: the letter itself is a word character only if it is ASCII
+        boolean left = x > 0 && isWordBefore(buf, len, removed, x);
+        if (left == isAsciiLetter(buf[x])) {
+            return false;
+        }
+        // \b after y
+        int k = y + 1;
+        if (k < len && removed != null && removed[k]) {
+            k++;
+        }
+        boolean right = k < len && isWordAt(buf, len, k);
+        return right != isAsciiLetter(buf[y]);
+    }
+
+    /**
+     * The left side of a \b check at x: the code point before x is a word character,
+     * or a non-spacing mark attached to a letter or digit
+     */
+    private static boolean isWordBefore(char[] buf, int len, boolean[] removed, int x) {
+        int j = x - 1;
+        if (removed != null && removed[j]) {
+            // Removed spaces always sit between two letters
+            j--;
+        }
+        int cp = buf[j];
+        if (Character.isLowSurrogate(buf[j]) && j > 0 && Character.isHighSurrogate(buf[j - 1])) {
+            cp = Character.toCodePoint(buf[j - 1], buf[j]);
+        }
+        if (isAsciiWord(cp)) {
+            return true;
+        }
+        if (Character.getType(cp) != Character.NON_SPACING_MARK) {
+            return false;
+        }
+        // Same walk as Pattern.hasBaseCharacter: forward code points, moving back one char at a time
+        for (int i = j; i >= 0; i--) {
+            int c = codePointAt(buf, len, i);
+            if (Character.isLetterOrDigit(c)) {
+                return true;
+            }
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The right side of a \b check after a letter: the code point at k is a word
+     * character or a non-spacing mark (whose base is that letter)
+     */
+    private static boolean isWordAt(char[] buf, int len, int k) {
+        int cp = codePointAt(buf, len, k);
+        return isAsciiWord(cp) || Character.getType(cp) == Character.NON_SPACING_MARK;
+    }
+
+    private static int codePointAt(char[] buf, int len, int i) {
+        char c = buf[i];
+        if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(buf[i + 1])) {
+            return Character.toCodePoint(c, buf[i + 1]);
+        }
+        return c;
+    }
+
+    private static boolean isSpacedLetter(char c) {
+        return isAsciiLetter(c) || (c >= 'À' && c <= 'ÿ');
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiWord(int c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static int[] grow(int[] array, int count) {
+        return count < array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+
+    // ---------------------------------------------------------------------
+    // Pass 2: everything else
+    // ---------------------------------------------------------------------
+
+    /**
+     * The remaining rules as a chain of stages, each passing its output to the next
+     * one char at a time. A stage only buffers what its rule needs to look ahead at,
+     * so the chain behaves like running the original replacements one after another:
+     * <ol>
+     *   <li>references: {@code \[\w+\]} is removed</li>
+     *   <li>deletions: #, ⌘, U+FFFD, zero width space, BOM and control characters other
+     *       than tab, newline and carriage return</li>
+     *   <li>dashes: em dash becomes " - ", en dash becomes "-"</li>
+     *   <li>de-hyphenation: a hyphen between two ASCII letters is removed</li>
+     *   <li>blanks: runs of spaces and tabs become one space</li>
+     *   <li>newlines: three or more line breaks in a row become a blank line</li>
+     *   <li>trim: leading and trailing whitespace is dropped</li>
+     * </ol>
+     */
+    static final class Pipeline {
+        private final StringBuilder out;
+
+        // references
+        private final StringBuilder reference = new StringBuilder();
+        private boolean inReference;
+
+        // de-hyphenation
+        private boolean hyphenPending;
+        private char beforeHyphen;
+        private char previous;
+
+        // blanks
+        private boolean inBlank;
+
+        // newlines: line breaks of the current run as they were written
+        private final StringBuilder lineBreaks = new StringBuilder();
+        private int lineBreakCount;
+        private boolean carriageReturnPending;
+
+        // trim
+        private boolean started;
+        private final StringBuilder trailing = new StringBuilder();
+
+        Pipeline(StringBuilder out) {
+            this.out = out;
+        }
+
+        void feed(char[] buf, int from, int to) {
+            for (int i = from; i < to; i++) {
+                referenceStage(buf[i]);
+            }
+        }
+
+        /**
+         * Flushes every stage at the end of the input; trailing whitespace stays held back
+         */
+        void finish() {
+            flushReference();
+            if (hyphenPending) {
+                hyphenPending = false;
+                blankStage('-');
+            }
+            if (carriageReturnPending) {
+                carriageReturnPending = false;
+                endLineBreaks();
+                trimStage('\r');
+            } else {
+                endLineBreaks();
+            }
+        }
+
+        /**
+         * @return whitespace held back by the trim stage at the end of the input
+         */
+        String getTrailing() {
+            return trailing.toString();
+        }
+
+        /**
+         * @return whether anything other than whitespace has been written
+         */
+        boolean isStarted() {
+            return started;
+        }
+
+        private void referenceStage(char c) {
+            if (inReference) {
+                if (isAsciiWord(c)) {
+                    reference.append(c);
+                    return;
+                }
+                if (c == ']' && reference.length() > 1) {
+                    reference.setLength(0);
+                    inReference = false;
+                    return;
+                }
+                flushReference();
+            }
+            if (c == '[') {
+                inReference = true;
+                reference.append(c);
+                return;
+            }
+            deletionStage(c);
+        }
+
+        private void flushReference() {
+            inReference = false;
+            for (int i = 0; i < reference.length(); i++) {
+                deletionStage(reference.charAt(i));
+            }
+            reference.setLength(0);
+        }
+
+        private void deletionStage(char c) {
+            switch (c) {
+                case '#', '⌘', '\uFFFD', '\u200B', '\uFEFF', '\u007F':
+                    return;
+                default:
+                    if (c < ' ' && c != '\t' && c != '\n' && c != '\r') {
+                        return;
+                    }
+                    dashStage(c);
+            }
+        }
+
+        private void dashStage(char c) {
+            if (c == '—') {
+                hyphenStage(' ');
+                hyphenStage('-');
+                hyphenStage(' ');
+            } else if (c == '–') {
+                hyphenStage('-');
+            } else {
+                hyphenStage(c);
+            }
+        }
+
+        private void hyphenStage(char c) {
+            if (hyphenPending) {
+                hyphenPending = false;
+                if (!isAsciiLetter(beforeHyphen) || !isAsciiLetter(c)) {
+                    blankStage('-');
+                }
+            }
+            if (c == '-') {
+                hyphenPending = true;
+                beforeHyphen = previous;
+                previous = c;
+                return;
+            }
+            previous = c;
+            blankStage(c);
+        }
+
+        private void blankStage(char c) {
+            if (c == ' ' || c == '\t') {
+                if (!inBlank) {
+                    inBlank = true;
+                    newlineStage(' ');
+                }
+                return;
+            }
+            inBlank = false;
+            newlineStage(c);
+        }
+
+        private void newlineStage(char c) {
+            if (c == '\n') {
+                lineBreaks.append(carriageReturnPending ? "\r\n" : "\n");
+                carriageReturnPending = false;
+                lineBreakCount++;
+                return;
+            }
+            if (c == '\r') {
+                if (carriageReturnPending) {
+                    // A lone \r ends the run of line breaks
+                    endLineBreaks();
+                    trimStage('\r');
+                }
+                carriageReturnPending = true;
+                return;
+            }
+            endLineBreaks();
+            if (carriageReturnPending) {
+                carriageReturnPending = false;
+                trimStage('\r');
+            }
+            trimStage(c);
+        }
+
+        private void endLineBreaks() {
+            if (lineBreakCount >= 3) {
+                trimStage('\n');
+                trimStage('\n');
+            } else {
+                for (int i = 0; i < lineBreaks.length(); i++) {
+                    trimStage(lineBreaks.charAt(i));
+                }
+            }
+            lineBreaks.setLength(0);
+            lineBreakCount = 0;
+        }
+
+        private void trimStage(char c) {
+            if (c <= ' ') {
+                if (started) {
+                    trailing.append(c);
+                }
+                return;
+            }
+            started = true;
+            if (trailing.length() > 0) {
+                out.append(trailing);
+                trailing.setLength(0);
+            }
+            out.append(c);
+        }
     }
 }
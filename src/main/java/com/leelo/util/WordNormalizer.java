@@ -0,0 +1,199 @@
+package com.leelo.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class WordNormalizer {
+
+    // Lookup table for the BMP, filled on first use of each character:
+    // UNKNOWN = not computed yet, DROP = not a letter, MULTI = result longer than one char
+    private static final char UNKNOWN = 0;
+    private static final char DROP = 1;
+    private static final char MULTI = 2;
+    private static final char[] TABLE = new char[Character.MAX_VALUE + 1];
+    private static final Map<Character, String> MULTI_CHAR = new ConcurrentHashMap<>();
+
+    // Σ lowercases to σ or ς depending on its position in the word
+    private static final char CAPITAL_SIGMA = 'Σ';
+
+    // Locales whose lowercase rules depend on the surrounding characters
+    private static final Set<String> CONTEXT_LOCALES = Set.of("tr", "az", "lt");
+    private static final boolean TABLE_SAFE = !CONTEXT_LOCALES.contains(Locale.getDefault().getLanguage());
+
+    private static final int MEMO_SIZE = 4096;
+    private static final Map<String, String> MEMO = new LinkedHashMap<>(MEMO_SIZE * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MEMO_SIZE;
+        }
+    };
+
+    /**
+     * Normalizes a word for vocabulary lookups: removes everything that is not a
+     * letter, converts to lowercase and strips accents ("¡Canción!" -> "cancion").
+     * Results for recently seen tokens are memoized.
+     *
+     * @param word The word as it appears in a text or in the vocabulary.
+     * @return The lookup key; empty if the word has no letters.
+     */
+    public static String normalize(String word) {
+        if (word == null || word.isEmpty()) {
+            return "";
+        }
+        synchronized (MEMO) {
+            String cached = MEMO.get(word);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String normalized = normalizeUncached(word);
+        synchronized (MEMO) {
+            MEMO.put(word, normalized);
+        }
+        return normalized;
+    }
+
+    /**
+     * Same result as {@link #normalize(String)} without the memo: one pass over the
+     * characters, ASCII handled inline and other letters through the lookup table.
+     *
+     * @param word The word to normalize.
+     * @return The lookup key; empty if the word has no letters.
+     */
+    public static String normalizeUncached(String word) {
+        if (word == null) {
+            return "";
+        }
+        int length = word.length();
+        StringBuilder out = null;
+        // Start of the ASCII lowercase prefix that can be returned as a substring
+        int start = -1;
+        int end = -1;
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if (c < 128) {
+                if (c >= 'a' && c <= 'z') {
+                    if (out == null) {
+                        if (start < 0) {
+                            start = i;
+                            end = i + 1;
+                            continue;
+                        }
+                        if (end == i) {
+                            end++;
+                            continue;
+                        }
+                        out = prefix(word, start, end);
+                    }
+                    out.append(c);
+                } else if (c >= 'A' && c <= 'Z') {
+                    if (out == null) {
+                        out = prefix(word, start, end);
+                    }
+                    out.append((char) (c + ('a' - 'A')));
+                }
+                continue;
+            }
+            if (!TABLE_SAFE || c == CAPITAL_SIGMA || Character.isSurrogate(c)) {
+                return legacyNormalize(word);
+            }
+            char mapped = lookup(c);
+            if (mapped == DROP) {
+                continue;
+            }
+            if (out == null) {
+                out = prefix(word, start, end);
+            }
+            if (mapped == MULTI) {
+                String expansion = MULTI_CHAR.get(c);
+                out.append(expansion != null ? expansion : legacyNormalize(String.valueOf(c)));
+            } else {
+                out.append(mapped);
+            }
+        }
+        if (out != null) {
+            return out.toString();
+        }
+        return start < 0 ? "" : word.substring(start, end);
+    }
+
+    /**
+     * Strips leading and trailing characters that are neither letters nor numbers,
+     * keeping internal hyphens and apostrophes ("¿don't?" -> "don't").
+     *
+     * @param word The token as it appears in a text.
+     * @return The token without surrounding punctuation and symbols.
+     */
+    public static String trimToWord(String word) {
+        if (word == null) {
+            return "";
+        }
+        int start = 0;
+        int end = word.length();
+        while (start < end) {
+            int cp = word.codePointAt(start);
+            if (isLetterOrNumber(cp)) {
+                break;
+            }
+            start += Character.charCount(cp);
+        }
+        while (end > start) {
+            int cp = word.codePointBefore(end);
+            if (isLetterOrNumber(cp)) {
+                break;
+            }
+            end -= Character.charCount(cp);
+        }
+        return word.substring(start, end);
+    }
+
+    private static boolean isLetterOrNumber(int cp) {
+        if (Character.isLetter(cp)) {
+            return true;
+        }
+        int type = Character.getType(cp);
+        return type == Character.DECIMAL_DIGIT_NUMBER
+                || type == Character.LETTER_NUMBER
+                || type == Character.OTHER_NUMBER;
+    }
+
+    private static StringBuilder prefix(String word, int start, int end) {
+        StringBuilder out = new StringBuilder(word.length());
+        if (start >= 0) {
+            out.append(word, start, end);
+        }
+        return out;
+    }
+
+    private static char lookup(char c) {
+        char mapped = TABLE[c];
+        if (mapped == UNKNOWN) {
+            // Racing threads compute the same value, so an unsynchronized write is fine
+            String result = legacyNormalize(String.valueOf(c));
+            if (result.isEmpty()) {
+                mapped = DROP;
+            } else if (result.length() == 1) {
+                mapped = result.charAt(0);
+            } else {
+                MULTI_CHAR.put(c, result);
+                mapped = MULTI;
+            }
+            TABLE[c] = mapped;
+        }
+        return mapped;
+    }
+
+    /**
+     * Regex and java.text.Normalizer based normalization. Defines the expected result;
+     * used to fill the lookup table and for words the table cannot handle.
+     */
+    static String legacyNormalize(String word) {
+        String withoutPunctuation = word.replaceAll("[^\\p{L}]", "").toLowerCase();
+        return Normalizer.normalize(withoutPunctuation, Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+    }
+}
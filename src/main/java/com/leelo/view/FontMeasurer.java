@@ -0,0 +1,72 @@
+package com.leelo.view;
+
+import com.leelo.service.PaginationEngine;
+import javafx.application.Platform;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Measures words for the pagination engine with a Text node in the reader's font,
+ * the same way the page lays out its tokens. The node is only used on the FX thread:
+ * the layout thread hands over a batch of words and waits for their widths.
+ */
+public class FontMeasurer implements PaginationEngine.Measurer {
+    private final Text probe = new Text();
+    private final double spaceWidth;
+    private final double lineHeight;
+
+    /**
+     * Must be created on the FX thread
+     * @param font Font of the words on the page
+     */
+    public FontMeasurer(Font font) {
+        probe.setFont(font);
+        spaceWidth = measure("a a") - measure("aa");
+        probe.setText("Ag");
+        lineHeight = probe.getLayoutBounds().getHeight();
+    }
+
+    @Override
+    public double[] widths(List<String> words) {
+        if (Platform.isFxApplicationThread()) {
+            return measureAll(words);
+        }
+        FutureTask<double[]> task = new FutureTask<>(() -> measureAll(words));
+        Platform.runLater(task);
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while measuring words", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not measure words", e.getCause());
+        }
+    }
+
+    @Override
+    public double spaceWidth() {
+        return spaceWidth;
+    }
+
+    @Override
+    public double lineHeight() {
+        return lineHeight;
+    }
+
+    private double[] measureAll(List<String> words) {
+        double[] widths = new double[words.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = measure(words.get(i));
+        }
+        return widths;
+    }
+
+    private double measure(String text) {
+        probe.setText(text);
+        return probe.getLayoutBounds().getWidth();
+    }
+}
@@ -0,0 +1,192 @@
+package com.leelo.view;
+
+import com.leelo.model.ReaderPage;
+import com.leelo.model.ReaderToken;
+import com.leelo.model.Word;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Shows reader pages in a single TextFlow. Text nodes are reused from page to page:
+ * rendering a page only changes the text and style class of nodes that differ from
+ * the previous page, and nodes left over from a longer page wait in a pool. Nodes
+ * never get a font of their own; they inherit -fx-font-size from the container.
+ * Clicks are handled by one listener on the flow that finds the token from the
+ * clicked node, so nodes carry no handlers of their own.
+ *
+ * The nodes on screen are indexed by vocabulary key, so when a word is saved or
+ * edited only the nodes showing that word are recolored.
+ */
+public class PageRenderer {
+
+    /**
+     * Receives clicks on the tokens of the page
+     */
+    @FunctionalInterface
+    public interface TokenClickHandler {
+        void tokenClicked(ReaderToken token, Text node, MouseButton button);
+    }
+
+    private static final String TOKEN_CLASS = "reader-token";
+
+    private final TextFlow flow = new TextFlow();
+    private final Deque<Text> pool = new ArrayDeque<>();
+    // Normalized key to the nodes on screen showing that word
+    private final Map<String, List<Text>> nodesByKey = new HashMap<>();
+    private ReaderPage page;
+
+    public PageRenderer(TokenClickHandler handler) {
+        flow.getStyleClass().add("reader-page");
+        flow.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            if (event.getTarget() instanceof Text node && node.getUserData() instanceof ReaderToken token) {
+                handler.tokenClicked(token, node, event.getButton());
+            }
+        });
+    }
+
+    /**
+     * @return The node showing the pages
+     */
+    public TextFlow getNode() {
+        return flow;
+    }
+
+    /**
+     * @return The page on screen, or null
+     */
+    public ReaderPage getPage() {
+        return page;
+    }
+
+    /**
+     * @return Font of the words on screen as resolved from CSS, or null before the first page
+     */
+    public Font getFont() {
+        List<Node> children = flow.getChildren();
+        return children.isEmpty() ? null : ((Text) children.get(0)).getFont();
+    }
+
+    /**
+     * Shows a page, reusing the nodes of the page shown before
+     * @param page Render model built by ReaderService
+     */
+    public void render(ReaderPage page) {
+        this.page = page;
+        nodesByKey.clear();
+        List<ReaderToken> tokens = page.getTokens();
+        ObservableList<Node> children = flow.getChildren();
+        int shown = children.size();
+        int reused = Math.min(shown, tokens.size());
+        for (int i = 0; i < reused; i++) {
+            update((Text) children.get(i), tokens.get(i));
+        }
+        if (tokens.size() > shown) {
+            List<Text> added = new ArrayList<>(tokens.size() - shown);
+            for (int i = shown; i < tokens.size(); i++) {
+                Text node = pool.isEmpty() ? newNode() : pool.pop();
+                update(node, tokens.get(i));
+                added.add(node);
+            }
+            children.addAll(added);
+        } else if (tokens.size() < shown) {
+            List<Node> surplus = children.subList(tokens.size(), shown);
+            for (Node node : surplus) {
+                node.setUserData(null);
+                pool.push((Text) node);
+            }
+            // One change event for the whole range
+            surplus.clear();
+        }
+    }
+
+    /**
+     * Updates the color of the words whose saved state may have changed, leaving
+     * every other node untouched
+     * @param keys Normalized keys of the changed words
+     * @param vocabulary Saved word for a normalized key, or null
+     * @return Number of nodes recolored
+     */
+    public int recolor(Set<String> keys, Function<String, Word> vocabulary) {
+        int recolored = 0;
+        for (String key : keys) {
+            List<Text> nodes = nodesByKey.get(key);
+            if (nodes == null) {
+                continue;
+            }
+            Word saved = vocabulary.apply(key);
+            int state = saved == null ? ReaderToken.NOT_SAVED : saved.getState();
+            for (Text node : nodes) {
+                ReaderToken token = (ReaderToken) node.getUserData();
+                if (token.getState() != state) {
+                    setToken(node, token.withState(state));
+                    recolored++;
+                }
+            }
+        }
+        return recolored;
+    }
+
+    /**
+     * Removes the page; its nodes go back to the pool
+     */
+    public void clear() {
+        render(new ReaderPage(0, 0, List.of()));
+        page = null;
+    }
+
+    private Text newNode() {
+        Text node = new Text();
+        node.getStyleClass().setAll(TOKEN_CLASS, styleClassOf(ReaderToken.NOT_SAVED));
+        return node;
+    }
+
+    private void update(Text node, ReaderToken token) {
+        if (!token.getText().equals(node.getText())) {
+            node.setText(token.getText());
+        }
+        setToken(node, token);
+        nodesByKey.computeIfAbsent(token.getKey(), key -> new ArrayList<>(1)).add(node);
+    }
+
+    private static void setToken(Text node, ReaderToken token) {
+        String styleClass = styleClassOf(token.getState());
+        ObservableList<String> classes = node.getStyleClass();
+        if (!classes.get(1).equals(styleClass)) {
+            classes.set(1, styleClass);
+        }
+        node.setUserData(token);
+    }
+
+    /**
+     * @return CSS class coloring a token in the given vocabulary state (see reading.css)
+     */
+    static String styleClassOf(int state) {
+        switch (state) {
+            case ReaderToken.NOT_SAVED:
+            case 1:
+                return "token-new";
+            case 2:
+                return "token-learning";
+            case 3:
+                return "token-learned";
+            case 4:
+                return "token-mastered";
+            default:
+                return "token-unknown";
+        }
+    }
+}
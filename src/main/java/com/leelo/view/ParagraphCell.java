@@ -0,0 +1,95 @@
+package com.leelo.view;
+
+import com.leelo.model.ReaderPage;
+import com.leelo.model.Word;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Cell of the continuous reader. The list only creates cells for the paragraphs on
+ * screen, and each cell renders its paragraph with a {@link PageRenderer}, so the
+ * number of Text nodes stays bounded however long the text is. A paragraph that is
+ * not prepared yet is requested from the source and shown once it arrives.
+ */
+public class ParagraphCell extends ListCell<Integer> {
+
+    /**
+     * Supplies the paragraphs shown by the cells
+     */
+    public interface ParagraphSource {
+        /**
+         * @return The prepared paragraph, or null if it has to be loaded
+         */
+        ReaderPage getCached(int paragraph);
+
+        /**
+         * Prepares a paragraph in the background and hands it over on the FX thread
+         * @param stillWanted Tells the loader whether the cell still shows the paragraph
+         */
+        void load(int paragraph, IntPredicate stillWanted, Consumer<ReaderPage> loaded);
+    }
+
+    // Side padding of the cell (reading.css) plus room for the scroll bar
+    private static final double SIDE_SPACE = 120;
+
+    private final ParagraphSource source;
+    private final PageRenderer renderer;
+    // Paragraph shown by the cell; read by the loader thread
+    private volatile int wanted = -1;
+
+    public ParagraphCell(ListView<Integer> list, ParagraphSource source, PageRenderer.TokenClickHandler handler) {
+        this.source = source;
+        this.renderer = new PageRenderer(handler);
+        getStyleClass().add("paragraph-cell");
+        // Wrap the text to the list instead of growing the cell sideways
+        setPrefWidth(0);
+        renderer.getNode().maxWidthProperty().bind(list.widthProperty().subtract(SIDE_SPACE));
+    }
+
+    @Override
+    protected void updateItem(Integer paragraph, boolean empty) {
+        super.updateItem(paragraph, empty);
+        if (empty || paragraph == null) {
+            wanted = -1;
+            renderer.clear();
+            setGraphic(null);
+            return;
+        }
+        wanted = paragraph;
+        setGraphic(renderer.getNode());
+        ReaderPage cached = source.getCached(paragraph);
+        if (cached != null) {
+            renderer.render(cached);
+            return;
+        }
+        ReaderPage shown = renderer.getPage();
+        if (shown == null || shown.getNumber() != paragraph) {
+            renderer.clear();
+        }
+        // Otherwise the old words stay on screen until they are recolored
+        source.load(paragraph, index -> wanted == index, loaded -> {
+            if (wanted == loaded.getNumber()) {
+                renderer.render(loaded);
+            }
+        });
+    }
+
+    /**
+     * Recolors the changed words of the paragraph on screen, see {@link PageRenderer#recolor}
+     */
+    public int recolor(Set<String> keys, Function<String, Word> vocabulary) {
+        return renderer.recolor(keys, vocabulary);
+    }
+
+    /**
+     * @return The paragraph shown by the cell, or null
+     */
+    public ReaderPage getParagraph() {
+        return renderer.getPage();
+    }
+}
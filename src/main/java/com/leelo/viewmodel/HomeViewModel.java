@@ -1,13 +1,14 @@
 package com.leelo.viewmodel;
 
-import com.leelo.model.Texts;
+import com.leelo.model.ReadingPosition;
+import com.leelo.model.TextSummary;
 import com.leelo.service.TextService;
 import javafx.beans.property.*;
 
 public class HomeViewModel {
     private final TextService textService;
     
-    private final ObjectProperty<Texts> lastOpenedBook = new SimpleObjectProperty<>();
+    private final ObjectProperty<TextSummary> lastOpenedBook = new SimpleObjectProperty<>();
     private final IntegerProperty readingProgress = new SimpleIntegerProperty(0);
     private final StringProperty bookTitle = new SimpleStringProperty("Sin libro");
     private final BooleanProperty hasBook = new SimpleBooleanProperty(false);
@@ -20,14 +21,11 @@ public class HomeViewModel {
     
     private void loadLastOpenedBook() {
         // Primero intentar obtener el último libro leído desde la tabla progress
-        Texts lastBook = textService.getLastReadBook();
+        TextSummary lastBook = textService.getLastReadBook();
         
         // Si no hay progreso registrado, obtener el último libro creado
         if (lastBook == null) {
-            var texts = textService.listAllTexts();
-            if (!texts.isEmpty()) {
-                lastBook = texts.get(0);
-            }
+            lastBook = textService.getNewestTextSummary();
         }
         
         if (lastBook != null) {
@@ -41,26 +39,19 @@ public class HomeViewModel {
             bookTitle.set(title);
             hasBook.set(true);
             
-            int currentPage = textService.getPage(lastBook.getIdText());
+            ReadingPosition position = textService.getReadingPosition(lastBook.getIdText());
             
-            String textContent = lastBook.getText();
-            if (textContent == null || textContent.trim().isEmpty()) {
+            int totalWords = lastBook.getWordCount();
+            if (totalWords == 0) {
                 readingProgress.set(0);
                 return;
             }
             
-            String[] words = textContent.split("\\s+");
-            int totalWords = words.length;
-            
             // Establecer el conteo de palabras
             wordCount.set(totalWords);
             
-            // Calcular progreso basado en palabras por página (400 palabras por página)
-            int wordsPerPage = 400;
-            int totalPages = (totalWords + wordsPerPage - 1) / wordsPerPage;
-            int progress = totalPages > 0 ? (currentPage * 100) / totalPages : 0;
-            
-            readingProgress.set(Math.min(progress, 100));
+            // Calcular progreso con las páginas que mostraba el lector, cortadas por el motor de paginación
+            readingProgress.set(position.getPercent(lastBook.getCharCount()));
         } else {
             hasBook.set(false);
             bookTitle.set("Sin libro");
@@ -71,7 +62,7 @@ public class HomeViewModel {
     
 
     
-    public ObjectProperty<Texts> lastOpenedBookProperty() {
+    public ObjectProperty<TextSummary> lastOpenedBookProperty() {
         return lastOpenedBook;
     }
     
@@ -87,7 +78,7 @@ public class HomeViewModel {
         return hasBook;
     }
     
-    public Texts getLastOpenedBook() {
+    public TextSummary getLastOpenedBook() {
         return lastOpenedBook.get();
     }
     
@@ -0,0 +1,48 @@
+package com.leelo.bench;
+
+import com.leelo.util.ArticleExtractor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a downloaded page into text: the whole body text used before and the
+ * main-content extraction, on the saved pages of src/test/resources/com/leelo/articles.
+ * The extraction quality on the same pages is checked by ArticleExtractorTest.
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench=ArticleExtractorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ArticleExtractorBenchmark {
+
+    @Param({"news", "blog", "wiki", "noticia"})
+    public String page;
+
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = ArticleExtractorBenchmark.class.getResourceAsStream("/com/leelo/articles/" + page + ".html")) {
+            document = Jsoup.parse(in, null, "https://example.com/" + page);
+        }
+    }
+
+    @Benchmark
+    public String bodyText() {
+        return document.body().text();
+    }
+
+    @Benchmark
+    public String extract() {
+        return ArticleExtractor.extract(document);
+    }
+}
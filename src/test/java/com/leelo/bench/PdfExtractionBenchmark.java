@@ -0,0 +1,109 @@
+package com.leelo.bench;
+
+import com.leelo.service.PdfImportService;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF text extraction throughput in pages per second for different numbers of workers,
+ * on a generated 1,000-page book. Cleaning and storage are left out.
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench=PdfExtractionBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    private static final int PAGES = 1000;
+    private static final String[] WORDS = {
+            "the", "reader", "opened", "a", "book", "and", "read", "slowly", "language", "learning"
+    };
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private File file;
+    private PdfImportService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("leelo-bench", ".pdf").toFile();
+        Random random = new Random(7);
+        try (PDDocument book = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.TIMES_ROMAN);
+            for (int p = 0; p < PAGES; p++) {
+                PDPage page = new PDPage();
+                book.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(book, page)) {
+                    content.beginText();
+                    content.setFont(font, 11);
+                    content.newLineAtOffset(50, 740);
+                    for (int line = 0; line < 45; line++) {
+                        StringBuilder sb = new StringBuilder();
+                        for (int w = 0; w < 12; w++) {
+                            sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                        }
+                        content.showText(sb.toString());
+                        content.newLineAtOffset(0, -15);
+                    }
+                    content.endText();
+                }
+            }
+            book.save(file);
+        }
+        service = new PdfImportService(workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGES)
+    public long extract() throws IOException {
+        CountingWriter out = new CountingWriter();
+        service.extractText(file, out, new PdfImportService.Listener() {
+            @Override
+            public void pageExtracted(int page, int pageCount) {
+            }
+
+            @Override
+            public void preview(String text) {
+            }
+        }, () -> false);
+        return out.count;
+    }
+
+    private static class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
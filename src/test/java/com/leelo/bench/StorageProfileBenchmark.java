@@ -0,0 +1,128 @@
+package com.leelo.bench;
+
+import com.leelo.dao.ConnectionPool;
+import com.leelo.dao.DatabaseConfig;
+import com.leelo.dao.StorageProfile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the storage profiles on the DAO access patterns that matter most:
+ * single-row progress writes, batched review updates and vocabulary reads.
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench=StorageProfileBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class StorageProfileBenchmark {
+
+    private static final int WORDS = 20_000;
+    private static final int BATCH = 100;
+
+    @Param({"LEGACY", "DURABLE", "BALANCED", "FAST"})
+    public String profile;
+
+    private Path directory;
+    private ConnectionPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("leelo-bench");
+        DatabaseConfig config = new DatabaseConfig();
+        config.setPath(directory.resolve("bench.db").toString());
+        config.setProfile(StorageProfile.valueOf(profile));
+        pool = new ConnectionPool(config);
+
+        try (Connection conn = pool.borrowWriter(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE words (id_term INTEGER PRIMARY KEY AUTOINCREMENT, term TEXT NOT NULL, " +
+                    "translation TEXT, state INTEGER NOT NULL, last_review TEXT, review_count INTEGER DEFAULT 0)");
+            stmt.executeUpdate("CREATE TABLE progress (id_progress INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "id_book INTEGER NOT NULL, page_book INTEGER NOT NULL)");
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO words(term, translation, state) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < WORDS; i++) {
+                    insert.setString(1, "term" + i);
+                    insert.setString(2, "translation" + i);
+                    insert.setInt(3, i % 6);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /** Same pattern as TextDAO.updateProgress: delete and insert, one transaction each */
+    @Benchmark
+    public int progressWrite() throws SQLException {
+        int page = ThreadLocalRandom.current().nextInt(1, 500);
+        try (Connection conn = pool.borrowWriter();
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM progress WHERE id_book = ?");
+             PreparedStatement insert = conn.prepareStatement("INSERT INTO progress(id_book, page_book) VALUES (?, ?)")) {
+            delete.setInt(1, 1);
+            delete.executeUpdate();
+            insert.setInt(1, 1);
+            insert.setInt(2, page);
+            return insert.executeUpdate();
+        }
+    }
+
+    /** Same pattern as WordDAO.updateWordReviewDataBatch */
+    @Benchmark
+    public int reviewBatchWrite() throws SQLException {
+        int first = ThreadLocalRandom.current().nextInt(1, WORDS - BATCH);
+        try (Connection conn = pool.borrowWriter();
+             PreparedStatement update = conn.prepareStatement(
+                     "UPDATE words SET last_review = date('now'), review_count = review_count + 1 WHERE id_term = ?")) {
+            conn.setAutoCommit(false);
+            for (int id = first; id < first + BATCH; id++) {
+                update.setInt(1, id);
+                update.addBatch();
+            }
+            int updated = update.executeBatch().length;
+            conn.commit();
+            return updated;
+        }
+    }
+
+    /** Same pattern as WordDAO.getWordsByState on a reader connection */
+    @Benchmark
+    public int vocabularyRead() throws SQLException {
+        int count = 0;
+        try (Connection conn = pool.borrowReader();
+             PreparedStatement query = conn.prepareStatement("SELECT * FROM words WHERE state = ?")) {
+            query.setInt(1, ThreadLocalRandom.current().nextInt(6));
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    count += rs.getString("term").length();
+                }
+            }
+        }
+        return count;
+    }
+}
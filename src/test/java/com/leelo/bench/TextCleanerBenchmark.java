@@ -0,0 +1,86 @@
+package com.leelo.bench;
+
+import com.leelo.util.LegacyTextCleaner;
+import com.leelo.util.TextCleaner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of cleaning the text extracted from a PDF: the regex cleaner used before
+ * and the two-pass state machine cleaner, on synthetic book text with the usual
+ * extraction noise (spaced-out headings, references, hyphenated line breaks,
+ * dashes, runs of blank lines and stray control characters).
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench=TextCleanerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TextCleanerBenchmark {
+
+    private static final String[] WORDS = {
+            "the", "reader", "opened", "a", "book", "and", "read", "slowly", "canción", "mañana",
+            "niño", "über", "language", "learning", "page", "chapter", "however", "which", "was", "it"
+    };
+
+    /**
+     * Approximate size of the extracted text in characters
+     */
+    @Param({"100000", "2000000"})
+    public int size;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = syntheticPdfText(size, 7);
+    }
+
+    /**
+     * Book-like text with the artifacts PDFTextStripper typically leaves behind
+     */
+    static String syntheticPdfText(int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(size + 1024);
+        int line = 0;
+        while (sb.length() < size) {
+            int roll = random.nextInt(100);
+            if (roll < 2) {
+                // Spaced-out heading
+                sb.append("\n\n\nC h a p t e r ").append(random.nextInt(40)).append("\n\n");
+            } else if (roll < 5) {
+                sb.append("[").append(1 + random.nextInt(99)).append("] ");
+            } else if (roll < 7) {
+                sb.append("—");
+            } else if (roll < 8) {
+                sb.append("\u0007\uFFFD# ");
+            } else {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                line += word.length() + 1;
+                if (line > 70 && word.length() > 3) {
+                    // Word broken across a line
+                    sb.append(word, 0, 2).append("-\n").append(word, 2, word.length()).append(' ');
+                    line = 0;
+                } else {
+                    sb.append(word).append(random.nextInt(6) == 0 ? ",  " : " ");
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacyTextCleaner.clean(text);
+    }
+
+    @Benchmark
+    public String stateMachine() {
+        return TextCleaner.clean(text);
+    }
+}
@@ -0,0 +1,50 @@
+package com.leelo.bench;
+
+import com.leelo.util.TextCleaner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link TextCleaner#cleanParallel(String, ForkJoinPool)} with the number of
+ * worker threads, on the synthetic PDF text of {@link TextCleanerBenchmark}
+ * ({@code sequential} is the single-threaded baseline).
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench=TextCleanerScalingBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TextCleanerScalingBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private String text;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = TextCleanerBenchmark.syntheticPdfText(8_000_000, 7);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public String sequential() {
+        return TextCleaner.clean(text);
+    }
+
+    @Benchmark
+    public String parallel() {
+        return TextCleaner.cleanParallel(text, pool);
+    }
+}
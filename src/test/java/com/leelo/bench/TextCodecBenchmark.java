@@ -0,0 +1,57 @@
+package com.leelo.bench;
+
+import com.leelo.dao.TextCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode and encode cost of one reader page (200 words) per chunk codec.
+ * Throughput in pages per second; multiply by the page size printed at setup for bytes.
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench=TextCodecBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TextCodecBenchmark {
+
+    private static final String[] VOCABULARY = {
+            "the", "reader", "opened", "a", "book", "and", "read", "slowly", "while", "words",
+            "learning", "language", "through", "stories", "every", "day", "página", "libro", "palabra", "leer"
+    };
+
+    @Param({"NONE", "DEFLATE"})
+    public String codec;
+
+    private String page;
+    private TextCodec.Encoded encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append(VOCABULARY[ThreadLocalRandom.current().nextInt(VOCABULARY.length)])
+                    .append(i % 15 == 14 ? ".\n" : " ");
+        }
+        page = text.toString();
+        encoded = TextCodec.encodeBest(page, TextCodec.valueOf(codec) == TextCodec.DEFLATE);
+        System.out.printf("%n%s page: %d bytes raw, %d bytes stored%n",
+                encoded.getCodec(), encoded.getRawLength(), encoded.getData().length);
+    }
+
+    @Benchmark
+    public String decodePage() throws SQLException {
+        return encoded.getCodec().decode(encoded.getData(), encoded.getRawLength());
+    }
+
+    @Benchmark
+    public TextCodec.Encoded encodePage() {
+        return TextCodec.encodeBest(page, encoded.getCodec() == TextCodec.DEFLATE);
+    }
+}
@@ -0,0 +1,67 @@
+package com.leelo.bench;
+
+import com.leelo.util.WordNormalizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.Normalizer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of normalizing the tokens of one reader page (200 words): the regex and
+ * java.text.Normalizer implementation the reader used before, the single-pass
+ * normalizer, and the single-pass normalizer behind its memo.
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench=WordNormalizerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WordNormalizerBenchmark {
+
+    private static final String[] VOCABULARY = {
+            "The", "reader", "opened", "a", "book,", "and", "read", "slowly.", "\"Words\"", "don't",
+            "Canción", "mañana", "¿Dónde", "está?", "niño", "self-made", "über", "Straße", "(1999)", "café"
+    };
+
+    private String[] page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        page = new String[200];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = VOCABULARY[random.nextInt(VOCABULARY.length)];
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (String token : page) {
+            String withoutPunctuation = token.replaceAll("[^\\p{L}]", "").toLowerCase();
+            blackhole.consume(Normalizer.normalize(withoutPunctuation, Normalizer.Form.NFD)
+                    .replaceAll("\\p{InCombiningDiacriticalMarks}+", ""));
+            blackhole.consume(token.replaceAll("^[^\\p{L}\\p{N}]+|[^\\p{L}\\p{N}]+$", ""));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (String token : page) {
+            blackhole.consume(WordNormalizer.normalizeUncached(token));
+            blackhole.consume(WordNormalizer.trimToWord(token));
+        }
+    }
+
+    @Benchmark
+    public void singlePassMemo(Blackhole blackhole) {
+        for (String token : page) {
+            blackhole.consume(WordNormalizer.normalize(token));
+            blackhole.consume(WordNormalizer.trimToWord(token));
+        }
+    }
+}
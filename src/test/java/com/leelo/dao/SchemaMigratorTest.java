@@ -0,0 +1,186 @@
+package com.leelo.dao;
+
+import com.leelo.util.ContentHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SchemaMigratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        DatabaseConfig config = new DatabaseConfig();
+        config.setPath(tempDir.resolve("test.db").toString());
+        pool = new ConnectionPool(config);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void testMigratesFreshDatabaseToLatestVersion() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(SchemaMigrations.all());
+        try (Connection conn = pool.borrowWriter()) {
+            assertEquals(SchemaMigrations.all().size(), migrator.migrate(conn));
+            assertEquals(migrator.getLatestVersion(), SchemaMigrator.getVersion(conn));
+            assertTrue(indexExists(conn, "idx_words_state"));
+            assertTrue(indexExists(conn, "idx_progress_book"));
+
+            // Already up to date: nothing to apply
+            assertEquals(0, migrator.migrate(conn));
+        }
+    }
+
+    @Test
+    public void testUpgradesUnversionedDatabaseAndDeduplicatesProgress() throws SQLException {
+        try (Connection conn = pool.borrowWriter(); Statement stmt = conn.createStatement()) {
+            // Schema as created before versioning, with duplicate progress rows
+            stmt.executeUpdate("CREATE TABLE progress (id_progress INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "id_book INTEGER NOT NULL, page_book INTEGER NOT NULL)");
+            stmt.executeUpdate("INSERT INTO progress(id_book, page_book) VALUES (1, 3), (1, 7), (2, 1)");
+
+            new SchemaMigrator(SchemaMigrations.all()).migrate(conn);
+
+            try (ResultSet rs = stmt.executeQuery("SELECT page_book FROM progress WHERE id_book = 1")) {
+                assertTrue(rs.next());
+                assertEquals(7, rs.getInt(1), "Latest progress row must be kept");
+                assertFalse(rs.next());
+            }
+            assertThrows(SQLException.class,
+                    () -> stmt.executeUpdate("INSERT INTO progress(id_book, page_book) VALUES (2, 5)"));
+        }
+    }
+
+    @Test
+    public void testMovesLegacyBodiesIntoChunks() throws SQLException {
+        List<Migration> all = SchemaMigrations.all();
+        StringBuilder body = new StringBuilder("  ");
+        for (int i = 0; i < 450; i++) {
+            body.append("palabra").append(i).append(i % 10 == 9 ? "\n" : " ");
+        }
+        try (Connection conn = pool.borrowWriter(); Statement stmt = conn.createStatement()) {
+            // Bodies stored in texts.text, as before migration 4
+            new SchemaMigrator(all.subList(0, 3)).migrate(conn);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO texts(id_text, tittle, text, creation_date) VALUES (1, 't', ?, datetime('now'))")) {
+                insert.setString(1, body.toString());
+                insert.executeUpdate();
+            }
+
+            new SchemaMigrator(all).migrate(conn);
+
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT word_count, char_count, page_count, content_hash FROM texts WHERE id_text = 1")) {
+                assertTrue(rs.next());
+                assertEquals(450, rs.getInt("word_count"));
+                assertEquals(body.length(), rs.getInt("char_count"));
+                assertEquals(3, rs.getInt("page_count"));
+                assertEquals(ContentHash.of(body.toString()), rs.getString("content_hash"));
+            }
+            List<String> chunks = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT codec, raw_length, content FROM text_chunks WHERE id_text = 1 ORDER BY chunk_index")) {
+                while (rs.next()) {
+                    chunks.add(TextCodec.fromId(rs.getInt("codec"))
+                            .decode(rs.getBytes("content"), rs.getInt("raw_length")));
+                }
+            }
+            // Exact substrings of 200 words; the leading whitespace stays in the first one
+            assertEquals(3, chunks.size());
+            assertEquals(body.substring(0, body.indexOf("palabra200")), chunks.get(0));
+            assertEquals(body.toString(), String.join("", chunks));
+        }
+    }
+
+    @Test
+    public void testFillsChunkLayoutAndProgressOffset() throws SQLException {
+        List<Migration> all = SchemaMigrations.all();
+        try (Connection conn = pool.borrowWriter(); Statement stmt = conn.createStatement()) {
+            new SchemaMigrator(all.subList(0, 8)).migrate(conn);
+            stmt.executeUpdate("INSERT INTO texts(id_text, tittle, creation_date) VALUES (1, 't', datetime('now'))");
+            String[] chunks = {"uno dos\n", "tres cuatro ", "cinco"};
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO text_chunks(id_text, chunk_index, codec, raw_length, content) VALUES (1, ?, ?, ?, ?)")) {
+                for (int i = 0; i < chunks.length; i++) {
+                    TextCodec.Encoded encoded = TextCodec.encodeBest(chunks[i], true);
+                    insert.setInt(1, i);
+                    insert.setInt(2, encoded.getCodec().getId());
+                    insert.setInt(3, encoded.getRawLength());
+                    insert.setBytes(4, encoded.getData());
+                    insert.executeUpdate();
+                }
+            }
+            stmt.executeUpdate("INSERT INTO progress(id_book, page_book) VALUES (1, 3)");
+
+            new SchemaMigrator(all).migrate(conn);
+
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT char_length, paragraphs FROM text_chunks WHERE id_text = 1 ORDER BY chunk_index")) {
+                int[][] expected = {{8, 1}, {12, 1}, {5, 0}};
+                for (int[] chunk : expected) {
+                    assertTrue(rs.next());
+                    assertEquals(chunk[0], rs.getInt("char_length"));
+                    assertEquals(chunk[1], rs.getInt("paragraphs"));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT char_offset FROM progress WHERE id_book = 1")) {
+                assertTrue(rs.next());
+                assertEquals(20, rs.getInt(1), "Page 3 starts after the 8 + 12 characters of pages 1 and 2");
+            }
+        }
+    }
+
+    @Test
+    public void testFailedMigrationIsRolledBack() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(List.of(
+                Migration.sql(1, "create", "CREATE TABLE sample (id INTEGER PRIMARY KEY)"),
+                Migration.sql(2, "broken",
+                        "CREATE TABLE partial (id INTEGER)",
+                        "INSERT INTO missing_table VALUES (1)")));
+
+        try (Connection conn = pool.borrowWriter()) {
+            assertThrows(SQLException.class, () -> migrator.migrate(conn));
+            assertEquals(1, SchemaMigrator.getVersion(conn));
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE name = 'partial'")) {
+                assertFalse(rs.next(), "Statements of the failed migration must be rolled back");
+            }
+        }
+    }
+
+    @Test
+    public void testRejectsDuplicateVersions() {
+        assertThrows(IllegalArgumentException.class, () -> new SchemaMigrator(List.of(
+                Migration.sql(1, "a", "SELECT 1"),
+                Migration.sql(1, "b", "SELECT 1"))));
+    }
+
+    private static boolean indexExists(Connection conn, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = '" + name + "'")) {
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.leelo.dao;
+
+import com.leelo.model.ImportResult;
+import com.leelo.model.Texts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final TextDAO textDAO = new TextDAO();
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty("leelo.db.path", tempDir.resolve("test.db").toString());
+        // A write that waits for the writer connection fails fast instead of after 30 s
+        System.setProperty("leelo.db.pool.borrowTimeoutMs", "500");
+        Database.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Database.shutdown();
+        System.clearProperty("leelo.db.path");
+        System.clearProperty("leelo.db.pool.borrowTimeoutMs");
+    }
+
+    private static Texts text(String title, String body) {
+        Texts text = new Texts();
+        text.setTittle(title);
+        text.setText(body);
+        return text;
+    }
+
+    @Test
+    public void testOtherWritesRunWhileAStreamedBodyIsWritten() {
+        Texts book = text("Book", null);
+        boolean[] stored = new boolean[1];
+
+        ImportResult result = textDAO.insertText(book, out -> {
+            for (int i = 0; i < 1000; i++) {
+                out.write("palabra" + i + " ");
+                if (i == 500) {
+                    // E.g. a word saved in the reader while a book is imported
+                    stored[0] = textDAO.insertText(text("Note", "Una nota corta"));
+                }
+            }
+        });
+
+        assertTrue(stored[0]);
+        assertEquals(ImportResult.STORED, result);
+        assertEquals(5, textDAO.getParagraphIndex(book.getIdText()).getChunkCount());
+        assertTrue(textDAO.getText(book.getIdText()).getText().startsWith("palabra0 palabra1 "));
+    }
+
+    @Test
+    public void testFailedBodyStoresNothingAndLeavesNoSpoolFile() throws IOException {
+        long spoolFiles = spoolFiles();
+
+        ImportResult result = textDAO.insertText(text("Broken", null), out -> {
+            out.write("palabra ".repeat(500));
+            throw new IOException("unreadable");
+        });
+
+        assertEquals(ImportResult.FAILED, result);
+        assertEquals(spoolFiles, spoolFiles());
+        assertTrue(textDAO.listSummaries().isEmpty());
+    }
+
+    @Test
+    public void testSpooledDuplicateReceivesTheStoredId() throws IOException {
+        Texts first = text("First", null);
+        assertEquals(ImportResult.STORED, textDAO.insertText(first, out -> out.write("El perro come pan")));
+
+        Texts second = text("Second", null);
+        try (TextDAO.SpooledText spooled = textDAO.spool(second, out -> out.write("El perro come pan"))) {
+            assertEquals(1, spooled.getPageCount());
+            assertEquals(ImportResult.DUPLICATE, textDAO.insertSpooled(spooled));
+        }
+        assertEquals(first.getIdText(), second.getIdText());
+        assertNotEquals(0, second.getIdText());
+
+        try (TextDAO.SpooledText empty = textDAO.spool(text("Empty", null), out -> {
+        })) {
+            assertEquals(ImportResult.EMPTY, textDAO.insertSpooled(empty));
+        }
+        assertThrows(IOException.class, () -> textDAO.spool(text("Broken", null), out -> {
+            throw new IOException("unreadable");
+        }));
+    }
+
+    private static long spoolFiles() throws IOException {
+        try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("leelo-import")).count();
+        }
+    }
+}
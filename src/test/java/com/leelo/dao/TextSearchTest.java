@@ -0,0 +1,87 @@
+package com.leelo.dao;
+
+import com.leelo.model.TextSearchHit;
+import com.leelo.model.Texts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextSearchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final TextDAO textDAO = new TextDAO();
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty("leelo.db.path", tempDir.resolve("test.db").toString());
+        Database.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Database.shutdown();
+        System.clearProperty("leelo.db.path");
+    }
+
+    private int addText(String body) {
+        Texts text = new Texts();
+        text.setTittle("Search");
+        text.setText(body);
+        assertTrue(textDAO.insertText(text));
+        return text.getIdText();
+    }
+
+    @Test
+    public void testSnippetComesFromTheMatchingChunk() {
+        // The match is on the second chunk of 200 words
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            body.append(i == 310 ? "Corazón" : "palabra" + i).append(' ');
+        }
+        int idText = addText(body.toString());
+
+        List<TextSearchHit> hits = textDAO.searchPages("coraz", 10);
+
+        assertEquals(1, hits.size());
+        TextSearchHit hit = hits.get(0);
+        assertEquals(idText, hit.getIdText());
+        assertEquals(2, hit.getPage());
+        assertEquals("…palabra307 palabra308 palabra309 [Corazón] palabra311 palabra312 palabra313 "
+                + "palabra314 palabra315 palabra316 palabra317 palabra318…", hit.getSnippet());
+    }
+
+    @Test
+    public void testIndexKeepsNoCopyOfThePages() throws SQLException {
+        int idText = addText("El perro come pan en la cocina");
+        assertEquals(1, textDAO.searchPages("perro cocina", 10).size());
+
+        try (Connection conn = Database.getConnection(); Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT name FROM sqlite_master WHERE name = 'text_search_content'")) {
+                assertFalse(rs.next());
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT content FROM text_search")) {
+                assertTrue(rs.next());
+                assertNull(rs.getString("content"));
+            }
+        }
+
+        assertTrue(textDAO.deleteText(idText));
+        assertTrue(textDAO.searchPages("perro", 10).isEmpty());
+    }
+}
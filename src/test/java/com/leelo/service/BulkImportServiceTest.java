@@ -0,0 +1,184 @@
+package com.leelo.service;
+
+import com.leelo.dao.Database;
+import com.leelo.util.TextCleaner;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty("leelo.db.path", tempDir.resolve("test.db").toString());
+        Database.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Database.shutdown();
+        System.clearProperty("leelo.db.path");
+    }
+
+    @Test
+    public void testImportsLibraryAndReportsEveryFile() throws IOException {
+        Path library = Files.createDirectories(tempDir.resolve("library"));
+        for (int i = 0; i < 40; i++) {
+            Files.writeString(library.resolve("book" + i + ".txt"), "Chapter " + i + "\n\nca-lculator [1] text " + i);
+        }
+        Files.writeString(library.resolve("blank.txt"), "  \n\n ");
+        // Not valid UTF-8
+        Files.write(library.resolve("broken.txt"), new byte[]{'a', (byte) 0xC3, (byte) 0x28});
+        Files.writeString(library.resolve("notes.md"), "ignored");
+        writePdf(library.resolve("paper.pdf"), "Hello from a PDF");
+
+        AtomicInteger progress = new AtomicInteger();
+        BulkImportService.Summary summary = new BulkImportService().importDirectory(library,
+                (result, done, total) -> {
+                    assertEquals(43, total);
+                    progress.accumulateAndGet(done, Math::max);
+                }, () -> false);
+
+        assertEquals(43, summary.getResults().size());
+        assertEquals(43, progress.get());
+        assertEquals(41, summary.count(BulkImportService.Status.IMPORTED));
+        assertEquals(1, summary.count(BulkImportService.Status.EMPTY));
+        assertEquals(1, summary.count(BulkImportService.Status.FAILED));
+        assertTrue(summary.getBytesRead() > 0);
+
+        TextService textService = new TextService();
+        assertEquals(41, textService.listTextSummaries().size());
+        for (BulkImportService.FileResult result : summary.getResults()) {
+            if (result.getFile().getFileName().toString().equals("book7.txt")) {
+                assertEquals("Chapter 7\n\ncalculator text 7", textService.getText(result.getIdText()).getText());
+            }
+        }
+    }
+
+    @Test
+    public void testFileListedTwiceIsImportedOnce() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("story.txt"), "Once upon a time");
+        List<Path> files = new ArrayList<>(List.of(file, tempDir.resolve(".").resolve("story.txt")));
+
+        BulkImportService.Summary summary = new BulkImportService().importFiles(files, (result, done, total) -> {
+        }, () -> false);
+
+        assertEquals(1, summary.count(BulkImportService.Status.IMPORTED));
+        assertEquals(1, summary.count(BulkImportService.Status.DUPLICATE));
+        assertEquals(1, new TextService().listTextSummaries().size());
+    }
+
+    @Test
+    public void testSameTextIsStoredOnce() throws IOException {
+        Path first = Files.writeString(tempDir.resolve("copy1.txt"), "The same story\n\nin two files");
+        Path second = Files.writeString(tempDir.resolve("copy2.txt"), "The same story\n\nin two files\n\n\n");
+        Path other = Files.writeString(tempDir.resolve("other.txt"), "A different story");
+        List<Path> files = List.of(first, second, other);
+        BulkImportService service = new BulkImportService();
+
+        BulkImportService.Summary summary = service.importFiles(files, (result, done, total) -> {
+        }, () -> false);
+
+        assertEquals(2, summary.count(BulkImportService.Status.IMPORTED));
+        assertEquals(1, summary.count(BulkImportService.Status.DUPLICATE));
+        assertEquals(2, new TextService().listTextSummaries().size());
+        int[] copyIds = summary.getResults().stream()
+                .filter(result -> result.getFile().getFileName().toString().startsWith("copy"))
+                .mapToInt(BulkImportService.FileResult::getIdText).distinct().toArray();
+        assertEquals(1, copyIds.length);
+
+        BulkImportService.Summary again = service.importFiles(files, (result, done, total) -> {
+        }, () -> false);
+
+        assertEquals(3, again.count(BulkImportService.Status.DUPLICATE));
+        assertEquals(2, new TextService().listTextSummaries().size());
+    }
+
+    @Test
+    public void testLargeFilesAreStreamed() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            body.append("Line ").append(i).append(" of a long ca-\nlculator book\n");
+        }
+        Path large = Files.writeString(tempDir.resolve("large.txt"), body.toString());
+        Path copy = Files.writeString(tempDir.resolve("large copy.txt"), body + "\n\n");
+        Path small = Files.writeString(tempDir.resolve("small.txt"), "A short story");
+        Path pdf = tempDir.resolve("large.pdf");
+        writePdf(pdf, "Un libro entero en PDF");
+        long spoolFiles = spoolFiles();
+        // Everything over 1 KB is spooled page by page while it is read
+        BulkImportService service = new BulkImportService(1024);
+
+        BulkImportService.Summary summary = service.importFiles(List.of(large, copy, small, pdf),
+                (result, done, total) -> {
+                }, () -> false);
+
+        assertEquals(3, summary.count(BulkImportService.Status.IMPORTED));
+        assertEquals(1, summary.count(BulkImportService.Status.DUPLICATE));
+        assertEquals(spoolFiles, spoolFiles());
+        TextService textService = new TextService();
+        assertEquals(3, textService.listTextSummaries().size());
+        String expected = TextCleaner.clean(body.toString());
+        for (BulkImportService.FileResult result : summary.getResults()) {
+            // Both are spooled at once, so either of them may be the one stored
+            if (result.getFile().equals(large) || result.getFile().equals(copy)) {
+                assertEquals(expected.length(), result.getCharCount());
+                assertEquals(expected, textService.getText(result.getIdText()).getText());
+            }
+            if (result.getFile().equals(pdf)) {
+                assertEquals("Un libro entero en PDF", textService.getText(result.getIdText()).getText().trim());
+            }
+        }
+    }
+
+    @Test
+    public void testCancelledImportStoresNothing() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("story.txt"), "Once upon a time");
+
+        BulkImportService.Summary summary = new BulkImportService().importFiles(List.of(file), (result, done, total) -> {
+        }, () -> true);
+
+        assertEquals(1, summary.count(BulkImportService.Status.CANCELLED));
+        assertTrue(new TextService().listTextSummaries().isEmpty());
+    }
+    private static long spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("leelo-import")).count();
+        }
+    }
+
+    private static void writePdf(Path path, String text) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                content.newLineAtOffset(50, 700);
+                content.showText(text);
+                content.endText();
+            }
+            document.save(path.toFile());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.leelo.service;
+
+import com.leelo.model.ReaderPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PageCacheTest {
+
+    @Test
+    public void testDropsLeastRecentlyUsedPage() {
+        PageCache cache = new PageCache(3);
+        ReaderPage first = page(1, 1);
+        cache.put(first, 0);
+        cache.put(page(1, 2), 0);
+        cache.put(page(1, 3), 0);
+
+        // Reading page 1 again makes page 2 the oldest
+        assertSame(first, cache.get(1, 1).getPage());
+        cache.put(page(1, 4), 0);
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(1, 2));
+        assertTrue(cache.contains(1, 1));
+        assertTrue(cache.contains(1, 4));
+    }
+
+    @Test
+    public void testPagesOfDifferentTextsDoNotCollide() {
+        PageCache cache = new PageCache(4);
+        cache.put(page(1, 2), 5);
+        cache.put(page(2, 1), 6);
+
+        assertEquals(5, cache.get(1, 2).getVocabularyVersion());
+        assertEquals(2, cache.get(2, 1).getPage().getIdText());
+        assertFalse(cache.contains(2, 2));
+    }
+
+    private static ReaderPage page(int idText, int number) {
+        return new ReaderPage(idText, number, List.of());
+    }
+}
@@ -0,0 +1,205 @@
+package com.leelo.service;
+
+import com.leelo.dao.Database;
+import com.leelo.model.ParagraphIndex;
+import com.leelo.model.ReaderPage;
+import com.leelo.model.ReaderToken;
+import com.leelo.model.Texts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PaginationEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty("leelo.db.path", tempDir.resolve("test.db").toString());
+        Database.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Database.shutdown();
+        System.clearProperty("leelo.db.path");
+    }
+
+    /**
+     * 10 pixels per character, spaces included, and lines 20 pixels high
+     */
+    private static final class FixedMeasurer implements PaginationEngine.Measurer {
+        @Override
+        public double[] widths(List<String> words) {
+            double[] widths = new double[words.size()];
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = 10 * words.get(i).length();
+            }
+            return widths;
+        }
+
+        @Override
+        public double spaceWidth() {
+            return 10;
+        }
+
+        @Override
+        public double lineHeight() {
+            return 20;
+        }
+    }
+
+    private static ParagraphIndex addText(String body) {
+        Texts text = new Texts();
+        text.setTittle("Pagination");
+        text.setText(body);
+        TextService textService = new TextService();
+        assertTrue(textService.addText(text));
+        return textService.getParagraphIndex(text.getIdText());
+    }
+
+    private static void awaitComplete(Pagination pagination) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        pagination.whenComplete(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFitsLinesOfTheWidthIntoPagesOfTheHeight() throws InterruptedException {
+        // Words of 4 characters: two per line of 100 pixels, three lines per page of 60
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            body.append("w").append(String.format("%03d", i)).append(i % 50 == 49 ? "\n\n" : " ");
+        }
+        ParagraphIndex index = addText(body.toString());
+        PaginationEngine engine = new PaginationEngine(new TextService());
+
+        Pagination pagination = engine.paginate(index, new PaginationEngine.Layout("Serif", 20, 100, 60), FixedMeasurer::new);
+        awaitComplete(pagination);
+
+        assertTrue(pagination.isComplete());
+        assertEquals(3, pagination.getLinesPerPage());
+        assertEquals(167, pagination.getPageCount());
+        int seventh = body.indexOf("w006");
+        assertEquals(seventh, pagination.getPageStart(2));
+        assertEquals(seventh, pagination.getPageEnd(1));
+        assertEquals(2, pagination.pageOf(seventh));
+        assertEquals(1, pagination.pageOf(seventh - 1));
+        assertEquals(167, pagination.pageOf(body.length() - 1));
+        assertEquals(167, pagination.estimatePageOf(body.length() - 1));
+        assertEquals(index.getCharCount(), pagination.getPageEnd(167));
+    }
+
+    @Test
+    public void testPageOfAnOffsetIsPassedOnceItIsLaidOut() throws InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            body.append("w").append(String.format("%05d", i)).append(i % 50 == 49 ? "\n\n" : " ");
+        }
+        ParagraphIndex index = addText(body.toString());
+        PaginationEngine engine = new PaginationEngine(new TextService());
+        int offset = body.indexOf("w15000");
+
+        Pagination pagination = engine.paginate(index, new PaginationEngine.Layout("Serif", 20, 100, 60), FixedMeasurer::new);
+        // Registered while the layout may still be running
+        AtomicInteger whileLaidOut = new AtomicInteger();
+        CountDownLatch passed = new CountDownLatch(1);
+        pagination.whenPageOf(offset, page -> {
+            whileLaidOut.set(page);
+            passed.countDown();
+        });
+        assertTrue(passed.await(10, TimeUnit.SECONDS));
+        awaitComplete(pagination);
+
+        AtomicInteger afterLayout = new AtomicInteger();
+        pagination.whenPageOf(offset, afterLayout::set);
+        assertEquals(pagination.pageOf(offset), whileLaidOut.get());
+        assertEquals(pagination.pageOf(offset), afterLayout.get());
+    }
+
+    @Test
+    public void testReusesLinesForTheSameFontAndWidth() throws InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 600; i++) {
+            body.append("word ");
+        }
+        ParagraphIndex index = addText(body.toString());
+        PaginationEngine engine = new PaginationEngine(new TextService());
+        AtomicInteger measurers = new AtomicInteger();
+
+        Pagination tall = engine.paginate(index, new PaginationEngine.Layout("Serif", 20, 100, 200), () -> {
+            measurers.incrementAndGet();
+            return new FixedMeasurer();
+        });
+        awaitComplete(tall);
+        Pagination shorter = engine.paginate(index, new PaginationEngine.Layout("Serif", 20, 100, 100), () -> {
+            measurers.incrementAndGet();
+            return new FixedMeasurer();
+        });
+
+        // Another height only groups the same 300 lines differently
+        assertEquals(1, measurers.get());
+        assertTrue(shorter.isComplete());
+        assertEquals(30, tall.getPageCount());
+        assertEquals(60, shorter.getPageCount());
+        assertEquals(tall.getPageStart(2), shorter.getPageStart(3));
+
+        Pagination wider = engine.paginate(index, new PaginationEngine.Layout("Serif", 20, 150, 200), FixedMeasurer::new);
+        awaitComplete(wider);
+        assertEquals(20, wider.getPageCount());
+    }
+
+    @Test
+    public void testWordWiderThanTheLineGetsALineOfItsOwn() throws InterruptedException {
+        ParagraphIndex index = addText("a " + "x".repeat(25) + " b c");
+        PaginationEngine engine = new PaginationEngine(new TextService());
+
+        Pagination pagination = engine.paginate(index, new PaginationEngine.Layout("Serif", 20, 100, 20), FixedMeasurer::new);
+        awaitComplete(pagination);
+
+        assertEquals(3, pagination.getPageCount());
+        assertEquals(2, pagination.getPageStart(2));
+        assertEquals(28, pagination.getPageStart(3));
+        assertEquals(3, pagination.pageOf(index.getCharCount() - 1));
+    }
+
+    @Test
+    public void testReaderPagesCoverTheTextInOrder() throws InterruptedException {
+        // Words of different widths across several chunks
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 700; i++) {
+            body.append("w".repeat(1 + i % 7)).append(i).append(i % 40 == 39 ? "\n" : " ");
+        }
+        ParagraphIndex index = addText(body.toString());
+        Pagination pagination = new PaginationEngine(new TextService())
+                .paginate(index, new PaginationEngine.Layout("Serif", 20, 300, 200), FixedMeasurer::new);
+        awaitComplete(pagination);
+
+        ReaderService reader = new ReaderService();
+        List<String> words = new ArrayList<>();
+        for (int page = 1; page <= pagination.getPageCount(); page++) {
+            ReaderPage prepared = reader.preparePage(index, pagination, page);
+            assertEquals(pagination.getPageStart(page), prepared.getCharOffset());
+            for (ReaderToken token : prepared.getTokens()) {
+                words.add(token.getText().trim());
+            }
+        }
+        assertEquals(700, words.size());
+        for (int i = 0; i < 700; i++) {
+            assertEquals("w".repeat(1 + i % 7) + i, words.get(i));
+        }
+        assertTrue(reader.preparePage(index, pagination, pagination.getPageCount() + 1).isEmpty());
+    }
+}
@@ -0,0 +1,145 @@
+package com.leelo.service;
+
+import com.leelo.dao.Database;
+import com.leelo.model.ImportResult;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PdfImportServiceTest {
+
+    private static final int PAGES = 60;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty("leelo.db.path", tempDir.resolve("test.db").toString());
+        Database.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Database.shutdown();
+        System.clearProperty("leelo.db.path");
+    }
+
+    @Test
+    public void testCancelledImportLeavesNoRows() throws IOException, SQLException {
+        File file = writePdf(tempDir.resolve("book.pdf"));
+        AtomicInteger extracted = new AtomicInteger();
+
+        // Enough pages go out before the cancel for the import to have flushed a batch of chunks
+        ImportResult result = new PdfImportService(1).importPdf(file, "Book", new PdfImportService.Listener() {
+            @Override
+            public void pageExtracted(int page, int pageCount) {
+                extracted.set(page);
+            }
+        }, () -> extracted.get() >= 40);
+
+        assertEquals(ImportResult.CANCELLED, result);
+        assertEquals(40, extracted.get());
+        assertEquals(0, count("texts"));
+        assertEquals(0, count("text_chunks"));
+        assertEquals(0, count("text_search"));
+    }
+
+    @Test
+    public void testSecondImportOfTheSamePdfIsADuplicate() throws IOException, SQLException {
+        File file = writePdf(tempDir.resolve("book.pdf"));
+        PdfImportService service = new PdfImportService(2);
+
+        assertEquals(ImportResult.STORED, service.importPdf(file, "Book", (page, count) -> {
+        }, () -> false));
+        assertEquals(ImportResult.DUPLICATE, service.importPdf(file, "Book again", (page, count) -> {
+        }, () -> false));
+        assertEquals(1, count("texts"));
+    }
+
+    @Test
+    public void testWorkersExtractTheSameTextInPageOrder() throws IOException {
+        File file = writePdf(tempDir.resolve("book.pdf"));
+
+        StringWriter sequential = new StringWriter();
+        new PdfImportService(1).extractText(file, sequential, (page, count) -> {
+        }, () -> false);
+        // Ranges of 8 pages, more ranges than workers and a shorter last one
+        StringWriter parallel = new StringWriter();
+        AtomicInteger reported = new AtomicInteger();
+        new PdfImportService(3).extractText(file, parallel, (page, count) -> {
+            assertTrue(page > reported.get());
+            reported.set(page);
+        }, () -> false);
+
+        assertEquals(sequential.toString(), parallel.toString());
+        assertEquals(PAGES, reported.get());
+        String text = sequential.toString();
+        assertTrue(text.indexOf("Page 9 line 45 ") < text.indexOf("Page 10 line 1 "));
+        assertTrue(text.contains("Page " + PAGES + " line 45 "));
+    }
+
+    @Test
+    public void testCancelledExtractionThrows() throws IOException {
+        File file = writePdf(tempDir.resolve("book.pdf"));
+        for (int workers : new int[]{1, 4}) {
+            AtomicInteger extracted = new AtomicInteger();
+            assertThrows(InterruptedIOException.class, () -> new PdfImportService(workers).extractText(file,
+                    new StringWriter(), (page, count) -> extracted.set(page), () -> extracted.get() >= 16));
+            assertEquals(16, extracted.get());
+        }
+    }
+
+    private static int count(String table) throws SQLException {
+        try (Connection conn = Database.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Writes a PDF of PAGES pages of 45 lines, each page and line telling where it is
+     */
+    private static File writePdf(Path path) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int p = 1; p <= PAGES; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.newLineAtOffset(50, 740);
+                    for (int line = 1; line <= 45; line++) {
+                        content.showText("Page " + p + " line " + line + " of the book we read slowly");
+                        content.newLineAtOffset(0, -15);
+                    }
+                    content.endText();
+                }
+            }
+            document.save(path.toFile());
+        }
+        return path.toFile();
+    }
+}
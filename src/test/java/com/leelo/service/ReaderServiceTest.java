@@ -0,0 +1,164 @@
+package com.leelo.service;
+
+import com.leelo.dao.Database;
+import com.leelo.model.ParagraphIndex;
+import com.leelo.model.ReaderPage;
+import com.leelo.model.ReaderToken;
+import com.leelo.model.ReadingPosition;
+import com.leelo.model.Texts;
+import com.leelo.model.Word;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReaderServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty("leelo.db.path", tempDir.resolve("test.db").toString());
+        Database.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Database.shutdown();
+        System.clearProperty("leelo.db.path");
+    }
+
+    @Test
+    public void testBuildPageClassifiesTokens() {
+        Map<String, Word> vocabulary = new HashMap<>();
+        Word casa = new Word();
+        casa.setTerm("casa");
+        casa.setState(3);
+        vocabulary.put("casa", casa);
+
+        ReaderPage page = ReaderService.buildPage(7, 2, "  La Casa,\n\tgrande  ", vocabulary::get);
+
+        assertEquals(7, page.getIdText());
+        assertEquals(2, page.getNumber());
+        List<ReaderToken> tokens = page.getTokens();
+        assertEquals(3, tokens.size());
+        assertEquals("La ", tokens.get(0).getText());
+        assertEquals(ReaderToken.NOT_SAVED, tokens.get(0).getState());
+        assertEquals("Casa, ", tokens.get(1).getText());
+        assertEquals("casa", tokens.get(1).getKey());
+        assertEquals(3, tokens.get(1).getState());
+        assertEquals("grande ", tokens.get(2).getText());
+    }
+
+    @Test
+    public void testBlankPageIsEmpty() {
+        assertTrue(ReaderService.buildPage(1, 1, null, key -> null).isEmpty());
+        assertTrue(ReaderService.buildPage(1, 1, " \n ", key -> null).isEmpty());
+    }
+
+    @Test
+    public void testReclassifyOnlyCopiesChangedTokens() {
+        Map<String, Word> vocabulary = new HashMap<>();
+        ReaderPage page = ReaderService.buildPage(1, 1, "el perro come", vocabulary::get);
+        assertSame(page, ReaderService.reclassify(page, vocabulary::get));
+
+        Word perro = new Word();
+        perro.setTerm("perro");
+        perro.setState(2);
+        vocabulary.put("perro", perro);
+        ReaderPage updated = ReaderService.reclassify(page, vocabulary::get);
+
+        assertNotSame(page, updated);
+        assertEquals(2, updated.getTokens().get(1).getState());
+        assertSame(page.getTokens().get(0), updated.getTokens().get(0));
+        assertSame(page.getTokens().get(2), updated.getTokens().get(2));
+    }
+
+    @Test
+    public void testParagraphsCoverTextAcrossChunks() {
+        // Paragraphs of 1 to 340 words, and one of 900 words that has to be cut
+        StringBuilder body = new StringBuilder();
+        List<Integer> starts = new ArrayList<>();
+        int word = 0;
+        for (int p = 0; p < 60; p++) {
+            starts.add(body.length());
+            int words = p == 30 ? 900 : 1 + (p * 37) % 340;
+            for (int i = 0; i < words; i++) {
+                body.append("w").append(word++).append(i + 1 < words ? " " : "");
+            }
+            body.append(p % 3 == 0 ? "\n\n" : "\n");
+        }
+        Texts text = new Texts();
+        text.setTittle("Paragraphs");
+        text.setText(body.toString());
+        assertTrue(new TextService().addText(text));
+
+        ReaderService reader = new ReaderService();
+        ParagraphIndex index = reader.loadParagraphIndex(text.getIdText());
+        assertEquals(body.length(), index.getCharCount());
+
+        List<String> words = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        for (int p = 0; p < index.getParagraphCount(); p++) {
+            ReaderPage paragraph = reader.prepareParagraph(index, p);
+            assertEquals(p, paragraph.getNumber());
+            assertTrue(paragraph.getTokens().size() <= 2 * 200, "a paragraph spans at most two chunks");
+            offsets.add(paragraph.getCharOffset());
+            for (ReaderToken token : paragraph.getTokens()) {
+                words.add(token.getText().trim());
+            }
+        }
+        assertEquals(word, words.size());
+        for (int i = 0; i < word; i++) {
+            assertEquals("w" + i, words.get(i));
+        }
+        // Every paragraph of the text starts a paragraph of the reader; long ones are cut as well
+        assertTrue(offsets.containsAll(starts), offsets.toString());
+        assertTrue(index.getParagraphCount() > starts.size());
+
+        int sixth = offsets.get(5);
+        assertEquals(5, reader.findParagraph(index, sixth));
+        assertEquals(5, reader.findParagraph(index, sixth + 3));
+        assertEquals(index.getParagraphCount() - 1, reader.findParagraph(index, body.length() - 1));
+    }
+
+    @Test
+    public void testSavesPositionWithReaderPages() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 450; i++) {
+            body.append("palabra").append(i).append(' ');
+        }
+        Texts text = new Texts();
+        text.setTittle("Offsets");
+        text.setText(body.toString());
+        TextService textService = new TextService();
+        assertTrue(textService.addText(text));
+        ParagraphIndex index = textService.getParagraphIndex(text.getIdText());
+
+        ReaderService.saveProgress(text.getIdText(), 2, 5, index.getCharStart(1) + 40);
+        ReaderService.flushProgress();
+        assertEquals(index.getCharStart(1) + 40, textService.getCharOffset(text.getIdText()));
+        ReadingPosition position = textService.getReadingPosition(text.getIdText());
+        assertEquals(2, position.getPage());
+        assertEquals(5, position.getPageTotal());
+        // The home screen shows the pages of the reader
+        assertEquals(40, position.getPercent(index.getCharCount()));
+
+        // Without the reader's pages the progress is the share of characters read
+        ReaderService.saveProgress(text.getIdText(), 0, 0, index.getCharCount() / 4);
+        ReaderService.flushProgress();
+        assertEquals(25, textService.getReadingPosition(text.getIdText()).getPercent(index.getCharCount()));
+    }
+}
@@ -0,0 +1,208 @@
+package com.leelo.service;
+
+import com.leelo.util.ContentHash;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UrlFetchServiceTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/etag", exchange -> {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            send(exchange, 200, "<html><body><p>Hola, mañana</p></body></html>");
+        });
+        server.createContext("/dated", exchange -> {
+            if (LAST_MODIFIED.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+            send(exchange, 200, "<html><body>dated</body></html>");
+        });
+        server.createContext("/slow", exchange -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            send(exchange, 200, "<html><body>" + exchange.getRequestURI().getPath() + "</body></html>");
+        });
+        server.createContext("/missing", exchange -> send(exchange, 404, "not here"));
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void send(HttpExchange exchange, int status, String html) throws IOException {
+        fullResponses.incrementAndGet();
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private UrlFetchService newService(int maxPerHost) {
+        return new UrlFetchService(new HttpDiskCache(tempDir.resolve("cache")), 8, maxPerHost, Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testRevalidatesWithEtag() throws IOException {
+        UrlFetchService service = newService(2);
+
+        UrlFetchService.FetchResult first = service.fetch(uri("/etag"));
+        assertEquals(UrlFetchService.Source.NETWORK, first.getSource());
+        assertEquals("Hola, mañana", first.parse().body().text());
+
+        // A new service reads the cache back from disk
+        UrlFetchService.FetchResult second = newService(2).fetch(uri("/etag"));
+        assertEquals(UrlFetchService.Source.NOT_MODIFIED, second.getSource());
+        assertEquals("Hola, mañana", second.parse().body().text());
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    public void testRevalidatesWithLastModified() throws IOException {
+        UrlFetchService service = newService(2);
+        service.fetch(uri("/dated"));
+        UrlFetchService.FetchResult again = service.fetch(uri("/dated"));
+
+        assertEquals(UrlFetchService.Source.NOT_MODIFIED, again.getSource());
+        assertEquals("dated", again.parse().body().text());
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    public void testBatchKeepsOrderAndPerHostLimit() {
+        List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            uris.add(uri("/slow/" + i));
+        }
+        AtomicInteger reported = new AtomicInteger();
+
+        List<UrlFetchService.FetchResult> results = newService(3).fetchAll(uris,
+                (result, done, total) -> reported.incrementAndGet(), () -> false);
+
+        assertEquals(12, results.size());
+        assertEquals(12, reported.get());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(uris.get(i), results.get(i).getUri());
+            assertTrue(results.get(i).isOk());
+        }
+        assertTrue(maxInFlight.get() <= 3, "at most 3 requests per host, saw " + maxInFlight.get());
+    }
+
+    @Test
+    public void testServesStaleCopyWhenServerIsDown() throws IOException {
+        UrlFetchService service = newService(2);
+        URI uri = uri("/etag");
+        service.fetch(uri);
+        server.stop(0);
+
+        UrlFetchService.FetchResult result = service.fetch(uri);
+
+        assertEquals(UrlFetchService.Source.STALE, result.getSource());
+        assertTrue(result.getError() != null);
+        assertEquals("Hola, mañana", result.parse().body().text());
+    }
+
+    @Test
+    public void testErrorStatusIsNotCached() {
+        UrlFetchService service = newService(2);
+
+        UrlFetchService.FetchResult result = service.fetch(uri("/missing"));
+
+        assertFalse(result.isOk());
+        assertEquals(404, result.getStatusCode());
+        assertNull(new HttpDiskCache(tempDir.resolve("cache")).get(uri("/missing")));
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsedEntries() throws IOException {
+        // Room for two entries of a 1000 byte body, not three
+        HttpDiskCache cache = new HttpDiskCache(tempDir.resolve("lru"), 2500);
+        byte[] body = new byte[1000];
+        assertTrue(cache.put(uri("/a"), new HttpDiskCache.Entry(null, null, "text/html", body)));
+        assertTrue(cache.put(uri("/b"), new HttpDiskCache.Entry(null, null, "text/html", body)));
+        long now = System.currentTimeMillis();
+        setAge(tempDir.resolve("lru"), now - 20_000, now - 10_000);
+
+        // Reading /a makes /b the least recently used
+        assertNotNull(cache.get(uri("/a")));
+        assertTrue(cache.put(uri("/c"), new HttpDiskCache.Entry(null, null, "text/html", body)));
+
+        assertNotNull(cache.get(uri("/a")));
+        assertNull(cache.get(uri("/b")));
+        assertNotNull(cache.get(uri("/c")));
+        assertTrue(cache.size() <= 2500);
+    }
+
+    /**
+     * Sets the modification time of the two entries in the order they were written
+     */
+    private void setAge(Path directory, long first, long second) throws IOException {
+        Path a = directory.resolve(ContentHash.of(uri("/a").toString()) + ".http");
+        Path b = directory.resolve(ContentHash.of(uri("/b").toString()) + ".http");
+        Files.setLastModifiedTime(a, FileTime.fromMillis(first));
+        Files.setLastModifiedTime(b, FileTime.fromMillis(second));
+    }
+}
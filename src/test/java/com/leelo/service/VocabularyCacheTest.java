@@ -0,0 +1,75 @@
+package com.leelo.service;
+
+import com.leelo.dao.WordDAO;
+import com.leelo.model.Word;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VocabularyCacheTest {
+
+    /**
+     * Vocabulary stored in memory instead of the words table
+     */
+    private static class StubWordDAO extends WordDAO {
+        private final List<Word> words;
+
+        StubWordDAO(List<Word> words) {
+            this.words = words;
+        }
+
+        @Override
+        public List<Word> listAll() {
+            return words;
+        }
+    }
+
+    @Test
+    public void testAnnouncesChangedKeys() {
+        VocabularyCache cache = new VocabularyCache(new StubWordDAO(List.of(word(1, "Casa", 2))));
+        List<Set<String>> events = new ArrayList<>();
+        cache.addListener(events::add);
+
+        // Not loaded yet: nothing on screen can show the word
+        cache.put(word(2, "perro", 1));
+        assertTrue(events.isEmpty());
+
+        assertEquals(2, cache.lookup("casa").getState());
+        cache.put(word(1, "casa", 3));
+        cache.put(word(1, "Cosas", 3));
+        cache.remove(1);
+        cache.invalidate();
+
+        assertEquals(List.of(Set.of("casa"), Set.of("casa", "cosas"), Set.of("cosas")), events.subList(0, 3));
+        assertEquals(4, events.size());
+        assertNull(events.get(3), "a dropped vocabulary affects every word");
+    }
+
+    @Test
+    public void testRemovedListenerIsNotCalled() {
+        VocabularyCache cache = new VocabularyCache(new StubWordDAO(List.of()));
+        List<Set<String>> events = new ArrayList<>();
+        VocabularyCache.Listener listener = events::add;
+        cache.addListener(listener);
+        cache.lookup("x");
+        cache.put(word(1, "uno", 1));
+        cache.removeListener(listener);
+        cache.put(word(2, "dos", 1));
+
+        assertEquals(List.of(Set.of("uno")), events);
+    }
+
+    private static Word word(int id, String term, int state) {
+        Word word = new Word();
+        word.setIdTerm(id);
+        word.setTerm(term);
+        word.setState(state);
+        return word;
+    }
+}
@@ -0,0 +1,122 @@
+package com.leelo.util;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArticleExtractorTest {
+
+    /**
+     * Saved pages in src/test/resources/com/leelo/articles; each has a .txt with the article text
+     */
+    static final String[] CORPUS = {"news", "blog", "wiki", "noticia"};
+
+    @Test
+    public void testCorpusQuality() throws IOException {
+        long bodyChars = 0;
+        long articleChars = 0;
+        for (String name : CORPUS) {
+            Document document = load(name);
+            String expected = expected(name);
+            String article = ArticleExtractor.extract(document);
+
+            double f1 = tokenF1(article, expected);
+            assertTrue(f1 >= 0.95, name + ": token F1 " + f1 + "\n" + article);
+            bodyChars += document.body().text().length();
+            articleChars += article.length();
+        }
+        // Navigation, sidebars and footers make up a large part of every page
+        assertTrue(articleChars < bodyChars * 0.7, articleChars + " of " + bodyChars + " body characters kept");
+    }
+
+    @Test
+    public void testLeavesOutBoilerplate() throws IOException {
+        String news = ArticleExtractor.extract(load("news"));
+        assertFalse(news.contains("cookies"));
+        assertFalse(news.contains("Most read"));
+        assertFalse(news.contains("Related stories"));
+        assertFalse(news.contains("Share on Facebook"));
+        assertTrue(news.contains("\n\nCost and funding\n\n"));
+
+        String blog = ArticleExtractor.extract(load("blog"));
+        assertFalse(blog.contains("Mark"), "comments are not part of the article");
+        assertFalse(blog.contains("teacher from Leeds"), "sidebar is not part of the article");
+        assertTrue(blog.contains("Week 1:  3 pages a day"), "preformatted text keeps its spaces");
+    }
+
+    @Test
+    public void testKeepsLineBreaksOfDivLayout() throws IOException {
+        String article = ArticleExtractor.extract(load("noticia"));
+        assertTrue(article.contains("gobiernos de España y Portugal.\n\nEl trayecto durará"), article);
+        assertTrue(article.endsWith("sin coste adicional."), article);
+        assertFalse(article.contains("Lo más leído"));
+    }
+
+    @Test
+    public void testDoesNotModifyDocument() throws IOException {
+        Document document = load("news");
+        String before = document.outerHtml();
+        ArticleExtractor.extract(document);
+        assertEquals(before, document.outerHtml());
+    }
+
+    @Test
+    public void testShortPageFallsBackToBody() {
+        Document document = Jsoup.parse("<html><body><div>Just a short note.</div><p>Nothing else here.</p></body></html>");
+        assertEquals("Just a short note.\n\nNothing else here.", ArticleExtractor.extract(document));
+        assertEquals("", ArticleExtractor.extract(Jsoup.parse("")));
+    }
+
+    static Document load(String name) throws IOException {
+        try (InputStream in = ArticleExtractorTest.class.getResourceAsStream("/com/leelo/articles/" + name + ".html")) {
+            // Charset detected from the page, as for a download without a charset header
+            return Jsoup.parse(in, null, "https://example.com/" + name);
+        }
+    }
+
+    private static String expected(String name) throws IOException {
+        try (InputStream in = ArticleExtractorTest.class.getResourceAsStream("/com/leelo/articles/" + name + ".txt")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Harmonic mean of the precision and recall of the words of the extracted text
+     */
+    private static double tokenF1(String actual, String expected) {
+        Map<String, Integer> expectedCounts = countTokens(expected);
+        Map<String, Integer> actualCounts = countTokens(actual);
+        int common = 0;
+        for (Map.Entry<String, Integer> entry : actualCounts.entrySet()) {
+            common += Math.min(entry.getValue(), expectedCounts.getOrDefault(entry.getKey(), 0));
+        }
+        int actualTotal = actualCounts.values().stream().mapToInt(Integer::intValue).sum();
+        int expectedTotal = expectedCounts.values().stream().mapToInt(Integer::intValue).sum();
+        if (common == 0) {
+            return 0;
+        }
+        double precision = (double) common / actualTotal;
+        double recall = (double) common / expectedTotal;
+        return 2 * precision * recall / (precision + recall);
+    }
+
+    private static Map<String, Integer> countTokens(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                counts.merge(token, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+}
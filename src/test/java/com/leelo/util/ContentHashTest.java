@@ -0,0 +1,53 @@
+package com.leelo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class ContentHashTest {
+
+    @Test
+    public void testMatchesSha256OfUtf8() throws NoSuchAlgorithmException {
+        String text = "Canción de la mañana 😀";
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        assertEquals(HexFormat.of().formatHex(expected), ContentHash.of(text));
+        assertNotEquals(ContentHash.of(text), ContentHash.of(text + " "));
+    }
+
+    @Test
+    public void testPiecesHashLikeWholeText() {
+        Random random = new Random(3);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            int roll = random.nextInt(20);
+            sb.append(roll == 0 ? "😀" : roll == 1 ? "\uD83D" : roll == 2 ? "\uDE00" : roll == 3 ? "ñ"
+                    : String.valueOf((char) ('a' + random.nextInt(26))));
+        }
+        String text = sb.toString();
+        String expected = ContentHash.of(text);
+
+        for (int round = 0; round < 50; round++) {
+            ContentHash hash = new ContentHash();
+            int pos = 0;
+            while (pos < text.length()) {
+                int end = Math.min(text.length(), pos + random.nextInt(5));
+                hash.update(text.substring(pos, end));
+                pos = end;
+            }
+            assertEquals(expected, hash.hex());
+        }
+    }
+
+    @Test
+    public void testSurrogatePairSplitAcrossPieces() {
+        assertEquals(ContentHash.of("a😀b"), new ContentHash().update("a\uD83D").update("").update("\uDE00b").hex());
+        assertEquals(ContentHash.of("a\uD83D"), new ContentHash().update("a\uD83D").hex());
+    }
+}
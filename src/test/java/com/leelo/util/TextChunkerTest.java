@@ -0,0 +1,79 @@
+package com.leelo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextChunkerTest {
+
+    @Test
+    public void testChunksJoinBackToOriginal() {
+        String input = "  one two\tthree\n\nfour five  six seven ";
+        List<String> chunks = TextChunker.chunk(input, 3);
+        assertEquals(List.of("  one two\tthree\n\n", "four five  six ", "seven "), chunks);
+        assertEquals(input, String.join("", chunks));
+    }
+
+    @Test
+    public void testChunkMatchesReaderPages() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 450; i++) {
+            input.append("w").append(i).append(i % 7 == 0 ? "\n" : " ");
+        }
+        List<String> chunks = TextChunker.chunk(input.toString(), 200);
+        assertEquals(3, chunks.size());
+        assertEquals(200, chunks.get(0).trim().split("\\s+").length);
+        assertEquals(50, chunks.get(2).trim().split("\\s+").length);
+        assertTrue(chunks.get(1).startsWith("w200"));
+    }
+
+    @Test
+    public void testEmptyText() {
+        assertTrue(TextChunker.chunk("", 10).isEmpty());
+        assertTrue(TextChunker.chunk(null, 10).isEmpty());
+        assertEquals(List.of("   "), TextChunker.chunk("   ", 10));
+    }
+
+    @Test
+    public void testPageWriterMatchesChunk() throws IOException {
+        String input = "  one two\tthree\n\nfour five  six seven ";
+        for (int piece = 1; piece <= input.length(); piece++) {
+            List<String> pages = new ArrayList<>();
+            TextChunker.PageWriter writer = new TextChunker.PageWriter(3, (index, page) -> {
+                assertEquals(pages.size(), index);
+                pages.add(page);
+            });
+            for (int i = 0; i < input.length(); i += piece) {
+                writer.write(input, i, Math.min(piece, input.length() - i));
+            }
+            writer.close();
+            assertEquals(TextChunker.chunk(input, 3), pages);
+            assertEquals(pages.size(), writer.getPageCount());
+        }
+    }
+
+    @Test
+    public void testParagraphsStartAfterLineBreaks() {
+        String chunk = "uno dos\n\ntres cuatro\ncinco seis ";
+        assertEquals(List.of(0, 9, 21), TextChunker.paragraphStarts(chunk, true));
+        assertEquals(List.of(9, 21), TextChunker.paragraphStarts(chunk, false));
+        assertEquals(List.of(2), TextChunker.paragraphStarts("\n\nuno dos", false));
+    }
+
+    @Test
+    public void testLongParagraphIsCutEveryTwoChunks() {
+        List<String> chunks = TextChunker.chunk("a b c d e f g h\ni j k l", 2);
+        // a b | c d | e f | g h\n | i j | k l
+        TextChunker.ParagraphCounter counter = new TextChunker.ParagraphCounter();
+        List<Integer> counts = new ArrayList<>();
+        for (String chunk : chunks) {
+            counts.add(counter.next(chunk));
+        }
+        assertEquals(List.of(1, 0, 1, 0, 1, 0), counts);
+    }
+}
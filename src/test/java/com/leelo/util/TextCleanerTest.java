@@ -1,6 +1,13 @@
 package com.leelo.util;
 
 import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -147,4 +154,112 @@ public class TextCleanerTest {
         String expectedCompound = "Postits";
         assertEquals(expectedCompound, TextCleaner.clean(inputCompound));
     }
+
+    @Test
+    public void testRandomTextMatchesLegacy() {
+        // Spaced letters, Latin-1, combining marks, references, dashes, hyphens and
+        // every kind of whitespace and noise the stages react to
+        String alphabet = "a b c X Y Z é É ñ ç ÿ ab Cd 1 _ [ ] # ⌘ — – - - \r \n \n \t \u0007 \u007F "
+                + "\uFFFD \u200B \uFEFF \u0301 \u0308 \u093C ạ . , * \uD835\uDC00 \uD834\uDD67 Ж";
+        String[] symbols = alphabet.split(" ", -1);
+        Random random = new Random(42);
+        for (int n = 0; n < 50_000; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                text.append(random.nextInt(3) == 0 ? " " : symbols[random.nextInt(symbols.length)]);
+            }
+            String s = text.toString();
+            assertEquals(LegacyTextCleaner.clean(s), TextCleaner.clean(s), s);
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        // Seams only fall before a line starting with a letter or digit, so mix those
+        // with lines that start with spaced letters, hyphens, blanks and references
+        String[] lines = {"\n", "\n\n\n", "\r\n", "\nT h e", "\nca-", "\n  ", "\n[1]", "\n9 ", "\n—"};
+        String[] words = {"word ", "a b c ", "ca-", "lculator ", "[12] ", "#", "\t ", "é ", "x\u0301 ", "— "};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < 4; seed++) {
+                Random random = new Random(seed);
+                StringBuilder text = new StringBuilder();
+                text.append(seed % 2 == 0 ? "\n \n" : "");
+                while (text.length() < 3 * TextCleaner.PARALLEL_THRESHOLD) {
+                    boolean lineBreak = random.nextInt(8) == 0;
+                    text.append(lineBreak ? lines[random.nextInt(lines.length)] : words[random.nextInt(words.length)]);
+                }
+                text.append(seed % 2 == 0 ? "\n\n  " : "");
+                String s = text.toString();
+                assertTrue(TextCleaner.findSeams(s, TextCleaner.MIN_CHUNK).size() > 4);
+                assertEquals(TextCleaner.clean(s), TextCleaner.cleanParallel(s, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamingMatchesClean() throws IOException {
+        String[] pieces = {"word ", "a b c ", "ca-", "lculator ", "[12", "] ", "#", "\t ", "é ", "x\u0301 ",
+                "— ", "\n", "\r\n", "\n\n\n", ". ", "\uFFFD", "\u0007"};
+        Random random = new Random(3);
+        for (int n = 0; n < 200; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(8000);
+            while (text.length() < length) {
+                text.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String s = text.toString();
+
+            StringWriter fromReader = new StringWriter();
+            TextCleaner.clean(new StringReader(s), fromReader);
+            assertEquals(TextCleaner.clean(s), fromReader.toString());
+
+            // Uneven writes, as a PDF stripper or a buffered reader would produce them
+            StringWriter fromWriter = new StringWriter();
+            TextCleaner.CleaningWriter cleaner = new TextCleaner.CleaningWriter(fromWriter);
+            for (int i = 0; i < s.length(); ) {
+                int size = Math.min(1 + random.nextInt(300), s.length() - i);
+                cleaner.write(s, i, size);
+                i += size;
+            }
+            cleaner.close();
+            assertEquals(TextCleaner.clean(s), fromWriter.toString());
+        }
+    }
+
+    @Test
+    public void testStreamingCutsTextWithoutSeamsAtWordBreaks() throws IOException {
+        // Letters, digits, spaces and spaced letters only: no character is a block seam
+        String[] words = {"hola ", "mundo ", "a b c ", "de ", "x ", "2024 ", "é ", "ab_c ", "T h e ", "  "};
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 40 * TextCleaner.CleaningWriter.BLOCK) {
+            text.append(words[random.nextInt(words.length)]);
+        }
+        String s = text.toString();
+
+        StringWriter out = new StringWriter();
+        TextCleaner.CleaningWriter cleaner = new TextCleaner.CleaningWriter(out);
+        for (int i = 0; i < s.length(); ) {
+            int size = Math.min(1 + random.nextInt(1000), s.length() - i);
+            cleaner.write(s, i, size);
+            i += size;
+        }
+        // Most of the text went out before the end of the input
+        assertTrue(out.getBuffer().length() > s.length() / 2);
+        cleaner.finish();
+        assertEquals(TextCleaner.clean(s), out.toString());
+    }
+
+    @Test
+    public void testStreamingWithoutBlockSeams() throws IOException {
+        // A long run of spaced letters has nowhere to cut; the writer keeps it whole
+        String s = "x" + " a".repeat(20_000) + "\n\n\n\nend ";
+        StringWriter out = new StringWriter();
+        TextCleaner.clean(new StringReader(s), out);
+        assertEquals(TextCleaner.clean(s), out.toString());
+    }
 }
@@ -0,0 +1,56 @@
+package com.leelo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WordNormalizerTest {
+
+    private static final Pattern NOT_WORD_EDGES = Pattern.compile("^[^\\p{L}\\p{N}]+|[^\\p{L}\\p{N}]+$");
+
+    @Test
+    public void testNormalizeExamples() {
+        assertEquals("cancion", WordNormalizer.normalize("¡Canción!"));
+        assertEquals("dont", WordNormalizer.normalize("Don't"));
+        assertEquals("", WordNormalizer.normalize("1999..."));
+        assertEquals("straße", WordNormalizer.normalize("Straße"));
+        assertEquals("οδος", WordNormalizer.normalize("οδός"));
+    }
+
+    @Test
+    public void testEveryBmpCharacterMatchesLegacy() {
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            if (Character.isSurrogate(c)) {
+                continue;
+            }
+            String s = String.valueOf(c);
+            assertEquals(WordNormalizer.legacyNormalize(s), WordNormalizer.normalizeUncached(s),
+                    () -> "U+" + Integer.toHexString(s.charAt(0)));
+        }
+    }
+
+    @Test
+    public void testRandomTokensMatchLegacy() {
+        String alphabet = "abcXYZ éÉñÑüçÇøÅßİıΣσςΟδόЖжǅﬁŉ'-.,!¿?0123456789़́̈𝐀क़한";
+        Random random = new Random(42);
+        for (int n = 0; n < 50_000; n++) {
+            StringBuilder token = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                int index = random.nextInt(alphabet.length());
+                char c = alphabet.charAt(index);
+                if (Character.isHighSurrogate(c) && index + 1 < alphabet.length()) {
+                    token.append(c).append(alphabet.charAt(index + 1));
+                } else if (!Character.isLowSurrogate(c)) {
+                    token.append(c);
+                }
+            }
+            String s = token.toString();
+            assertEquals(WordNormalizer.legacyNormalize(s), WordNormalizer.normalize(s), s);
+            assertEquals(NOT_WORD_EDGES.matcher(s).replaceAll(""), WordNormalizer.trimToWord(s), s);
+        }
+    }
+}